@@ -1,11 +1,15 @@
 package com.fujitsu.delivery_fee_api.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 
 @Configuration
 public class JacksonConfig {
@@ -23,4 +27,34 @@ public class JacksonConfig {
         xmlMapper.registerModule(new JavaTimeModule());
         return xmlMapper;
     }
-}
\ No newline at end of file
+
+    @Bean
+    public SmileMapper smileMapper() {
+        SmileMapper smileMapper = new SmileMapper();
+        smileMapper.registerModule(new JavaTimeModule());
+        return smileMapper;
+    }
+
+    @Bean
+    public CBORMapper cborMapper() {
+        CBORMapper cborMapper = new CBORMapper();
+        cborMapper.registerModule(new JavaTimeModule());
+        return cborMapper;
+    }
+
+    /**
+     * Serves and accepts {@code application/x-jackson-smile} with the same mapping as JSON.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(SmileMapper smileMapper) {
+        return new MappingJackson2SmileHttpMessageConverter(smileMapper);
+    }
+
+    /**
+     * Serves and accepts {@code application/cbor} with the same mapping as JSON.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(CBORMapper cborMapper) {
+        return new MappingJackson2CborHttpMessageConverter(cborMapper);
+    }
+}
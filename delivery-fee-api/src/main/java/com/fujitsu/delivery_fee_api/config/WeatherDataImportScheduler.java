@@ -1,24 +1,65 @@
 package com.fujitsu.delivery_fee_api.config;
 
+import java.time.Instant;
+
 import com.fujitsu.delivery_fee_api.service.WeatherDataService;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherFeedFetcher;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherPollSchedule;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.scheduling.support.CronTrigger;
 import org.springframework.stereotype.Component;
 
+/**
+ * Schedules the weather import. With {@code weather.poll.adaptive} the feed is polled when the
+ * {@link WeatherPollSchedule} expects it to advance, otherwise at {@code weather.import.cron}.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class WeatherDataImportScheduler {
+public class WeatherDataImportScheduler implements SchedulingConfigurer {
+
+    @Value("${weather.import.cron}")
+    private String importCron;
 
     private final WeatherDataService weatherDataService;
+    private final WeatherFeedFetcher weatherFeedFetcher;
+    private final WeatherPollSchedule weatherPollSchedule;
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        if (weatherPollSchedule.isAdaptive()) {
+            taskRegistrar.addTriggerTask(this::pollWeatherData,
+                context -> weatherPollSchedule.scheduleNextPoll(context.getClock().instant()));
+        } else if (CronExpression.isValidExpression(importCron)) {
+            taskRegistrar.addTriggerTask(this::scheduleWeatherDataImport, new CronTrigger(importCron));
+        }
+    }
 
-    @Scheduled(cron = "${weather.import.cron}")
     public void scheduleWeatherDataImport() {
-        
+
         weatherDataService.importWeatherData();
-        
+
+    }
+
+    /**
+     * Imports the weather data and records the observation timestamp it left behind, which may also have been
+     * advanced by a manual import since the last poll. A failed poll is logged and the next one backs off.
+     */
+    public void pollWeatherData() {
+        Instant polledAt = Instant.now();
+        try {
+            weatherDataService.importWeatherData();
+            weatherPollSchedule.recordPoll(weatherFeedFetcher.getLastImportedTimestamp(), polledAt);
+        } catch (RuntimeException e) {
+            log.error("Weather data import failed, backing off: {}", e.getMessage());
+            weatherPollSchedule.recordFailure(polledAt);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,42 @@
 package com.fujitsu.delivery_fee_api.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fujitsu.delivery_fee_api.dto.FeeQuoteRequestDTO;
+import com.fujitsu.delivery_fee_api.dto.FeeQuoteResultDTO;
 import com.fujitsu.delivery_fee_api.service.DeliveryFeeCalculationService;
+import com.fujitsu.delivery_fee_api.service.batch.BatchFeeQuoteService;
+import com.fujitsu.delivery_fee_api.service.fee.FeeInputVersion;
+import com.fujitsu.delivery_fee_api.service.fee.VersionedFeeOutcome;
+import com.fujitsu.delivery_fee_api.service.matrix.FeeMatrixService;
+import com.fujitsu.delivery_fee_api.service.subscription.FeeChangeBroadcaster;
+import com.fujitsu.delivery_fee_api.service.timeline.FeeTimelineService;
+import com.fujitsu.delivery_fee_api.service.trace.CalculationTrace;
+import com.fujitsu.delivery_fee_api.service.trace.CalculationTraceRecorder;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherPollSchedule;
+import com.fujitsu.delivery_fee_api.util.HttpCacheUtils;
+import com.fujitsu.delivery_fee_api.util.MoneyUtils;
 
 import lombok.AllArgsConstructor;
 
@@ -20,15 +45,30 @@ import lombok.AllArgsConstructor;
 @AllArgsConstructor
 public class DeliveryFeeController {
     
+    private static final int NDJSON_FLUSH_INTERVAL = 100;
+    private static final String SMILE_VALUE = "application/x-jackson-smile";
+
     private final DeliveryFeeCalculationService deliveryFeeService;
+    private final FeeMatrixService feeMatrixService;
+    private final BatchFeeQuoteService batchFeeQuoteService;
+    private final FeeTimelineService feeTimelineService;
+    private final CalculationTraceRecorder traceRecorder;
+    private final FeeChangeBroadcaster feeChangeBroadcaster;
+    private final HttpCacheUtils httpCacheUtils;
+    private final WeatherPollSchedule weatherPollSchedule;
+    private final ObjectMapper objectMapper;
 
 
     /**
      * Calculates the delivery fee for a given city, vehicle type, and optional date/time.
+     * Without a date/time the fee is read from the precomputed fee matrix.
+     * The response carries an ETag derived from the weather observation, tariff version, city and vehicle type
+     * the fee was calculated from, a matching {@code If-None-Match} is answered with 304 Not Modified.
      *
      * @param city          the name of the city
      * @param vehicleType   the type of vehicle
      * @param dateTime      the date and time of delivery (optional)
+     * @param request       the request, for evaluating {@code If-None-Match}
      * @return ResponseEntity containing the calculated delivery fee as a BigDecimal
      * @throws com.fujitsu.delivery_fee_api.exception.NotFoundException if the city, vehicle type, or weather data is not found
      * @throws com.fujitsu.delivery_fee_api.exception.VehicleUsageForbiddenException if the vehicle usage is forbidden under current weather conditions
@@ -37,8 +77,150 @@ public class DeliveryFeeController {
     public ResponseEntity<BigDecimal> calculateDeliveryFee(
             @PathVariable("city") String cityName,
             @PathVariable("vehicleType") String vehicleTypeName,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateTime) {
-        BigDecimal totalFee = deliveryFeeService.calculateDeliveryFee(cityName, vehicleTypeName, dateTime);
-        return ResponseEntity.ok(totalFee);
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateTime,
+            WebRequest request) {
+        VersionedFeeOutcome result = dateTime == null
+                ? feeMatrixService.getCurrentOutcome(cityName, vehicleTypeName)
+                : deliveryFeeService.calculateVersionedDeliveryFee(cityName, vehicleTypeName, dateTime);
+        long totalFeeCents = result.outcome().getCentsOrThrow();
+        if (!httpCacheUtils.isEnabled()) {
+            return ResponseEntity.ok(MoneyUtils.fromCents(totalFeeCents));
+        }
+
+        FeeInputVersion inputVersion = result.inputVersion();
+        String eTag = httpCacheUtils.eTag(inputVersion.city(), inputVersion.vehicleType(), inputVersion.observationTimestamp(),
+                inputVersion.tariffVersion(), inputVersion.nextEffectiveDate(), inputVersion.referenceDataVersion());
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(httpCacheUtils.untilNextImport(weatherPollSchedule.nextImportDeadline()))
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(httpCacheUtils.untilNextImport(weatherPollSchedule.nextImportDeadline()))
+                .body(MoneyUtils.fromCents(totalFeeCents));
+    }
+
+    /**
+     * Calculates the delivery fees of a batch of city, vehicle type and optional date/time items.
+     * A forbidden vehicle or missing data is reported in the result of the affected item only.
+     *
+     * @param requests  the items to quote
+     * @return ResponseEntity containing one result per item, in the order of the request
+     * @throws com.fujitsu.delivery_fee_api.exception.InvalidRequestException if the batch has more items than allowed or an item
+     *         lacks a city or vehicle type
+     */
+    @PostMapping(value = "/batch", produces = {MediaType.APPLICATION_JSON_VALUE, SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<FeeQuoteResultDTO>> calculateDeliveryFees(@RequestBody List<FeeQuoteRequestDTO> requests) {
+        return ResponseEntity.ok(batchFeeQuoteService.quoteAll(requests));
+    }
+
+    /**
+     * Streams the delivery fees of a batch as newline delimited JSON, writing each result as soon as it is calculated.
+     * Results are grouped by city; the index of each result refers to the position of the item in the request.
+     *
+     * @param requests  the items to quote
+     * @return ResponseEntity streaming one JSON result per line
+     * @throws com.fujitsu.delivery_fee_api.exception.InvalidRequestException if the batch has more items than allowed or an item
+     *         lacks a city or vehicle type
+     */
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamDeliveryFees(@RequestBody List<FeeQuoteRequestDTO> requests) {
+        batchFeeQuoteService.checkBatch(requests);
+        StreamingResponseBody body = outputStream -> {
+            int[] written = {0};
+            batchFeeQuoteService.quote(requests, result -> {
+                writeLine(outputStream, result);
+                if (++written[0] % NDJSON_FLUSH_INTERVAL == 0) {
+                    flush(outputStream);
+                }
+            });
+            outputStream.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Streams the changes of the delivery fee of a city and vehicle type over a time range as newline delimited JSON.
+     * An entry is written whenever a weather observation or a fee rule change results in a different fee or outcome;
+     * each entry is valid from its {@code validFrom} until the next entry.
+     *
+     * @param cityName          the name of the city
+     * @param vehicleTypeName   the type of vehicle
+     * @param from              the start of the range, inclusive
+     * @param to                the end of the range, inclusive
+     * @return ResponseEntity streaming one JSON entry per line
+     * @throws com.fujitsu.delivery_fee_api.exception.NotFoundException if the city or vehicle type is not found
+     * @throws com.fujitsu.delivery_fee_api.exception.InvalidRequestException if the range ends before it starts
+     */
+    @GetMapping(value = "/timeline/city/{city}/vehicle/{vehicleType}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFeeTimeline(
+            @PathVariable("city") String cityName,
+            @PathVariable("vehicleType") String vehicleTypeName,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        FeeTimelineService.TimelineRange range = feeTimelineService.resolve(cityName, vehicleTypeName, from, to);
+        StreamingResponseBody body = outputStream -> {
+            int[] written = {0};
+            feeTimelineService.stream(range, entry -> {
+                writeLine(outputStream, entry);
+                if (++written[0] % NDJSON_FLUSH_INTERVAL == 0) {
+                    flush(outputStream);
+                }
+            });
+            outputStream.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Subscribes to the changes of the current delivery fee of every combination of the given cities and vehicle types.
+     * The current outcome of each combination is sent first, afterwards an event is sent only when a weather import,
+     * a fee change or a reference data change alters the fee or outcome of a combination.
+     *
+     * @param cityNames         the names of the cities (optional, all cities if omitted)
+     * @param vehicleTypeNames  the types of vehicle (optional, all vehicle types if omitted)
+     * @return the emitter streaming one {@code fee} event per change
+     * @throws com.fujitsu.delivery_fee_api.exception.NotFoundException if a city or vehicle type is not found
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToFeeChanges(
+            @RequestParam(name = "city", required = false) List<String> cityNames,
+            @RequestParam(name = "vehicleType", required = false) List<String> vehicleTypeNames) {
+        return feeChangeBroadcaster.subscribe(cityNames, vehicleTypeNames);
+    }
+
+    /**
+     * Returns the most recently recorded fee calculation traces, newest first.
+     * Slow and failed calculations are always recorded, others are sampled.
+     *
+     * @param limit  the maximum number of traces to return
+     * @return ResponseEntity containing the recorded traces
+     */
+    @GetMapping("/traces")
+    public ResponseEntity<List<CalculationTrace>> getRecentTraces(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(traceRecorder.getRecent(limit));
+    }
+
+    private void writeLine(OutputStream outputStream, Object line) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(line));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void flush(OutputStream outputStream) {
+        try {
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -1,8 +1,11 @@
 package com.fujitsu.delivery_fee_api.controller;
 
 import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+import com.fujitsu.delivery_fee_api.dto.WeatherImportReportDTO;
 
 import com.fujitsu.delivery_fee_api.service.WeatherDataService;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherPollSchedule;
+import com.fujitsu.delivery_fee_api.util.HttpCacheUtils;
 
 import lombok.RequiredArgsConstructor;
 
@@ -19,21 +22,35 @@ import java.util.List;
 public class WeatherDataController {
 
     private final WeatherDataService weatherDataService;
+    private final HttpCacheUtils httpCacheUtils;
+    private final WeatherPollSchedule weatherPollSchedule;
 
     /**
      * Manually triggers the import of weather data from the external API.
      * This endpoint can be used to force an immediate update of weather data
-     * without waiting for the scheduled import.
+     * without waiting for the scheduled import. Observations that have already been
+     * imported are skipped, so repeated calls do not add rows.
      *
-     * @return ResponseEntity with no content if the import was successful
+     * @return the import report with the number of inserted, updated and skipped rows
      * @throws RuntimeException if there's an error during the import process
      */
     @PostMapping("/import")
-    public ResponseEntity<Void> importWeatherData() {
-        weatherDataService.importWeatherData();
-        return ResponseEntity.ok().build();
+    public ResponseEntity<WeatherImportReportDTO> importWeatherData() {
+        return ResponseEntity.ok(weatherDataService.importWeatherData());
     }
     
+    /**
+     * Retrieves the reports of the most recent weather imports, newest first, with the bytes received, the stations
+     * seen and kept, the rows written and the time spent in every stage of each import.
+     *
+     * @param limit the maximum number of reports to return
+     * @return the import reports
+     */
+    @GetMapping("/import/last")
+    public ResponseEntity<List<WeatherImportReportDTO>> getRecentImports(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(weatherDataService.getRecentImports(limit));
+    }
+
     /**
      * Retrieves a WeatherDataDTO object by its ID.
      *
@@ -50,12 +67,26 @@ public class WeatherDataController {
         }
     }
 
+    /**
+     * Retrieves the latest weather observation of a city as of the given time.
+     * The response carries an ETag of the observation and may be cached until the next scheduled import;
+     * a matching {@code If-None-Match} is answered with 304 Not Modified.
+     *
+     * @param cityName  the name of the city
+     * @param dateTime  the date and time of the query (optional, the current time if omitted)
+     * @return the WeatherDataDTO object, or 404 if there is no observation
+     */
     @GetMapping("/city/{city}")
     public ResponseEntity<WeatherDataDTO> getWeatherData(
         @PathVariable("city") String cityName,
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateTime) {
         WeatherDataDTO weatherDataDTO = weatherDataService.getWeatherDataByCityName(cityName, dateTime);
-        if (weatherDataDTO != null) {
+        if (weatherDataDTO != null && httpCacheUtils.isEnabled()) {
+            return ResponseEntity.ok()
+                .eTag(httpCacheUtils.eTag(weatherDataDTO.getId(), weatherDataDTO.getWmoCode(), weatherDataDTO.getObservationTimestamp()))
+                .cacheControl(httpCacheUtils.untilNextImport(weatherPollSchedule.nextImportDeadline()))
+                .body(weatherDataDTO);
+        } else if (weatherDataDTO != null) {
             return ResponseEntity.ok(weatherDataDTO);
         } else {
             return ResponseEntity.notFound().build();
@@ -68,7 +99,7 @@ public class WeatherDataController {
      * Creates a new WeatherData object by saving it using the WeatherDataService.
      *
      * @param weatherDataDTO the WeatherDataDTO object to be saved
-     * @return the newly created WeatherDataDTO object
+     * @return the newly created WeatherDataDTO object, or 409 if the station already has an observation with the same timestamp
      */
     @PostMapping
     public ResponseEntity<WeatherDataDTO> createWeatherData(@RequestBody WeatherDataDTO weatherDataDTO) {
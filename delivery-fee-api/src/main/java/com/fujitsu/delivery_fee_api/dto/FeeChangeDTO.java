@@ -0,0 +1,17 @@
+package com.fujitsu.delivery_fee_api.dto;
+
+import com.fujitsu.delivery_fee_api.service.fee.FeeOutcome;
+
+import lombok.Data;
+import java.math.BigDecimal;
+
+@Data
+public class FeeChangeDTO {
+    private String city;
+    private String vehicleType;
+    private FeeOutcome.Status status;
+    private BigDecimal fee;
+    private String message;
+    private Integer observationTimestamp;
+    private long tariffVersion;
+}
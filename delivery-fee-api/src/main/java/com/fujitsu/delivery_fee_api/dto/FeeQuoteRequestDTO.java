@@ -0,0 +1,16 @@
+package com.fujitsu.delivery_fee_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeQuoteRequestDTO {
+    private String city;
+    private String vehicleType;
+    private LocalDateTime dateTime;
+}
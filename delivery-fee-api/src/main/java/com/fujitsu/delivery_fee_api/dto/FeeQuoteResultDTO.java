@@ -0,0 +1,19 @@
+package com.fujitsu.delivery_fee_api.dto;
+
+import com.fujitsu.delivery_fee_api.service.fee.FeeOutcome;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class FeeQuoteResultDTO {
+    private int index;
+    private String city;
+    private String vehicleType;
+    private LocalDateTime dateTime;
+    private FeeOutcome.Status status;
+    private BigDecimal fee;
+    private String message;
+    private Integer observationTimestamp;
+}
@@ -0,0 +1,16 @@
+package com.fujitsu.delivery_fee_api.dto;
+
+import com.fujitsu.delivery_fee_api.service.fee.FeeOutcome;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class FeeTimelineEntryDTO {
+    private LocalDateTime validFrom;
+    private FeeOutcome.Status status;
+    private BigDecimal fee;
+    private String message;
+    private Integer observationTimestamp;
+}
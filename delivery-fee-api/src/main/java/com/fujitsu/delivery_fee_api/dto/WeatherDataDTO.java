@@ -11,4 +11,6 @@ public class WeatherDataDTO {
     private Float windSpeed;
     private String weatherPhenomenon;
     private Integer observationTimestamp;
+    private Integer validFrom;
+    private Integer validTo;
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.fujitsu.delivery_fee_api.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+import lombok.Data;
+
+@Data
+public class WeatherImportReportDTO {
+    private Integer observationTimestamp;
+    private boolean feedUnchanged;
+    private int insertedRows;
+    private int updatedRows;
+    private int skippedRows;
+    private Instant startedAt;
+    private String provider;
+    private long feedBytes;
+    private int stationsSeen;
+    private int stationsRelevant;
+    // microseconds spent in each stage that ran: fetch, parse, filter, map, persist and publish
+    private Map<String, Long> stageMicros;
+    private long totalMicros;
+    private String error;
+}
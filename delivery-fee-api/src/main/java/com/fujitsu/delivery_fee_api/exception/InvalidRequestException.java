@@ -0,0 +1,7 @@
+package com.fujitsu.delivery_fee_api.exception;
+
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -1,13 +1,46 @@
 package com.fujitsu.delivery_fee_api.exception;
 
+import com.fujitsu.delivery_fee_api.service.tariff.TariffRule;
+
 public class VehicleUsageForbiddenException extends RuntimeException {
     public static final String FORBIDDEN_VEHICLE = "Usage of selected vehicle type is forbidden";
 
+    private final String component;
+    private final TariffRule rule;
+
     public VehicleUsageForbiddenException() {
-        super(FORBIDDEN_VEHICLE);
+        this(FORBIDDEN_VEHICLE);
     }
     
     public VehicleUsageForbiddenException(String message) {
         super(message);
+        this.component = null;
+        this.rule = null;
+    }
+
+    /**
+     * Creates the exception for a fee rule that forbids the vehicle type.
+     *
+     * @param component  the name of the fee component whose rule forbids the vehicle type
+     * @param rule       the rule that forbids the vehicle type
+     */
+    public VehicleUsageForbiddenException(String component, TariffRule rule) {
+        super(FORBIDDEN_VEHICLE);
+        this.component = component;
+        this.rule = rule;
+    }
+
+    /**
+     * @return the name of the fee component that forbade the vehicle type, null if unknown
+     */
+    public String getComponent() {
+        return component;
+    }
+
+    /**
+     * @return the rule that forbade the vehicle type, null if unknown
+     */
+    public TariffRule getRule() {
+        return rule;
     }
-}
\ No newline at end of file
+}
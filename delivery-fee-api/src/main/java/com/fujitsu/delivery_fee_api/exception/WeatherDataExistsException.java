@@ -0,0 +1,7 @@
+package com.fujitsu.delivery_fee_api.exception;
+
+public class WeatherDataExistsException extends RuntimeException {
+    public WeatherDataExistsException(String message) {
+        super(message);
+    }
+}
@@ -10,10 +10,14 @@ import java.time.ZoneOffset;
 @Data 
 @NoArgsConstructor(force = true)
 @Entity 
-@Table(name = "weather_data")
+@Table(name = "weather_data", uniqueConstraints = @UniqueConstraint(
+    name = "uk_weather_data_wmo_code_observation_timestamp", columnNames = {"wmo_code", "observation_timestamp"}),
+    indexes = @Index(name = "idx_weather_data_wmo_code_valid_from", columnList = "wmo_code, valid_from"))
 public class WeatherData {
+    // pooled sequence ids let Hibernate batch the inserts of an import
     @Id 
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weather_data_seq")
+    @SequenceGenerator(name = "weather_data_seq", sequenceName = "weather_data_seq", allocationSize = 50)
     private Long id;
     
     private String stationName;
@@ -22,6 +26,11 @@ public class WeatherData {
     private Float windSpeed;
     private String weatherPhenomenon;
     private Integer observationTimestamp;
+    // the epoch seconds this row is valid from, inclusive, and until, exclusive; validTo is null while it is the latest
+    private Integer validFrom;
+    private Integer validTo;
+    // the latest observation timestamp whose values this row stands for, from validFrom up to this timestamp inclusive
+    private Integer lastObservedAt;
 
     // Custom constructor without id
     public WeatherData(String stationName, Integer wmoCode, Float airTemperature, 
@@ -34,6 +43,21 @@ public class WeatherData {
         this.observationTimestamp = observationTimestamp;
     }
 
+    @PrePersist
+    void defaultValidity() {
+        if (validFrom == null) {
+            validFrom = observationTimestamp;
+        }
+        if (lastObservedAt == null) {
+            lastObservedAt = observationTimestamp;
+        }
+    }
+
+    // The end of the observed span, inclusive; a row without a last observation stands for its first observation only
+    public int getObservedSpanEnd() {
+        return lastObservedAt != null ? lastObservedAt : validFrom;
+    }
+
     // Convert to Instant
     public Instant getObservationTimestampAsInstant() {
         return Instant.ofEpochSecond(observationTimestamp);
@@ -52,5 +52,24 @@ public interface AirTemperatureExtraFeeRepository extends JpaRepository<AirTempe
        List<AirTemperatureExtraFee> findOverlappingFees(@Param("minTemp") Float minTemp,
                                                         @Param("maxTemp") Float maxTemp,
                                                         @Param("vehicleIds") Set<Long> vehicleIds);
-                                                                                    
+
+       /**
+        * Retrieves all active AirTemperatureExtraFee entities together with their applicable vehicles.
+        *
+        * @return the list of active AirTemperatureExtraFee entities
+        */
+       @Query("SELECT DISTINCT atef FROM AirTemperatureExtraFee atef " +
+              "LEFT JOIN FETCH atef.applicableVehicles " +
+              "WHERE atef.isActive = true")
+       List<AirTemperatureExtraFee> findAllActiveWithVehicles();
+
+       /**
+        * Retrieves the earliest effective date of an active AirTemperatureExtraFee that is later than the given time.
+        *
+        * @param after the time to search from, exclusive
+        * @return the next effective date, or null if there is none
+        */
+       @Query("SELECT MIN(atef.effectiveDate) FROM AirTemperatureExtraFee atef " +
+              "WHERE atef.isActive = true AND atef.effectiveDate > :after")
+       LocalDateTime findNextEffectiveDateAfter(@Param("after") LocalDateTime after);
 }
\ No newline at end of file
@@ -49,4 +49,13 @@ public interface RegionalBaseFeeRepository extends JpaRepository<RegionalBaseFee
     Optional<RegionalBaseFee> findByCityAndVehicleType(City city, VehicleType vehicleType);
 
     Optional<RegionalBaseFee> findByCityIdAndVehicleTypeId(Long cityId, Long vehicleId);
+
+    /**
+     * Retrieves the earliest effective date of any base fee that is later than the given time.
+     *
+     * @param after the time to search from, exclusive
+     * @return the next effective date, or null if there is none
+     */
+    @Query("SELECT MIN(r.effectiveDate) FROM RegionalBaseFee r WHERE r.effectiveDate > :after")
+    LocalDateTime findNextEffectiveDateAfter(@Param("after") LocalDateTime after);
 }
\ No newline at end of file
@@ -2,14 +2,21 @@ package com.fujitsu.delivery_fee_api.repository;
 
 import com.fujitsu.delivery_fee_api.model.WeatherData;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface WeatherDataRepository extends JpaRepository<WeatherData, Long> {
     @Query("SELECT w FROM WeatherData w WHERE w.wmoCode = :wmoCode ORDER BY w.observationTimestamp DESC LIMIT 1")
@@ -23,4 +30,25 @@ public interface WeatherDataRepository extends JpaRepository<WeatherData, Long>
 
     @Query("SELECT w FROM WeatherData w WHERE w.wmoCode = :wmoCode AND w.observationTimestamp <= :timestamp ORDER BY w.observationTimestamp DESC")
     List<WeatherData> findWeatherDataByWmoCodeAndTimestamp(@Param("wmoCode") Integer wmoCode, @Param("timestamp") Integer timestamp);
+
+    @Query("SELECT w FROM WeatherData w WHERE w.wmoCode = :wmoCode AND w.observationTimestamp > :from AND w.observationTimestamp <= :to ORDER BY w.observationTimestamp ASC, w.id ASC")
+    List<WeatherData> findByWMOCodeBetween(@Param("wmoCode") int wmoCode, @Param("from") int from, @Param("to") int to);
+
+    // the row whose validity interval contains the given time
+    @Query("SELECT w FROM WeatherData w WHERE w.wmoCode = :wmoCode AND w.validFrom <= :time AND (w.validTo IS NULL OR w.validTo > :time) ORDER BY w.validFrom DESC LIMIT 1")
+    Optional<WeatherData> findValidAt(@Param("wmoCode") int wmoCode, @Param("time") int time);
+
+    @Query("SELECT w FROM WeatherData w WHERE w.wmoCode = :wmoCode AND w.validFrom > :time ORDER BY w.validFrom ASC LIMIT 1")
+    Optional<WeatherData> findFirstValidAfter(@Param("wmoCode") int wmoCode, @Param("time") int time);
+
+    boolean existsByWmoCodeAndObservationTimestamp(Integer wmoCode, Integer observationTimestamp);
+
+    // may return rows of other combinations of the given codes and timestamps
+    @Query("SELECT w FROM WeatherData w WHERE w.wmoCode IN :wmoCodes AND w.observationTimestamp IN :timestamps")
+    List<WeatherData> findByWMOCodesAndTimestamps(@Param("wmoCodes") Collection<Integer> wmoCodes, @Param("timestamps") Collection<Integer> timestamps);
+
+    // must be consumed within a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT w FROM WeatherData w WHERE w.wmoCode = :wmoCode AND w.observationTimestamp > :from AND w.observationTimestamp <= :to ORDER BY w.observationTimestamp ASC, w.id ASC")
+    Stream<WeatherData> streamByWMOCodeBetween(@Param("wmoCode") int wmoCode, @Param("from") int from, @Param("to") int to);
 }
\ No newline at end of file
@@ -49,5 +49,25 @@ public interface WeatherPhenomenonExtraFeeRepository extends JpaRepository<Weath
     List<WeatherPhenomenonExtraFee> findOverlappingFees(
             @Param("phenomenonCategory") WeatherPhenomenonCategory phenomenonCategory,
             @Param("vehicleIds") Set<Long> vehicleIds);
+
+    /**
+     * Retrieves all active WeatherPhenomenonExtraFee records together with their applicable vehicles.
+     *
+     * @return                     a list of active WeatherPhenomenonExtraFee records
+     */
+    @Query("SELECT DISTINCT wpf FROM WeatherPhenomenonExtraFee wpf " +
+           "LEFT JOIN FETCH wpf.applicableVehicles " +
+           "WHERE wpf.isActive = true")
+    List<WeatherPhenomenonExtraFee> findAllActiveWithVehicles();
+
+    /**
+     * Retrieves the earliest effective date of an active WeatherPhenomenonExtraFee record that is later than the given time.
+     *
+     * @param  after               the time to search from, exclusive
+     * @return                     the next effective date, or null if there is none
+     */
+    @Query("SELECT MIN(wpf.effectiveDate) FROM WeatherPhenomenonExtraFee wpf " +
+           "WHERE wpf.isActive = true AND wpf.effectiveDate > :after")
+    LocalDateTime findNextEffectiveDateAfter(@Param("after") LocalDateTime after);
        
 }
\ No newline at end of file
@@ -50,4 +50,24 @@ public interface WindSpeedExtraFeeRepository extends JpaRepository<WindSpeedExtr
        List<WindSpeedExtraFee> findOverlappingFees(@Param("minSpeed") Float minSpeed,
                                                  @Param("maxSpeed") Float maxSpeed,
                                                  @Param("vehicleIds") Set<Long> vehicleIds);
+
+       /**
+        * Finds all active WindSpeedExtraFee records together with their applicable vehicles.
+        *
+        * @return              a list of active WindSpeedExtraFee records
+        */
+       @Query("SELECT DISTINCT wsef FROM WindSpeedExtraFee wsef " +
+              "LEFT JOIN FETCH wsef.applicableVehicles " +
+              "WHERE wsef.isActive = true")
+       List<WindSpeedExtraFee> findAllActiveWithVehicles();
+
+       /**
+        * Finds the earliest effective date of an active WindSpeedExtraFee record that is later than the given time.
+        *
+        * @param  after        the time to search from, exclusive
+        * @return              the next effective date, or null if there is none
+        */
+       @Query("SELECT MIN(wsef.effectiveDate) FROM WindSpeedExtraFee wsef " +
+              "WHERE wsef.isActive = true AND wsef.effectiveDate > :after")
+       LocalDateTime findNextEffectiveDateAfter(@Param("after") LocalDateTime after);
 }
\ No newline at end of file
@@ -7,11 +7,14 @@ import com.fujitsu.delivery_fee_api.model.fee_tables.RegionalBaseFee;
 import com.fujitsu.delivery_fee_api.repository.CityRepository;
 import com.fujitsu.delivery_fee_api.repository.RegionalBaseFeeRepository;
 import com.fujitsu.delivery_fee_api.repository.VehicleTypeRepository;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffChangedEvent;
 
 import lombok.RequiredArgsConstructor;
 
 import org.mapstruct.factory.Mappers;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -24,8 +27,11 @@ public class BaseFeeService {
     private final RegionalBaseFeeRepository regionalBaseFeeRepository;
     private final CityRepository cityRepository;
     private final VehicleTypeRepository vehicleTypeRepository;
+    private final ApplicationEventPublisher eventPublisher;
     private final BaseFeeMapper baseFeeMapper = Mappers.getMapper(BaseFeeMapper.class);
 
+    private static final String BASE_FEE_TABLE = "regional_base_fee";
+
     
     /**
      * Retrieves all base fees from the database.
@@ -44,6 +50,7 @@ public class BaseFeeService {
      * @param  baseFeeDto   the DTO containing the information for the new base fee
      * 
      */
+    @Transactional
     public void createBaseFee(BaseFeeDTO baseFeeDto) {
         Long cityId = baseFeeDto.getCityId();
         Long vehicleTypeId = baseFeeDto.getVehicleTypeId();
@@ -61,7 +68,7 @@ public class BaseFeeService {
         newBaseFee.setEffectiveDate(LocalDateTime.now());
         newBaseFee.setIsActive(true);
         regionalBaseFeeRepository.save(newBaseFee);
-
+        eventPublisher.publishEvent(new TariffChangedEvent(BASE_FEE_TABLE));
     }
     
     /**
@@ -70,6 +77,7 @@ public class BaseFeeService {
      * @param  id          the ID of the base fee to update
      * @param  baseFeeDto  the DTO containing the updated base fee information
      */
+    @Transactional
     public void updateBaseFee(Long id, BaseFeeDTO baseFeeDto) {
         RegionalBaseFee existingBaseFee = regionalBaseFeeRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("No BaseFee entry with that ID."));
@@ -77,6 +85,7 @@ public class BaseFeeService {
         existingBaseFee.setBaseFee(baseFeeDto.getBaseFee());
 
         regionalBaseFeeRepository.save(existingBaseFee);
+        eventPublisher.publishEvent(new TariffChangedEvent(BASE_FEE_TABLE));
     }
 
     /**
@@ -84,11 +93,13 @@ public class BaseFeeService {
      *
      * @param  id  the ID of the base fee to delete
      */
+    @Transactional
     public void deleteBaseFee(Long id) {
         if (!regionalBaseFeeRepository.existsById(id)) {
             throw new NotFoundException("No BaseFee entry with that ID.");
         } else {
             regionalBaseFeeRepository.deleteById(id);
+            eventPublisher.publishEvent(new TariffChangedEvent(BASE_FEE_TABLE));
         }
     }
 
@@ -6,6 +6,8 @@ import com.fujitsu.delivery_fee_api.model.WeatherPhenomenonType;
 import com.fujitsu.delivery_fee_api.repository.CityRepository;
 import com.fujitsu.delivery_fee_api.repository.VehicleTypeRepository;
 import com.fujitsu.delivery_fee_api.repository.WeatherPhenomenonTypeRepository;
+import com.fujitsu.delivery_fee_api.service.reference.ReferenceDataRegistry;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import lombok.RequiredArgsConstructor;
 
@@ -19,6 +21,12 @@ public class DataService {
     private final CityRepository cityRepository;
     private final VehicleTypeRepository vehicleTypeRepository;
     private final WeatherPhenomenonTypeRepository weatherPhenomenonTypeRepository;
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final String CITY = "city";
+    private static final String VEHICLE_TYPE = "vehicle_type";
+    private static final String WEATHER_PHENOMENON_TYPE = "weather_phenomenon_type";
 
     
     /**
@@ -37,22 +45,27 @@ public class DataService {
     }
 
     public City createCity(City city) {
-        return cityRepository.save(city);
+        City created = cityRepository.save(city);
+        referenceDataChanged(CITY);
+        return created;
     }
 
     public Optional<City> updateCity(Long id, City cityDetails) {
-        return cityRepository.findById(id)
+        Optional<City> updated = cityRepository.findById(id)
                 .map(city -> {
                     city.setName(cityDetails.getName());
                     city.setWmoCode(cityDetails.getWmoCode());
                     return cityRepository.save(city);
                 });
+        updated.ifPresent(updatedCity -> referenceDataChanged(CITY));
+        return updated;
     }
 
     public boolean deleteCity(Long id) {
         return cityRepository.findById(id)
                 .map(city -> {
                     cityRepository.delete(city);
+                    referenceDataChanged(CITY);
                     return true;
                 })
                 .orElse(false);
@@ -67,22 +80,27 @@ public class DataService {
     }
 
     public VehicleType createVehicleType(VehicleType vehicleType) {
-        return vehicleTypeRepository.save(vehicleType);
+        VehicleType created = vehicleTypeRepository.save(vehicleType);
+        referenceDataChanged(VEHICLE_TYPE);
+        return created;
     }
 
     public Optional<VehicleType> updateVehicleType(Long id, VehicleType vehicleTypeDetails) {
-        return vehicleTypeRepository.findById(id)
+        Optional<VehicleType> updated = vehicleTypeRepository.findById(id)
                 .map(vehicleType -> {
                     vehicleType.setName(vehicleTypeDetails.getName());
                     vehicleType.setExtraFeeApplicable(vehicleTypeDetails.getExtraFeeApplicable());
                     return vehicleTypeRepository.save(vehicleType);
                 });
+        updated.ifPresent(updatedVehicleType -> referenceDataChanged(VEHICLE_TYPE));
+        return updated;
     }
 
     public boolean deleteVehicleType(Long id) {
         return vehicleTypeRepository.findById(id)
                 .map(vehicleType -> {
                     vehicleTypeRepository.delete(vehicleType);
+                    referenceDataChanged(VEHICLE_TYPE);
                     return true;
                 })
                 .orElse(false);
@@ -97,24 +115,35 @@ public class DataService {
     }
 
     public WeatherPhenomenonType createWeatherPhenomenonType(WeatherPhenomenonType weatherPhenomenonType) {
-        return weatherPhenomenonTypeRepository.save(weatherPhenomenonType);
+        WeatherPhenomenonType created = weatherPhenomenonTypeRepository.save(weatherPhenomenonType);
+        referenceDataChanged(WEATHER_PHENOMENON_TYPE);
+        return created;
     }
 
     public Optional<WeatherPhenomenonType> updateWeatherPhenomenonType(Long id, WeatherPhenomenonType weatherPhenomenonTypeDetails) {
-        return weatherPhenomenonTypeRepository.findById(id)
+        Optional<WeatherPhenomenonType> updated = weatherPhenomenonTypeRepository.findById(id)
                 .map(weatherPhenomenonType -> {
                     weatherPhenomenonType.setPhenomenon(weatherPhenomenonTypeDetails.getPhenomenon());
                     weatherPhenomenonType.setCategory(weatherPhenomenonTypeDetails.getCategory());
                     return weatherPhenomenonTypeRepository.save(weatherPhenomenonType);
                 });
+        updated.ifPresent(updatedWeatherPhenomenonType -> referenceDataChanged(WEATHER_PHENOMENON_TYPE));
+        return updated;
     }
 
     public boolean deleteWeatherPhenomenonType(Long id) {
         return weatherPhenomenonTypeRepository.findById(id)
                 .map(weatherPhenomenonType -> {
                     weatherPhenomenonTypeRepository.delete(weatherPhenomenonType);
+                    referenceDataChanged(WEATHER_PHENOMENON_TYPE);
                     return true;
                 })
                 .orElse(false);
     }
+
+    private void referenceDataChanged(String entity) {
+        // refreshed before the event, so listeners already see the new reference data
+        referenceDataRegistry.refresh();
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(entity));
+    }
 }
\ No newline at end of file
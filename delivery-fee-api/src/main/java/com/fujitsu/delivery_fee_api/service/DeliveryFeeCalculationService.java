@@ -2,38 +2,65 @@ package com.fujitsu.delivery_fee_api.service;
 
 import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
 import com.fujitsu.delivery_fee_api.exception.NotFoundException;
+import com.fujitsu.delivery_fee_api.exception.VehicleUsageForbiddenException;
 
 import com.fujitsu.delivery_fee_api.model.*;
 
-import com.fujitsu.delivery_fee_api.repository.*;
+import com.fujitsu.delivery_fee_api.service.coalescing.CoalescingKey;
+import com.fujitsu.delivery_fee_api.service.coalescing.FeeRequestCoalescer;
+import com.fujitsu.delivery_fee_api.service.fee.ExtraFeeEvaluator;
 import com.fujitsu.delivery_fee_api.service.fee.ExtraFeeInterface;
+import com.fujitsu.delivery_fee_api.service.fee.FeeArithmetic;
+import com.fujitsu.delivery_fee_api.service.fee.FeeInputVersion;
+import com.fujitsu.delivery_fee_api.service.fee.FeeOutcome;
+import com.fujitsu.delivery_fee_api.service.fee.VersionedFeeOutcome;
 import com.fujitsu.delivery_fee_api.service.fee.impl.BaseFeeCalculator;
+import com.fujitsu.delivery_fee_api.service.memo.FeeOutcomeMemo;
+import com.fujitsu.delivery_fee_api.service.reference.ReferenceData;
+import com.fujitsu.delivery_fee_api.service.reference.ReferenceDataRegistry;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffLookup;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffRule;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffSnapshotService;
+import com.fujitsu.delivery_fee_api.service.trace.CalculationTrace;
+import com.fujitsu.delivery_fee_api.service.trace.CalculationTraceRecorder;
+import com.fujitsu.delivery_fee_api.util.MoneyUtils;
 import com.fujitsu.delivery_fee_api.util.TimeUtils;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 
 import java.util.List;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class DeliveryFeeCalculationService {
+
+    private static final String BASE_FEE_COMPONENT = "BaseFee";
+
+    @Value("${fee.arithmetic:DECIMAL}")
+    private FeeArithmetic feeArithmetic;
+
     private final WeatherDataService weatherDataService;
-    private final CityRepository cityRepository;
-    private final VehicleTypeRepository vehicleTypeRepository;
+    private final ReferenceDataRegistry referenceDataRegistry;
     private final List<ExtraFeeInterface> extraFeeCalculators;
+    private final ExtraFeeEvaluator extraFeeEvaluator;
     private final BaseFeeCalculator baseFeeCalculator;
+    private final TariffSnapshotService tariffSnapshotService;
+    private final CalculationTraceRecorder traceRecorder;
+    private final FeeRequestCoalescer feeRequestCoalescer;
+    private final FeeOutcomeMemo feeOutcomeMemo;
 
     
 
     /**
      * Calculates the delivery fee for a given city, vehicle type, and optional date/time.
+     * Concurrent identical requests share one calculation, see {@link FeeRequestCoalescer}.
      *
      * @param cityName        the name of the city
      * @param vehicleTypeName the name of the vehicle type
@@ -41,73 +68,175 @@ public class DeliveryFeeCalculationService {
      * @return                the calculated delivery fee
      */
     public BigDecimal calculateDeliveryFee(String cityName, String vehicleTypeName, LocalDateTime dateTime) {
-        dateTime = TimeUtils.getCurrentDateTimeIfNull(dateTime);
-    
-        log.info("Calculating delivery fee for city: {}, vehicleType: {} and dateTime: {}", cityName, vehicleTypeName, dateTime);
-    
-        City city = getCityByName(cityName);
-        VehicleType vehicleType = getVehicleTypeByName(vehicleTypeName);
+        return calculateVersionedDeliveryFee(cityName, vehicleTypeName, dateTime).outcome().getOrThrow();
+    }
+
+    /**
+     * Calculates the outcome of a delivery fee request together with the version of the inputs it was calculated
+     * from. Concurrent identical requests share one calculation, see {@link FeeRequestCoalescer}.
+     *
+     * @param cityName         the name of the city
+     * @param vehicleTypeName  the name of the vehicle type
+     * @param dateTime         the date and time of the request, or null for the current time
+     * @return                 the outcome and the version of its inputs
+     * @throws NotFoundException if the city, vehicle type or weather data is not found
+     */
+    public VersionedFeeOutcome calculateVersionedDeliveryFee(String cityName, String vehicleTypeName, LocalDateTime dateTime) {
+        ReferenceData referenceData = referenceDataRegistry.getCurrent();
+        City city = getCityByName(referenceData, cityName);
+        VehicleType vehicleType = getVehicleTypeByName(referenceData, vehicleTypeName);
+
+        TariffLookup tariff = tariffSnapshotService.getCurrentTariff();
+
+        if (feeRequestCoalescer.getKeyComposition() == CoalescingKey.REQUEST) {
+            // calculated at the truncated date/time, so every request sharing the key gets the fee of that key
+            LocalDateTime truncatedDateTime = feeRequestCoalescer.truncate(dateTime);
+            return feeRequestCoalescer.calculate(
+                    new FeeRequestCoalescer.RequestKey(city.getId(), vehicleType.getId(), truncatedDateTime),
+                    () -> {
+                        LocalDateTime queryTime = TimeUtils.getCurrentDateTimeIfNull(truncatedDateTime);
+                        return calculateVersionedDeliveryFee(referenceData, city, vehicleType, getWeatherData(city, truncatedDateTime),
+                                truncatedDateTime != null, queryTime, tariff.findNextEffectiveDate(queryTime).orElse(null), tariff);
+                    });
+        }
+
         WeatherDataDTO weatherData = getWeatherData(city, dateTime);
-    
+        // the query time and the fee rules effective at it are resolved once, for the key, the memo and the version
+        LocalDateTime queryTime = TimeUtils.getCurrentDateTimeIfNull(dateTime);
+        LocalDateTime nextEffectiveDate = tariff.findNextEffectiveDate(queryTime).orElse(null);
+        return feeRequestCoalescer.calculate(
+                new FeeRequestCoalescer.InputsKey(referenceData.getVersion(), city.getId(), vehicleType.getId(),
+                        weatherData, tariff.getVersion(), nextEffectiveDate),
+                () -> calculateVersionedDeliveryFee(referenceData, city, vehicleType, weatherData,
+                        dateTime != null, queryTime, nextEffectiveDate, tariff));
+    }
+
+    private VersionedFeeOutcome calculateVersionedDeliveryFee(ReferenceData referenceData, City city, VehicleType vehicleType,
+                                                              WeatherDataDTO weatherData, boolean historical, LocalDateTime queryTime,
+                                                              LocalDateTime nextEffectiveDate, TariffLookup tariff) {
+        log.debug("Calculating delivery fee for city: {}, vehicleType: {} and dateTime: {}", city.getName(), vehicleType.getName(), queryTime);
         logMainRequestParameters(city, vehicleType, weatherData);
-        
-        BigDecimal totalFee = calculateTotalFee(city, vehicleType, weatherData, dateTime);
-        
-        return totalFee.setScale(2, RoundingMode.HALF_UP);
+
+        FeeOutcome outcome = historical
+                ? calculateHistoricalFeeOutcome(referenceData, city, vehicleType, weatherData, queryTime, nextEffectiveDate, tariff)
+                : calculateFeeOutcome(city, vehicleType, weatherData, queryTime, tariff);
+        FeeInputVersion inputVersion = new FeeInputVersion(city.getName(), vehicleType.getName(),
+                outcome.observationTimestamp(), outcome.tariffVersion(), nextEffectiveDate, referenceData.getVersion());
+        return new VersionedFeeOutcome(outcome, inputVersion);
     }
 
-    private BigDecimal calculateTotalFee(City city, VehicleType vehicleType, WeatherDataDTO weatherData, LocalDateTime dateTime) {
-        
-        BigDecimal baseFee = calculateBaseFee(city, vehicleType, dateTime);
-        log.info("Base Fee: {}", baseFee);
-        BigDecimal totalExtraFee = calculateTotalExtraFee(weatherData, vehicleType, dateTime);
-        log.info("Total Extra Fee: {}", totalExtraFee);
+    /**
+     * Calculates the delivery fee from already resolved inputs, reporting a forbidden vehicle
+     * or a missing fee rule as an outcome instead of an exception.
+     *
+     * @param city         the city
+     * @param vehicleType  the vehicle type
+     * @param weatherData  the weather observation to calculate the extra fees from
+     * @param dateTime     the date and time the fee rules have to be effective at
+     * @param tariff       the tariff to read the fee rules from
+     * @return             the outcome of the calculation
+     */
+    public FeeOutcome calculateFeeOutcome(City city, VehicleType vehicleType, WeatherDataDTO weatherData, LocalDateTime dateTime, TariffLookup tariff) {
+        Integer observationTimestamp = weatherData.getObservationTimestamp();
+        try {
+            long totalFeeCents = calculateTotalFeeCents(city, vehicleType, weatherData, dateTime, tariff);
+            return FeeOutcome.ok(totalFeeCents, observationTimestamp, tariff.getVersion());
+        } catch (VehicleUsageForbiddenException e) {
+            return FeeOutcome.forbidden(e.getMessage(), observationTimestamp, tariff.getVersion());
+        } catch (NotFoundException e) {
+            return FeeOutcome.notFound(e.getMessage(), observationTimestamp, tariff.getVersion());
+        }
+    }
 
-        BigDecimal totalFee = baseFee.add(totalExtraFee);
-        log.info("Total Fee: {}", totalFee);
-    
-        return totalFee;
+    /**
+     * Calculates the outcome of a query with an explicit date/time, answering repeated queries
+     * for the same inputs from the {@link FeeOutcomeMemo}.
+     *
+     * @param referenceData      the reference data the city and vehicle type were resolved with
+     * @param city               the city
+     * @param vehicleType        the vehicle type
+     * @param weatherData        the weather observation as of the date and time
+     * @param dateTime           the date and time of the query
+     * @param nextEffectiveDate  the next effective date of the tariff after the date and time, null if none
+     * @param tariff             the tariff to read the fee rules from
+     * @return                   the outcome of the calculation
+     */
+    public FeeOutcome calculateHistoricalFeeOutcome(ReferenceData referenceData, City city, VehicleType vehicleType,
+                                                    WeatherDataDTO weatherData, LocalDateTime dateTime,
+                                                    LocalDateTime nextEffectiveDate, TariffLookup tariff) {
+        return feeOutcomeMemo.get(referenceData, city, vehicleType, weatherData, nextEffectiveDate, tariff,
+                () -> calculateFeeOutcome(city, vehicleType, weatherData, dateTime, tariff));
     }
 
-    private BigDecimal calculateTotalExtraFee(WeatherDataDTO weatherData, VehicleType vehicleType, LocalDateTime dateTime) {
-        return extraFeeCalculators.stream()
-            .map(calculator -> {
-                BigDecimal fee = calculator.calculateExtraFee(weatherData, vehicleType, dateTime);
-                log.info("{} Extra Fee: {}", calculator.getClass().getSimpleName(), fee);
-                return fee;
-            })
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private long calculateTotalFeeCents(City city, VehicleType vehicleType, WeatherDataDTO weatherData, LocalDateTime dateTime, TariffLookup tariff) {
+        CalculationTraceRecorder.Recording trace = traceRecorder.start(city, vehicleType, weatherData, dateTime, tariff);
+        try {
+            TariffRule baseFeeRule = baseFeeCalculator.findBaseFeeRule(city, vehicleType, dateTime, tariff);
+            trace.component(BASE_FEE_COMPONENT, baseFeeRule);
+            List<TariffRule> extraFeeRules = extraFeeEvaluator.evaluate(extraFeeCalculators,
+                    calculator -> calculator.findApplicableRule(weatherData, vehicleType, dateTime, tariff));
+
+            // the decimal sum is rounded to whole cents only once, at the end
+            long totalFeeCents = feeArithmetic == FeeArithmetic.CENTS
+                    ? addUpCents(baseFeeRule, extraFeeRules, trace)
+                    : MoneyUtils.toCents(addUp(baseFeeRule, extraFeeRules, trace));
+            log.debug("Total Fee for {} and {}: {} cents", city.getName(), vehicleType.getName(), totalFeeCents);
+            trace.completed(totalFeeCents);
+            return totalFeeCents;
+        } catch (VehicleUsageForbiddenException e) {
+            if (e.getComponent() != null) {
+                trace.component(e.getComponent(), e.getRule());
+            }
+            trace.failed(CalculationTrace.Outcome.FORBIDDEN, e.getMessage());
+            throw e;
+        } catch (NotFoundException e) {
+            trace.failed(CalculationTrace.Outcome.NOT_FOUND, e.getMessage());
+            throw e;
+        } catch (RuntimeException e) {
+            trace.failed(CalculationTrace.Outcome.ERROR, e.toString());
+            throw e;
+        }
     }
 
-    private BigDecimal calculateBaseFee(City city, VehicleType vehicleType, LocalDateTime dateTime) {
-        log.info("Fetching Base Fee for {} and {}", city.getName(), vehicleType.getName());
-        
-        return baseFeeCalculator.calculateBaseFee(city, vehicleType, dateTime);
+    private BigDecimal addUp(TariffRule baseFeeRule, List<TariffRule> extraFeeRules, CalculationTraceRecorder.Recording trace) {
+        BigDecimal totalFee = baseFeeRule.fee();
+        for (int i = 0; i < extraFeeRules.size(); i++) {
+            TariffRule rule = extraFeeRules.get(i);
+            BigDecimal extraFee = rule != null && rule.fee() != null ? rule.fee() : BigDecimal.ZERO;
+            trace.component(extraFeeCalculators.get(i).getClass().getSimpleName(), rule);
+            totalFee = totalFee.add(extraFee);
+        }
+        return totalFee;
+    }
+
+    private long addUpCents(TariffRule baseFeeRule, List<TariffRule> extraFeeRules, CalculationTraceRecorder.Recording trace) {
+        long totalFeeCents = baseFeeRule.feeCents();
+        for (int i = 0; i < extraFeeRules.size(); i++) {
+            TariffRule rule = extraFeeRules.get(i);
+            long extraFeeCents = rule != null ? rule.feeCents() : 0L;
+            trace.component(extraFeeCalculators.get(i).getClass().getSimpleName(), rule);
+            totalFeeCents = Math.addExact(totalFeeCents, extraFeeCents);
+        }
+        return totalFeeCents;
     }
 
     private void logMainRequestParameters(City city, VehicleType vehicleType, WeatherDataDTO weatherData) {
-        log.info("-------------------------");
-        log.info("Main request parameters: ");
-        log.info("City name: {}", city.getName());
-        log.info("Vehicle Type: {}", vehicleType.getName());
-        log.info("Weather Data: {}", weatherData);
-        log.info("Observation Timestamp: {}", weatherData.getObservationTimestamp());
-        log.info("Weather Phenomenon: {}", weatherData.getWeatherPhenomenon());
-        log.info("Current Wind Speed: {}", weatherData.getWindSpeed());
-        log.info("Current Air Temperature: {}", weatherData.getAirTemperature());
-        log.info("-------------------------");
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        log.debug("Main request parameters: city: {}, vehicle type: {}, weather data: {}", city.getName(), vehicleType.getName(), weatherData);
     }
 
-    private City getCityByName(String cityName) {
-        City city = cityRepository.findByName(cityName);
+    private City getCityByName(ReferenceData referenceData, String cityName) {
+        City city = referenceData.findCity(cityName);
         if (city == null) {
             throw new NotFoundException("City not found: " + cityName);
         }
         return city;
     }
 
-    private VehicleType getVehicleTypeByName(String vehicleTypeName) {
-        VehicleType vehicleType = vehicleTypeRepository.findByName(vehicleTypeName);
+    private VehicleType getVehicleTypeByName(ReferenceData referenceData, String vehicleTypeName) {
+        VehicleType vehicleType = referenceData.findVehicleType(vehicleTypeName);
         if (vehicleType == null) {
             throw new NotFoundException("Vehicle type not found: " + vehicleTypeName);
         }
@@ -116,11 +245,10 @@ public class DeliveryFeeCalculationService {
 
     private WeatherDataDTO getWeatherData(City city, LocalDateTime dateTime) {
 
-        String cityName = city.getName();
-
-        WeatherDataDTO weatherDataDTO = weatherDataService.getWeatherDataByCityName(cityName, dateTime);
+        WeatherDataDTO weatherDataDTO = weatherDataService.getWeatherDataForCity(city, dateTime);
         if (weatherDataDTO == null) {
-            throw new NotFoundException("Weather data not found for city: " + city.getName() + " and dateTime: " + dateTime);
+            throw new NotFoundException("Weather data not found for city: " + city.getName() + " and dateTime: "
+                    + TimeUtils.getCurrentDateTimeIfNull(dateTime));
         }
         return weatherDataDTO;
     }
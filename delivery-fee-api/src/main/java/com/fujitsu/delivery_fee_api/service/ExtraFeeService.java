@@ -14,7 +14,9 @@ import com.fujitsu.delivery_fee_api.model.fee_tables.WeatherPhenomenonExtraFee;
 import com.fujitsu.delivery_fee_api.repository.AirTemperatureExtraFeeRepository;
 import com.fujitsu.delivery_fee_api.repository.WindSpeedExtraFeeRepository;
 import com.fujitsu.delivery_fee_api.repository.WeatherPhenomenonExtraFeeRepository;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,6 +34,11 @@ public class ExtraFeeService {
     private final AirTemperatureExtraFeeMapper airTemperatureExtraFeeMapper;
     private final WindSpeedExtraFeeMapper windSpeedExtraFeeMapper;
     private final WeatherPhenomenonExtraFeeMapper weatherPhenomenonExtraFeeMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final String AIR_TEMPERATURE_FEE_TABLE = "air_temperature_extra_fee";
+    private static final String WIND_SPEED_FEE_TABLE = "wind_speed_extra_fee";
+    private static final String WEATHER_PHENOMENON_FEE_TABLE = "weather_phenomenon_extra_fee";
 
     /**
      * Creates a new Air Temperature Extra Fee.
@@ -46,7 +53,9 @@ public class ExtraFeeService {
         AirTemperatureExtraFee entity = airTemperatureExtraFeeMapper.toEntity(dto);
         entity.setEffectiveDate(LocalDateTime.now());
         entity.setIsActive(true);
-        return airTemperatureExtraFeeMapper.toDto(airTemperatureExtraFeeRepository.save(entity));
+        AirTemperatureExtraFeeDTO created = airTemperatureExtraFeeMapper.toDto(airTemperatureExtraFeeRepository.save(entity));
+        eventPublisher.publishEvent(new TariffChangedEvent(AIR_TEMPERATURE_FEE_TABLE));
+        return created;
     }
 
     /**
@@ -80,7 +89,9 @@ public class ExtraFeeService {
         existingFee.setExtraFee(dto.getExtraFee());
         existingFee.setIsActive(dto.getIsActive());
 
-        return airTemperatureExtraFeeMapper.toDto(airTemperatureExtraFeeRepository.save(existingFee));
+        AirTemperatureExtraFeeDTO updated = airTemperatureExtraFeeMapper.toDto(airTemperatureExtraFeeRepository.save(existingFee));
+        eventPublisher.publishEvent(new TariffChangedEvent(AIR_TEMPERATURE_FEE_TABLE));
+        return updated;
     }
 
     /**
@@ -95,6 +106,7 @@ public class ExtraFeeService {
             throw new NotFoundException("Air Temperature Extra Fee not found");
         }
         airTemperatureExtraFeeRepository.deleteById(id);
+        eventPublisher.publishEvent(new TariffChangedEvent(AIR_TEMPERATURE_FEE_TABLE));
     }
 
     /**
@@ -110,7 +122,9 @@ public class ExtraFeeService {
         WindSpeedExtraFee entity = windSpeedExtraFeeMapper.toEntity(dto);
         entity.setEffectiveDate(LocalDateTime.now());
         entity.setIsActive(true);
-        return windSpeedExtraFeeMapper.toDto(windSpeedExtraFeeRepository.save(entity));
+        WindSpeedExtraFeeDTO created = windSpeedExtraFeeMapper.toDto(windSpeedExtraFeeRepository.save(entity));
+        eventPublisher.publishEvent(new TariffChangedEvent(WIND_SPEED_FEE_TABLE));
+        return created;
     }
 
     /**
@@ -145,7 +159,9 @@ public class ExtraFeeService {
         existingFee.setForbidden(dto.getForbidden());
         existingFee.setIsActive(dto.getIsActive());
 
-        return windSpeedExtraFeeMapper.toDto(windSpeedExtraFeeRepository.save(existingFee));
+        WindSpeedExtraFeeDTO updated = windSpeedExtraFeeMapper.toDto(windSpeedExtraFeeRepository.save(existingFee));
+        eventPublisher.publishEvent(new TariffChangedEvent(WIND_SPEED_FEE_TABLE));
+        return updated;
     }
 
     /**
@@ -160,6 +176,7 @@ public class ExtraFeeService {
             throw new NotFoundException("Wind Speed Extra Fee not found");
         }
         windSpeedExtraFeeRepository.deleteById(id);
+        eventPublisher.publishEvent(new TariffChangedEvent(WIND_SPEED_FEE_TABLE));
     }
 
     /**
@@ -175,7 +192,9 @@ public class ExtraFeeService {
         WeatherPhenomenonExtraFee entity = weatherPhenomenonExtraFeeMapper.toEntity(dto);
         entity.setEffectiveDate(LocalDateTime.now());
         entity.setIsActive(true);
-        return weatherPhenomenonExtraFeeMapper.toDto(weatherPhenomenonExtraFeeRepository.save(entity));
+        WeatherPhenomenonExtraFeeDTO created = weatherPhenomenonExtraFeeMapper.toDto(weatherPhenomenonExtraFeeRepository.save(entity));
+        eventPublisher.publishEvent(new TariffChangedEvent(WEATHER_PHENOMENON_FEE_TABLE));
+        return created;
     }
 
     /**
@@ -209,7 +228,9 @@ public class ExtraFeeService {
         existingFee.setForbidden(dto.getForbidden());
         existingFee.setIsActive(dto.getIsActive());
 
-        return weatherPhenomenonExtraFeeMapper.toDto(weatherPhenomenonExtraFeeRepository.save(existingFee));
+        WeatherPhenomenonExtraFeeDTO updated = weatherPhenomenonExtraFeeMapper.toDto(weatherPhenomenonExtraFeeRepository.save(existingFee));
+        eventPublisher.publishEvent(new TariffChangedEvent(WEATHER_PHENOMENON_FEE_TABLE));
+        return updated;
     }
 
     /**
@@ -224,6 +245,7 @@ public class ExtraFeeService {
             throw new NotFoundException("Weather Phenomenon Extra Fee not found");
         }
         weatherPhenomenonExtraFeeRepository.deleteById(id);
+        eventPublisher.publishEvent(new TariffChangedEvent(WEATHER_PHENOMENON_FEE_TABLE));
     }
 
     // Helper methods
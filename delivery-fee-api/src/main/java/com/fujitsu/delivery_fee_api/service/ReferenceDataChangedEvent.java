@@ -0,0 +1,9 @@
+package com.fujitsu.delivery_fee_api.service;
+
+/**
+ * Published by {@link DataService} after a city, vehicle type or weather phenomenon type has been written.
+ *
+ * @param entity the name of the entity that was changed
+ */
+public record ReferenceDataChangedEvent(String entity) {
+}
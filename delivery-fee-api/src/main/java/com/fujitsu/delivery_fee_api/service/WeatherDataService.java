@@ -1,11 +1,20 @@
 package com.fujitsu.delivery_fee_api.service;
 
-import com.fujitsu.delivery_fee_api.repository.CityRepository;
 import com.fujitsu.delivery_fee_api.repository.WeatherDataRepository;
+import com.fujitsu.delivery_fee_api.service.reference.ReferenceDataRegistry;
+import com.fujitsu.delivery_fee_api.service.weather.LatestObservationCache;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherDataBatchWriter;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherDataUpsertResult;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherDataSavedEvent;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherFeed;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherFeedFetcher;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherImportRecorder;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherImportRecording;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherStorageMode;
 import com.fujitsu.delivery_fee_api.util.TimeUtils;
-import com.fujitsu.delivery_fee_api.util.WeatherDataParser;
-import com.fujitsu.delivery_fee_api.dto.ObservationsDTO;
 import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+import com.fujitsu.delivery_fee_api.dto.WeatherImportReportDTO;
+import com.fujitsu.delivery_fee_api.exception.WeatherDataExistsException;
 import com.fujitsu.delivery_fee_api.mapper.WeatherDataMapper;
 import com.fujitsu.delivery_fee_api.model.City;
 import com.fujitsu.delivery_fee_api.model.WeatherData;
@@ -13,15 +22,15 @@ import com.fujitsu.delivery_fee_api.model.WeatherData;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.HttpStatus;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 import java.util.stream.Collectors;
 
@@ -30,47 +39,97 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class WeatherDataService {
 
-    @Value("${weather.api.url}")
-    private String weatherApiUrl;
-    
-    private final RestTemplate restTemplate;
+    private final WeatherFeedFetcher weatherFeedFetcher;
     private final WeatherDataRepository weatherDataRepository;
-    private final CityRepository cityRepository;
-    private final WeatherDataParser weatherDataParser;
+    private final WeatherDataBatchWriter weatherDataBatchWriter;
+    private final ReferenceDataRegistry referenceDataRegistry;
     private final WeatherDataMapper weatherDataMapper;
     private final TimeUtils timeUtils;
-
-    public void importWeatherData() {
-        String xmlData = fetchWeatherData();
-        
-        List<City> cities = cityRepository.findAll();
-        List<Integer> relevantWmoCodes = cities.stream().map(City::getWmoCode).collect(Collectors.toList());
-        ObservationsDTO relevantObservationsDTO = weatherDataParser.parseWeatherDataToDTO(xmlData, relevantWmoCodes);
-        
-        List<WeatherDataDTO> weatherDataDTOs = relevantObservationsDTO.getStations().stream()
-            .map(station -> weatherDataMapper.stationDtoToWeatherDataDto(station, relevantObservationsDTO.getTimestamp()))
-            .collect(Collectors.toList());
-
-        saveAllWeatherData(weatherDataDTOs);
-    }
-    
-    private String fetchWeatherData() {
-        ResponseEntity<String> response = restTemplate.getForEntity(weatherApiUrl, String.class);
-        if (response.getStatusCode() == HttpStatus.OK) {
-            log.info("Received weather data successfully");
-            return response.getBody();
-        } else {
-            log.error("Failed to fetch weather data: HTTP Status {}", response.getStatusCode());
-            throw new RuntimeException("Failed to fetch weather data");
+    private final LatestObservationCache latestObservationCache;
+    private final WeatherImportRecorder weatherImportRecorder;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // keeps a manual import and the scheduled import from upserting the same observations concurrently
+    private final ReentrantLock importLock = new ReentrantLock();
+
+    /**
+     * Imports the observations of the relevant stations from the weather feed. Observations are upserted by WMO code
+     * and observation timestamp, so importing a feed again does not add rows. The numbers and durations of the import
+     * stages are recorded by the {@link WeatherImportRecorder}, also if the import fails.
+     *
+     * @return the number of inserted, updated and skipped rows, with the numbers of the import stages
+     * @throws RuntimeException if the feed could not be fetched
+     */
+    public WeatherImportReportDTO importWeatherData() {
+        importLock.lock();
+        WeatherImportRecording recording = new WeatherImportRecording();
+        try {
+            List<City> cities = referenceDataRegistry.getCurrent().getCities();
+            Set<Integer> relevantWmoCodes = cities.stream().map(City::getWmoCode).collect(Collectors.toSet());
+
+            WeatherImportReportDTO report = new WeatherImportReportDTO();
+            WeatherFeed weatherFeed = weatherFeedFetcher.fetch(relevantWmoCodes, recording);
+            if (weatherFeed == null) {
+                report.setFeedUnchanged(true);
+                weatherImportRecorder.record(recording, report);
+                return report;
+            }
+
+            WeatherDataUpsertResult result = saveAllWeatherData(weatherFeed.observations(), recording);
+            weatherFeedFetcher.markImported(weatherFeed);
+            report.setObservationTimestamp(weatherFeed.observationTimestamp());
+            report.setInsertedRows(result.inserted());
+            report.setUpdatedRows(result.updated());
+            report.setSkippedRows(result.skipped());
+            weatherImportRecorder.record(recording, report);
+            return report;
+        } catch (RuntimeException e) {
+            weatherImportRecorder.recordFailure(recording, e);
+            throw e;
+        } finally {
+            importLock.unlock();
         }
     }
 
-    private void saveAllWeatherData(List<WeatherDataDTO> weatherDataDTOs) {
+    /**
+     * Returns the reports of the most recent imports, newest first.
+     *
+     * @param limit  the maximum number of reports to return
+     * @return       the import reports
+     */
+    public List<WeatherImportReportDTO> getRecentImports(int limit) {
+        return weatherImportRecorder.getRecent(limit);
+    }
+
+    private WeatherDataUpsertResult saveAllWeatherData(List<WeatherDataDTO> weatherDataDTOs, WeatherImportRecording recording) {
+        long mapStart = System.nanoTime();
+        referenceDataRegistry.recordUnseenWeatherPhenomena(weatherDataDTOs.stream().map(WeatherDataDTO::getWeatherPhenomenon).toList());
+        List<WeatherData> rows = new ArrayList<>(weatherDataDTOs.size());
         for (WeatherDataDTO weatherDataDTO : weatherDataDTOs) {
-            log.info("Saving weather data for station: {}", weatherDataDTO.getStationName());
-            saveWeatherData(weatherDataDTO);
+            WeatherData row = weatherDataMapper.toEntity(weatherDataDTO);
+            row.setId(null);
+            row.setValidFrom(null);
+            row.setValidTo(null);
+            rows.add(row);
+        }
+        long persistStart = System.nanoTime();
+        recording.stage(WeatherImportRecording.MAP, persistStart - mapStart);
+        WeatherDataUpsertResult result = weatherDataBatchWriter.upsertAll(rows);
+        long publishStart = System.nanoTime();
+        recording.stage(WeatherImportRecording.PERSIST, publishStart - persistStart);
+        List<WeatherDataDTO> savedWeatherDataDTOs = new ArrayList<>(result.writtenRows().size());
+        for (WeatherData savedRow : result.writtenRows()) {
+            WeatherDataDTO savedWeatherDataDTO = weatherDataMapper.toDto(savedRow);
+            latestObservationCache.offer(savedWeatherDataDTO);
+            savedWeatherDataDTOs.add(savedWeatherDataDTO);
+        }
+        log.info("Weather data saved successfully: {} inserted, {} updated, {} skipped",
+            result.inserted(), result.updated(), result.skipped());
+        if (!savedWeatherDataDTOs.isEmpty()) {
+            eventPublisher.publishEvent(new WeatherDataSavedEvent(savedWeatherDataDTOs));
         }
-        log.info("Weather data saved successfully");
+        recording.stage(WeatherImportRecording.PUBLISH, System.nanoTime() - publishStart);
+        return result;
     }
 
     public WeatherDataDTO getWeatherDataByCityId(Long id) {
@@ -80,23 +139,106 @@ public class WeatherDataService {
     }
 
     public WeatherDataDTO getWeatherDataByCityName(String cityName, LocalDateTime dateTime) {
+        City city = referenceDataRegistry.findCity(cityName);
+
+        return getWeatherDataForCity(city, dateTime);
+    }
+
+    /**
+     * Returns the latest observation of the city's station as of the given time.
+     * Queries for the current time are answered from the latest observation cache,
+     * historical queries always go to the repository.
+     *
+     * @param city      the city whose station to look up
+     * @param dateTime  the time of the query, or null for the current time
+     * @return          the observation, or null if there is none
+     */
+    public WeatherDataDTO getWeatherDataForCity(City city, LocalDateTime dateTime) {
+        boolean currentTimeQuery = dateTime == null;
         dateTime = TimeUtils.getCurrentDateTimeIfNull(dateTime);
 
         Integer epochSeconds = timeUtils.convertToEpochSeconds(dateTime);
 
-        City city = cityRepository.findByName(cityName);
+        if (currentTimeQuery) {
+            WeatherDataDTO cached = latestObservationCache.getLatest(city.getWmoCode(), epochSeconds);
+            if (cached != null) {
+                return cached;
+            }
+        }
 
-        return weatherDataRepository.findLatestByWMOCodeAsOfOpt(city.getWmoCode(), epochSeconds)
+        WeatherDataDTO weatherDataDTO = (storesChangesOnly()
+                ? weatherDataRepository.findValidAt(city.getWmoCode(), epochSeconds)
+                : weatherDataRepository.findLatestByWMOCodeAsOfOpt(city.getWmoCode(), epochSeconds))
             .map(weatherDataMapper::toDto)
             .orElse(null);
+
+        if (currentTimeQuery) {
+            latestObservationCache.offer(weatherDataDTO);
+        }
+        return weatherDataDTO;
     }
     
   
    
+    /**
+     * Saves a single observation. When only changes are stored, the observation is only saved if it changes
+     * the values of its station, otherwise the row that is valid at its timestamp is returned.
+     *
+     * @param weatherDataDTO  the observation
+     * @return                the saved observation
+     * @throws WeatherDataExistsException if the station already has an observation with the same timestamp, or, when
+     *                                     only changes are stored, the timestamp was merged into an existing row
+     */
     public WeatherDataDTO saveWeatherData(WeatherDataDTO weatherDataDTO) {
+        if (storesChangesOnly()) {
+            return saveWeatherDataChange(weatherDataDTO);
+        }
+        if (weatherDataDTO.getId() == null && weatherDataRepository.existsByWmoCodeAndObservationTimestamp(
+                weatherDataDTO.getWmoCode(), weatherDataDTO.getObservationTimestamp())) {
+            throw weatherDataExists(weatherDataDTO);
+        }
+        referenceDataRegistry.recordUnseenWeatherPhenomena(Collections.singletonList(weatherDataDTO.getWeatherPhenomenon()));
+        WeatherDataDTO savedWeatherDataDTO = persistWeatherData(weatherDataDTO);
+        eventPublisher.publishEvent(new WeatherDataSavedEvent(List.of(savedWeatherDataDTO)));
+        return savedWeatherDataDTO;
+    }
+
+    // the observation may have been merged into an earlier row, so it exists if it falls within the observed span of
+    // the row valid at its timestamp; the import lock keeps an import from writing the station in between
+    private WeatherDataDTO saveWeatherDataChange(WeatherDataDTO weatherDataDTO) {
+        int wmoCode = weatherDataDTO.getWmoCode();
+        int observationTimestamp = weatherDataDTO.getObservationTimestamp();
+        importLock.lock();
+        try {
+            if (weatherDataDTO.getId() == null && weatherDataRepository.findValidAt(wmoCode, observationTimestamp)
+                    .filter(row -> observationTimestamp <= row.getObservedSpanEnd())
+                    .isPresent()) {
+                throw weatherDataExists(weatherDataDTO);
+            }
+            saveAllWeatherData(List.of(weatherDataDTO), new WeatherImportRecording());
+            return weatherDataRepository.findValidAt(wmoCode, observationTimestamp)
+                .map(weatherDataMapper::toDto)
+                .orElse(null);
+        } finally {
+            importLock.unlock();
+        }
+    }
+
+    private static WeatherDataExistsException weatherDataExists(WeatherDataDTO weatherDataDTO) {
+        return new WeatherDataExistsException("Weather data of station " + weatherDataDTO.getWmoCode()
+            + " already exists for observation timestamp " + weatherDataDTO.getObservationTimestamp());
+    }
+
+    private boolean storesChangesOnly() {
+        return weatherDataBatchWriter.getStorageMode() == WeatherStorageMode.CHANGES_ONLY;
+    }
+
+    private WeatherDataDTO persistWeatherData(WeatherDataDTO weatherDataDTO) {
         WeatherData weatherData = weatherDataMapper.toEntity(weatherDataDTO);
         WeatherData savedWeatherData = weatherDataRepository.save(weatherData);
-        return weatherDataMapper.toDto(savedWeatherData);
+        WeatherDataDTO savedWeatherDataDTO = weatherDataMapper.toDto(savedWeatherData);
+        latestObservationCache.offer(savedWeatherDataDTO);
+        return savedWeatherDataDTO;
     }
 
     public List<WeatherDataDTO> getAllWeatherData() {
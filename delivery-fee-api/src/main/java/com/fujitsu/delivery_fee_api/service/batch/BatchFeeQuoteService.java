@@ -0,0 +1,252 @@
+package com.fujitsu.delivery_fee_api.service.batch;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fujitsu.delivery_fee_api.dto.FeeQuoteRequestDTO;
+import com.fujitsu.delivery_fee_api.dto.FeeQuoteResultDTO;
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+import com.fujitsu.delivery_fee_api.exception.InvalidRequestException;
+import com.fujitsu.delivery_fee_api.mapper.WeatherDataMapper;
+import com.fujitsu.delivery_fee_api.model.City;
+import com.fujitsu.delivery_fee_api.model.VehicleType;
+import com.fujitsu.delivery_fee_api.repository.WeatherDataRepository;
+import com.fujitsu.delivery_fee_api.service.DeliveryFeeCalculationService;
+import com.fujitsu.delivery_fee_api.service.WeatherDataService;
+import com.fujitsu.delivery_fee_api.service.fee.FeeOutcome;
+import com.fujitsu.delivery_fee_api.service.matrix.FeeMatrixService;
+import com.fujitsu.delivery_fee_api.service.reference.ReferenceData;
+import com.fujitsu.delivery_fee_api.service.reference.ReferenceDataRegistry;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffLookup;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffSnapshotService;
+import com.fujitsu.delivery_fee_api.util.TimeUtils;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Calculates delivery fees for many city, vehicle type and date/time combinations at once.
+ * <p>
+ * Cities and vehicle types are resolved against one version of the reference data, all items read from the same tariff version,
+ * and the weather observations of a city are loaded with two queries covering the whole time span
+ * of its items. Items resolving to the same vehicle type and observation are calculated once per set of effective
+ * fee rules, which is identified by the next effective date of the tariff after the item's date/time.
+ * Failures are reported per item, so one unknown city or forbidden vehicle does not fail the batch.
+ * Batches of more than {@code fee.batch.max-size} items, or with an item lacking a city or vehicle type, are rejected
+ * as a whole.
+ */
+@Service
+@RequiredArgsConstructor
+public class BatchFeeQuoteService {
+
+    @Value("${fee.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final WeatherDataRepository weatherDataRepository;
+    private final WeatherDataMapper weatherDataMapper;
+    private final WeatherDataService weatherDataService;
+    private final DeliveryFeeCalculationService deliveryFeeCalculationService;
+    private final FeeMatrixService feeMatrixService;
+    private final TariffSnapshotService tariffSnapshotService;
+    private final TimeUtils timeUtils;
+
+    /**
+     * Calculates the fees of all items and returns them in the order of the request.
+     *
+     * @param requests the items to quote
+     * @return         one result per item, in the same order
+     * @throws InvalidRequestException if the batch has more items than allowed or an item is invalid
+     */
+    public List<FeeQuoteResultDTO> quoteAll(List<FeeQuoteRequestDTO> requests) {
+        FeeQuoteResultDTO[] results = new FeeQuoteResultDTO[requests.size()];
+        quote(requests, result -> results[result.getIndex()] = result);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Calculates the fees of all items and passes every result to the sink as soon as it is known.
+     * Results are grouped by city, not in the order of the request; {@link FeeQuoteResultDTO#getIndex()}
+     * refers to the position of the item in the request.
+     *
+     * @param requests the items to quote
+     * @param sink     the consumer receiving the results
+     * @throws InvalidRequestException if the batch has more items than allowed or an item is invalid
+     */
+    public void quote(List<FeeQuoteRequestDTO> requests, Consumer<FeeQuoteResultDTO> sink) {
+        checkBatch(requests);
+        TariffLookup tariff = tariffSnapshotService.getCurrentTariff();
+        ReferenceData referenceData = referenceDataRegistry.getCurrent();
+
+        Map<City, List<Integer>> itemsByCity = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            FeeQuoteRequestDTO request = requests.get(i);
+            City city = referenceData.findCity(request.getCity());
+            if (city == null) {
+                sink.accept(toResult(i, request, FeeOutcome.notFound("City not found: " + request.getCity(), null, tariff.getVersion())));
+                continue;
+            }
+            if (referenceData.findVehicleType(request.getVehicleType()) == null) {
+                sink.accept(toResult(i, request, FeeOutcome.notFound("Vehicle type not found: " + request.getVehicleType(), null, tariff.getVersion())));
+                continue;
+            }
+            if (request.getDateTime() == null) {
+                FeeOutcome outcome = feeMatrixService.findCurrentOutcome(request.getCity(), request.getVehicleType());
+                if (outcome != null) {
+                    sink.accept(toResult(i, request, outcome));
+                    continue;
+                }
+            }
+            itemsByCity.computeIfAbsent(city, k -> new ArrayList<>()).add(i);
+        }
+
+        itemsByCity.forEach((city, items) -> quoteCity(city, items, requests, referenceData, tariff, sink));
+    }
+
+    /**
+     * Checks that a batch does not have more items than allowed and that every item names a city and a vehicle type,
+     * so a streamed batch can be rejected before its response is started.
+     *
+     * @param requests the items to quote
+     * @throws InvalidRequestException if the batch is missing, has more items than allowed or an item is invalid
+     */
+    public void checkBatch(List<FeeQuoteRequestDTO> requests) {
+        if (requests == null) {
+            throw new InvalidRequestException("Batch is missing");
+        }
+        if (requests.size() > maxBatchSize) {
+            throw new InvalidRequestException("Batch has " + requests.size() + " items, at most " + maxBatchSize + " are allowed");
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            FeeQuoteRequestDTO request = requests.get(i);
+            if (request == null) {
+                throw new InvalidRequestException("Batch item " + i + " is null");
+            }
+            if (request.getCity() == null || request.getVehicleType() == null) {
+                throw new InvalidRequestException("Batch item " + i + " must have a city and a vehicle type");
+            }
+        }
+    }
+
+    private void quoteCity(City city, List<Integer> items, List<FeeQuoteRequestDTO> requests,
+                           ReferenceData referenceData, TariffLookup tariff, Consumer<FeeQuoteResultDTO> sink) {
+        ObservationHistory history = loadHistory(city, items, requests);
+        LocalDateTime now = LocalDateTime.now();
+        WeatherDataDTO currentWeatherData = null;
+        boolean currentWeatherDataLoaded = false;
+        Map<CalculationKey, FeeOutcome> outcomes = new HashMap<>();
+
+        for (int index : items) {
+            FeeQuoteRequestDTO request = requests.get(index);
+            VehicleType vehicleType = referenceData.findVehicleType(request.getVehicleType());
+            LocalDateTime dateTime = request.getDateTime() != null ? request.getDateTime() : now;
+
+            WeatherDataDTO weatherData;
+            if (request.getDateTime() == null) {
+                if (!currentWeatherDataLoaded) {
+                    currentWeatherData = weatherDataService.getWeatherDataForCity(city, null);
+                    currentWeatherDataLoaded = true;
+                }
+                weatherData = currentWeatherData;
+            } else {
+                weatherData = history.latestAsOf(timeUtils.convertToEpochSeconds(dateTime));
+            }
+
+            FeeOutcome outcome;
+            if (weatherData == null) {
+                outcome = FeeOutcome.notFound("Weather data not found for city: " + city.getName() + " and dateTime: " + dateTime,
+                        null, tariff.getVersion());
+            } else {
+                LocalDateTime nextEffectiveDate = tariff.findNextEffectiveDate(dateTime).orElse(null);
+                CalculationKey calculationKey = new CalculationKey(vehicleType.getId(), weatherData, nextEffectiveDate);
+                outcome = outcomes.computeIfAbsent(calculationKey,
+                        key -> request.getDateTime() != null
+                                ? deliveryFeeCalculationService.calculateHistoricalFeeOutcome(referenceData, city, vehicleType,
+                                        weatherData, dateTime, nextEffectiveDate, tariff)
+                                : deliveryFeeCalculationService.calculateFeeOutcome(city, vehicleType, weatherData, dateTime, tariff));
+            }
+            sink.accept(toResult(index, request, outcome));
+        }
+    }
+
+    private ObservationHistory loadHistory(City city, List<Integer> items, List<FeeQuoteRequestDTO> requests) {
+        int from = Integer.MAX_VALUE;
+        int to = Integer.MIN_VALUE;
+        for (int index : items) {
+            LocalDateTime dateTime = requests.get(index).getDateTime();
+            if (dateTime != null) {
+                int epochSeconds = timeUtils.convertToEpochSeconds(dateTime);
+                from = Math.min(from, epochSeconds);
+                to = Math.max(to, epochSeconds);
+            }
+        }
+        if (from > to) {
+            return new ObservationHistory(null, List.of());
+        }
+
+        WeatherDataDTO first = weatherDataRepository.findLatestByWMOCodeAsOfOpt(city.getWmoCode(), from)
+            .map(weatherDataMapper::toDto)
+            .orElse(null);
+        List<WeatherDataDTO> later = from == to ? List.of() : weatherDataRepository.findByWMOCodeBetween(city.getWmoCode(), from, to).stream()
+            .map(weatherDataMapper::toDto)
+            .toList();
+        return new ObservationHistory(first, later);
+    }
+
+    private static FeeQuoteResultDTO toResult(int index, FeeQuoteRequestDTO request, FeeOutcome outcome) {
+        FeeQuoteResultDTO result = new FeeQuoteResultDTO();
+        result.setIndex(index);
+        result.setCity(request.getCity());
+        result.setVehicleType(request.getVehicleType());
+        result.setDateTime(request.getDateTime());
+        result.setStatus(outcome.status());
+        result.setFee(outcome.fee());
+        result.setMessage(outcome.message());
+        result.setObservationTimestamp(outcome.observationTimestamp());
+        return result;
+    }
+
+    private record CalculationKey(Long vehicleTypeId, WeatherDataDTO weatherData, LocalDateTime nextEffectiveDate) {
+    }
+
+    /**
+     * Observations of one station over the time span of a batch: the latest observation at its start
+     * followed by all later observations in ascending timestamp order.
+     */
+    private static final class ObservationHistory {
+
+        private final WeatherDataDTO first;
+        private final List<WeatherDataDTO> later;
+        private final int[] laterTimestamps;
+
+        ObservationHistory(WeatherDataDTO first, List<WeatherDataDTO> later) {
+            this.first = first;
+            this.later = later;
+            this.laterTimestamps = later.stream().mapToInt(WeatherDataDTO::getObservationTimestamp).toArray();
+        }
+
+        WeatherDataDTO latestAsOf(int epochSeconds) {
+            int low = 0;
+            int high = laterTimestamps.length - 1;
+            int latest = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (laterTimestamps[mid] <= epochSeconds) {
+                    latest = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return latest >= 0 ? later.get(latest) : first;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.fujitsu.delivery_fee_api.service.coalescing;
+
+/**
+ * What makes two fee requests identical for the {@link FeeRequestCoalescer}.
+ */
+public enum CoalescingKey {
+
+    /**
+     * The resolved city and vehicle type and the date/time truncated to the coalescing granularity.
+     * The fee is calculated at the truncated date/time, so the weather lookup is shared too.
+     */
+    REQUEST,
+
+    /**
+     * The resolved city and vehicle type, weather observation, tariff version and next tariff change.
+     * The fee is calculated at the exact date/time, only the calculation after the weather lookup is shared.
+     */
+    INPUTS
+}
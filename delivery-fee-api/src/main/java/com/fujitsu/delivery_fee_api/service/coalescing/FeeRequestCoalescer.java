@@ -0,0 +1,147 @@
+package com.fujitsu.delivery_fee_api.service.coalescing;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Lets concurrent identical fee requests share a single in-flight calculation.
+ * <p>
+ * Requests are identical if they have equal keys, composed as configured by {@link CoalescingKey}. Both keys
+ * hold the resolved city and vehicle type, so names that only differ in case resolve to the same key. The
+ * first request calculates the fee, requests arriving while it is running wait for it and receive the same
+ * fee or the same exception. Nothing is kept once the calculation has finished, so this is not a cache:
+ * a request arriving afterwards calculates again.
+ */
+@Component
+public class FeeRequestCoalescer {
+
+    @Value("${fee.coalescing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${fee.coalescing.granularity:MINUTES}")
+    private ChronoUnit granularity;
+
+    @Value("${fee.coalescing.key:INPUTS}")
+    private CoalescingKey keyComposition;
+
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter calculated;
+    private final Counter coalesced;
+
+    public FeeRequestCoalescer(MeterRegistry meterRegistry) {
+        this.calculated = Counter.builder("fee.requests.coalescing")
+            .tag("result", "calculated")
+            .description("Fee requests that ran their own calculation")
+            .register(meterRegistry);
+        this.coalesced = Counter.builder("fee.requests.coalescing")
+            .tag("result", "coalesced")
+            .description("Fee requests that received the result of an identical request already in flight")
+            .register(meterRegistry);
+        Gauge.builder("fee.requests.in_flight", inFlight, Map::size)
+            .description("Distinct fee calculations currently in flight")
+            .register(meterRegistry);
+    }
+
+    public CoalescingKey getKeyComposition() {
+        return keyComposition;
+    }
+
+    /**
+     * Truncates the date/time of a request to the coalescing granularity.
+     *
+     * @param dateTime  the date and time of the request, may be null for the current time
+     * @return          the truncated date and time, null if none was given
+     */
+    public LocalDateTime truncate(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.truncatedTo(granularity) : null;
+    }
+
+    /**
+     * Calculates the fee of a request, or waits for an identical request already in flight.
+     *
+     * @param key          the key of the request
+     * @param calculation  calculates the fee if no identical request is in flight
+     * @param <T>          the type of the calculated fee
+     * @return             the calculated fee
+     */
+    public <T> T calculate(Key key, Supplier<T> calculation) {
+        if (!enabled) {
+            return calculation.get();
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        calculated.increment();
+        try {
+            T fee = calculation.get();
+            flight.complete(fee);
+            return fee;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T await(CompletableFuture<Object> flight) {
+        try {
+            return (T) flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    public sealed interface Key permits RequestKey, InputsKey {
+    }
+
+    /**
+     * Key of {@link CoalescingKey#REQUEST}.
+     *
+     * @param cityId         the ID of the city
+     * @param vehicleTypeId  the ID of the vehicle type
+     * @param dateTime       the truncated date and time the fee is calculated at, null for the current time
+     */
+    public record RequestKey(Long cityId, Long vehicleTypeId, LocalDateTime dateTime) implements Key {
+    }
+
+    /**
+     * Key of {@link CoalescingKey#INPUTS}.
+     *
+     * @param referenceDataVersion  the version of the reference data the city and vehicle type were resolved with
+     * @param cityId                the ID of the city
+     * @param vehicleTypeId         the ID of the vehicle type
+     * @param weatherData           the weather observation the fee is calculated from
+     * @param tariffVersion         the version of the tariff
+     * @param nextEffectiveDate     the next date a fee rule becomes effective after the request, null if none
+     */
+    public record InputsKey(long referenceDataVersion, Long cityId, Long vehicleTypeId, WeatherDataDTO weatherData,
+                            long tariffVersion, LocalDateTime nextEffectiveDate) implements Key {
+    }
+}
@@ -0,0 +1,123 @@
+package com.fujitsu.delivery_fee_api.service.fee;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the extra fee calculators of a fee calculation, either sequentially or concurrently.
+ * <p>
+ * In concurrent mode every calculator runs as its own task and the results are awaited in completion order.
+ * The first calculator that fails, e.g. with a {@link com.fujitsu.delivery_fee_api.exception.VehicleUsageForbiddenException},
+ * cancels all calculators that are still running and its exception is rethrown to the caller.
+ */
+@Slf4j
+@Component
+public class ExtraFeeEvaluator {
+
+    @Value("${fee.extra-fee.execution:SEQUENTIAL}")
+    private ExtraFeeExecution execution;
+
+    @Value("${fee.extra-fee.virtual-threads:true}")
+    private boolean virtualThreads;
+
+    @Value("${fee.extra-fee.pool-size:8}")
+    private int poolSize;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        if (execution != ExtraFeeExecution.CONCURRENT) {
+            return;
+        }
+        executor = virtualThreads
+            ? Executors.newVirtualThreadPerTaskExecutor()
+            : Executors.newFixedThreadPool(poolSize, Thread.ofPlatform().name("extra-fee-", 0).daemon().factory());
+        log.info("Extra fees are calculated concurrently on {}", virtualThreads ? "virtual threads" : poolSize + " platform threads");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Applies the evaluation to every calculator.
+     *
+     * @param calculators  the calculators to evaluate
+     * @param evaluation   the evaluation to apply to each calculator
+     * @param <T>          the result type of the evaluation
+     * @return             the results, in the order of the calculators
+     */
+    public <T> List<T> evaluate(List<ExtraFeeInterface> calculators, Function<ExtraFeeInterface, T> evaluation) {
+        if (executor == null || calculators.size() < 2) {
+            List<T> results = new ArrayList<>(calculators.size());
+            for (ExtraFeeInterface calculator : calculators) {
+                results.add(evaluation.apply(calculator));
+            }
+            return results;
+        }
+        return evaluateConcurrently(calculators, evaluation);
+    }
+
+    private <T> List<T> evaluateConcurrently(List<ExtraFeeInterface> calculators, Function<ExtraFeeInterface, T> evaluation) {
+        CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<T>> futures = new ArrayList<>(calculators.size());
+        try {
+            for (ExtraFeeInterface calculator : calculators) {
+                futures.add(completionService.submit(() -> evaluation.apply(calculator)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                Future<T> completed = completionService.take();
+                try {
+                    completed.get();
+                } catch (ExecutionException e) {
+                    cancelAll(futures);
+                    throw rethrow(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calculating extra fees", e);
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            results.add(future.resultNow());
+        }
+        return results;
+    }
+
+    private static void cancelAll(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException("Extra fee calculation failed", cause);
+    }
+}
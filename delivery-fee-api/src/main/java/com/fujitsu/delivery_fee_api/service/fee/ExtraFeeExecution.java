@@ -0,0 +1,15 @@
+package com.fujitsu.delivery_fee_api.service.fee;
+
+/**
+ * How the extra fee calculators of a single fee calculation are run.
+ */
+public enum ExtraFeeExecution {
+    /**
+     * Calculators run one after another on the calling thread.
+     */
+    SEQUENTIAL,
+    /**
+     * Calculators run concurrently; a failing calculator cancels the ones still running.
+     */
+    CONCURRENT
+}
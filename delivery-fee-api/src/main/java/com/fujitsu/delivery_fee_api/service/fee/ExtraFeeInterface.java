@@ -1,11 +1,23 @@
 package com.fujitsu.delivery_fee_api.service.fee;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
 import com.fujitsu.delivery_fee_api.model.VehicleType;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffLookup;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffRule;
 
 public interface ExtraFeeInterface {
-    BigDecimal calculateExtraFee(WeatherDataDTO weatherData, VehicleType vehicleType, LocalDateTime dateTime);
+
+    /**
+     * Finds the extra fee rule that applies to the given weather data and vehicle type.
+     *
+     * @param weatherData    the weather data to find the rule for
+     * @param vehicleType    the vehicle type to find the rule for
+     * @param dateTime       the date time the rule has to be effective at
+     * @param tariff         the tariff to read the fee rules from
+     * @return               the applicable rule, or null if no extra fee is applicable
+     * @throws com.fujitsu.delivery_fee_api.exception.VehicleUsageForbiddenException if the rule forbids usage of the vehicle type
+     */
+    TariffRule findApplicableRule(WeatherDataDTO weatherData, VehicleType vehicleType, LocalDateTime dateTime, TariffLookup tariff);
 }
@@ -0,0 +1,17 @@
+package com.fujitsu.delivery_fee_api.service.fee;
+
+/**
+ * Number representation used to add up the fee components of a delivery fee. Either way the total is carried
+ * in cents through the fee matrix, memo and batch results and only converted to a BigDecimal with two decimal
+ * places when a response is written.
+ */
+public enum FeeArithmetic {
+    /**
+     * Components are added up as BigDecimal values and the sum is rounded half up to whole cents.
+     */
+    DECIMAL,
+    /**
+     * Components are rounded to whole cents when the tariff is loaded and added up as long values.
+     */
+    CENTS
+}
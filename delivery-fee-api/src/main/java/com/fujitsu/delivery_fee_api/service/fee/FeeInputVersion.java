@@ -0,0 +1,18 @@
+package com.fujitsu.delivery_fee_api.service.fee;
+
+import java.time.LocalDateTime;
+
+/**
+ * Identifies the inputs a delivery fee was calculated from. Two requests with equal versions get the same fee,
+ * so it validates cached fee responses.
+ *
+ * @param city                  the name of the city
+ * @param vehicleType           the name of the vehicle type
+ * @param observationTimestamp  the timestamp of the weather observation the fee is calculated from
+ * @param tariffVersion         the version of the tariff the fee is calculated with
+ * @param nextEffectiveDate     the next effective date of the tariff after the request time, null if there is none
+ * @param referenceDataVersion  the version of the reference data the names were resolved with
+ */
+public record FeeInputVersion(String city, String vehicleType, Integer observationTimestamp,
+                              long tariffVersion, LocalDateTime nextEffectiveDate, long referenceDataVersion) {
+}
@@ -0,0 +1,73 @@
+package com.fujitsu.delivery_fee_api.service.fee;
+
+import java.math.BigDecimal;
+
+import com.fujitsu.delivery_fee_api.exception.NotFoundException;
+import com.fujitsu.delivery_fee_api.exception.VehicleUsageForbiddenException;
+import com.fujitsu.delivery_fee_api.util.MoneyUtils;
+
+/**
+ * Result of a single delivery fee calculation, including the outcomes that are otherwise reported by exceptions.
+ * The fee is kept in cents; it is only converted to a BigDecimal by {@link #fee()} when a response is written.
+ *
+ * @param status                the status of the calculation
+ * @param feeCents              the delivery fee in cents, 0 unless the status is {@link Status#OK}
+ * @param message               the error message, null if the status is {@link Status#OK}
+ * @param observationTimestamp  the timestamp of the weather observation the fee was calculated from, may be null
+ * @param tariffVersion         the version of the tariff the fee was calculated with
+ */
+public record FeeOutcome(Status status, long feeCents, String message, Integer observationTimestamp, long tariffVersion) {
+
+    public enum Status {
+        OK,
+        FORBIDDEN,
+        NOT_FOUND
+    }
+
+    public static FeeOutcome ok(long feeCents, Integer observationTimestamp, long tariffVersion) {
+        return new FeeOutcome(Status.OK, feeCents, null, observationTimestamp, tariffVersion);
+    }
+
+    public static FeeOutcome forbidden(String message, Integer observationTimestamp, long tariffVersion) {
+        return new FeeOutcome(Status.FORBIDDEN, 0L, message, observationTimestamp, tariffVersion);
+    }
+
+    public static FeeOutcome notFound(String message, Integer observationTimestamp, long tariffVersion) {
+        return new FeeOutcome(Status.NOT_FOUND, 0L, message, observationTimestamp, tariffVersion);
+    }
+
+    /**
+     * Returns the fee with two decimal places.
+     *
+     * @return the delivery fee, or null unless the status is {@link Status#OK}
+     */
+    public BigDecimal fee() {
+        return status == Status.OK ? MoneyUtils.fromCents(feeCents) : null;
+    }
+
+    /**
+     * Returns the fee in cents, or throws the exception the fee calculation would have thrown.
+     *
+     * @return                                the delivery fee in cents
+     * @throws VehicleUsageForbiddenException if the usage of the vehicle type is forbidden
+     * @throws NotFoundException              if the fee could not be calculated
+     */
+    public long getCentsOrThrow() {
+        return switch (status) {
+            case OK -> feeCents;
+            case FORBIDDEN -> throw new VehicleUsageForbiddenException(message);
+            case NOT_FOUND -> throw new NotFoundException(message);
+        };
+    }
+
+    /**
+     * Returns the fee, or throws the exception the fee calculation would have thrown.
+     *
+     * @return                                the delivery fee
+     * @throws VehicleUsageForbiddenException if the usage of the vehicle type is forbidden
+     * @throws NotFoundException              if the fee could not be calculated
+     */
+    public BigDecimal getOrThrow() {
+        return MoneyUtils.fromCents(getCentsOrThrow());
+    }
+}
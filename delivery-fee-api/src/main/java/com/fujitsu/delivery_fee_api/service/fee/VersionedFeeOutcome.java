@@ -0,0 +1,11 @@
+package com.fujitsu.delivery_fee_api.service.fee;
+
+/**
+ * Outcome of a delivery fee calculation together with the version of the inputs it was calculated from,
+ * so a response and its validator always describe the same calculation.
+ *
+ * @param outcome       the outcome of the calculation
+ * @param inputVersion  the version of the inputs the outcome was calculated from
+ */
+public record VersionedFeeOutcome(FeeOutcome outcome, FeeInputVersion inputVersion) {
+}
@@ -1,6 +1,5 @@
 package com.fujitsu.delivery_fee_api.service.fee.impl;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
@@ -9,39 +8,35 @@ import org.springframework.stereotype.Component;
 import com.fujitsu.delivery_fee_api.exception.NotFoundException;
 import com.fujitsu.delivery_fee_api.model.City;
 import com.fujitsu.delivery_fee_api.model.VehicleType;
-import com.fujitsu.delivery_fee_api.model.fee_tables.RegionalBaseFee;
-import com.fujitsu.delivery_fee_api.repository.RegionalBaseFeeRepository;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffLookup;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffRule;
 
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Component
 public class BaseFeeCalculator {
-    private final RegionalBaseFeeRepository regionalBaseFeeRepository;
-
-    public BaseFeeCalculator(RegionalBaseFeeRepository regionalBaseFeeRepository) {
-        this.regionalBaseFeeRepository = regionalBaseFeeRepository;
-    }
 
     /**
-     * Calculates the base fee for a given city and vehicle type at a specific date and time.
+     * Finds the base fee rule for a given city and vehicle type at a specific date and time.
      *
-     * @param  city          the city for which the base fee is to be calculated
-     * @param  vehicleType   the vehicle type for which the base fee is to be calculated
-     * @param  dateTime      the date and time at which the base fee is to be calculated
-     * @return               the calculated base fee
+     * @param  city          the city to find the base fee rule for
+     * @param  vehicleType   the vehicle type to find the base fee rule for
+     * @param  dateTime      the date and time the rule has to be effective at
+     * @param  tariff        the tariff to read the base fee rules from
+     * @return               the applicable base fee rule
+     * @throws NotFoundException if no base fee rule is effective for the city and vehicle type
      */
-    public BigDecimal calculateBaseFee(City city, VehicleType vehicleType, LocalDateTime dateTime) {
-        
+    public TariffRule findBaseFeeRule(City city, VehicleType vehicleType, LocalDateTime dateTime, TariffLookup tariff) {
+
         Long cityId = city.getId();
         Long vehicleTypeId = vehicleType.getId();
         
-        Optional<RegionalBaseFee> baseFeeEntityOptional = regionalBaseFeeRepository.findLatestBaseFee(cityId, vehicleTypeId, dateTime);
-        if (baseFeeEntityOptional.isEmpty()) {
+        Optional<TariffRule> baseFeeRuleOptional = tariff.findBaseFee(cityId, vehicleTypeId, dateTime);
+        if (baseFeeRuleOptional.isEmpty()) {
             throw new NotFoundException("Base fee not found for given City and VehicleType");
         }
         
-        RegionalBaseFee baseFeeEntity = baseFeeEntityOptional.get();
-        return baseFeeEntity.getBaseFee();
+        return baseFeeRuleOptional.get();
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,5 @@
 package com.fujitsu.delivery_fee_api.service.fee.impl;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import org.springframework.stereotype.Component;
@@ -9,83 +8,76 @@ import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
 import com.fujitsu.delivery_fee_api.exception.VehicleUsageForbiddenException;
 import com.fujitsu.delivery_fee_api.model.VehicleType;
 import com.fujitsu.delivery_fee_api.model.WeatherPhenomenonCategory;
-import com.fujitsu.delivery_fee_api.model.WeatherPhenomenonType;
-import com.fujitsu.delivery_fee_api.model.fee_tables.WeatherPhenomenonExtraFee;
-import com.fujitsu.delivery_fee_api.repository.WeatherPhenomenonExtraFeeRepository;
-import com.fujitsu.delivery_fee_api.repository.WeatherPhenomenonTypeRepository;
 import com.fujitsu.delivery_fee_api.service.fee.ExtraFeeInterface;
+import com.fujitsu.delivery_fee_api.service.reference.ReferenceDataRegistry;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffLookup;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffRule;
 
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Component
 public class WeatherPhenomenonExtraFeeCalculator implements ExtraFeeInterface {
-    private final WeatherPhenomenonTypeRepository weatherPhenomenonTypeRepository;
-    private final WeatherPhenomenonExtraFeeRepository weatherPhenomenonExtraFeeRepository;
+    private final ReferenceDataRegistry referenceDataRegistry;
 
 
-    public WeatherPhenomenonExtraFeeCalculator(WeatherPhenomenonTypeRepository weatherPhenomenonTypeRepository,
-                                               WeatherPhenomenonExtraFeeRepository weatherPhenomenonExtraFeeRepository) {
-        this.weatherPhenomenonTypeRepository = weatherPhenomenonTypeRepository;
-        this.weatherPhenomenonExtraFeeRepository = weatherPhenomenonExtraFeeRepository;
+    public WeatherPhenomenonExtraFeeCalculator(ReferenceDataRegistry referenceDataRegistry) {
+        this.referenceDataRegistry = referenceDataRegistry;
     }
 
     /**
-     * Calculates the extra fee based on weather phenomenon for a given vehicle type and date/time.
+     * Finds the extra fee rule based on weather phenomenon for a given vehicle type and date/time.
      *
      * @param weatherData    the weather data containing the weather phenomenon
      * @param vehicleType    the type of vehicle
      * @param dateTime       the date and time for which the extra fee is being calculated
-     * @return               the calculated extra fee as a BigDecimal value
+     * @param tariff         the tariff to read the fee rules from
+     * @return               the applicable rule, or null if no extra fee is applicable
+     * @throws VehicleUsageForbiddenException if the weather phenomenon forbids usage of the vehicle type
      */
     @Override
-    public BigDecimal calculateExtraFee(WeatherDataDTO weatherData, VehicleType vehicleType, LocalDateTime dateTime) {
+    public TariffRule findApplicableRule(WeatherDataDTO weatherData, VehicleType vehicleType, LocalDateTime dateTime, TariffLookup tariff) {
         String weatherPhenomenon = weatherData.getWeatherPhenomenon();
         String vehicleTypeName = vehicleType.getName();
         
-        log.info("Calculating Weather Phenomenon Extra Fee for {} and {}", weatherPhenomenon, vehicleTypeName);
+        log.debug("Calculating Weather Phenomenon Extra Fee for {} and {}", weatherPhenomenon, vehicleTypeName);
         
         if (!vehicleType.getExtraFeeApplicable() ) {
-            log.info("No WPEF applicable for selected vehicle type");
-            return BigDecimal.ZERO;
+            log.debug("No WPEF applicable for selected vehicle type");
+            return null;
         }
 
         if (weatherPhenomenon == null || weatherPhenomenon.trim().isEmpty()) {
-            log.info("No weather phenomenon in the weather data that incurs extra fees");
-            return BigDecimal.ZERO;
+            log.debug("No weather phenomenon in the weather data that incurs extra fees");
+            return null;
         }
 
-        return calculateFeeBasedOnPhenomenon(getWeatherPhenomenonType(weatherPhenomenon), vehicleType, dateTime);
+        return findRuleBasedOnCategory(referenceDataRegistry.classifyWeatherPhenomenon(weatherPhenomenon), vehicleType, dateTime, tariff);
     }
 
-    private WeatherPhenomenonType getWeatherPhenomenonType(String weatherPhenomenon) {
-        return weatherPhenomenonTypeRepository.findByPhenomenon(weatherPhenomenon);
-    }
-
-    private BigDecimal calculateFeeBasedOnPhenomenon(WeatherPhenomenonType weatherPhenomenonType, VehicleType vehicleType, LocalDateTime dateTime) {
-        
-        WeatherPhenomenonCategory category = weatherPhenomenonType.getCategory();
+    private TariffRule findRuleBasedOnCategory(WeatherPhenomenonCategory category, VehicleType vehicleType, LocalDateTime dateTime, TariffLookup tariff) {
         
         if (category == WeatherPhenomenonCategory.NONE) {
-            log.info("Given Weather Phenomenon will not incur Extra Fees");
-            return BigDecimal.ZERO;
+            log.debug("Given Weather Phenomenon will not incur Extra Fees");
+            return null;
         }
         
         Long vehicleTypeId = vehicleType.getId();
 
-        WeatherPhenomenonExtraFee feeEntity = weatherPhenomenonExtraFeeRepository
-            .findLatestByPhenomenonCategoryVehicleTypeAndQueryTime(category, vehicleTypeId, dateTime);
+        TariffRule feeRule = tariff
+            .findWeatherPhenomenonExtraFee(category, vehicleTypeId, dateTime)
+            .orElse(null);
     
-        if (feeEntity == null) {
-            log.info("WPfeeEntity is null. Should it?");
-            return BigDecimal.ZERO;
+        if (feeRule == null) {
+            log.debug("WPfeeEntity is null. Should it?");
+            return null;
         }
     
-        if (feeEntity.getForbidden()) {
-            log.info("Forbidden WP for selected vehicle type, {}", category);
-            throw new VehicleUsageForbiddenException();
+        if (feeRule.forbidden()) {
+            log.debug("Forbidden WP for selected vehicle type, {}", category);
+            throw new VehicleUsageForbiddenException(getClass().getSimpleName(), feeRule);
         }
     
-        return feeEntity.getExtraFee();
+        return feeRule;
     }
 }
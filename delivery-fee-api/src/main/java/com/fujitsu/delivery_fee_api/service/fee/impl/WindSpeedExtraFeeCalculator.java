@@ -1,6 +1,5 @@
 package com.fujitsu.delivery_fee_api.service.fee.impl;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import org.springframework.stereotype.Component;
@@ -8,50 +7,48 @@ import org.springframework.stereotype.Component;
 import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
 import com.fujitsu.delivery_fee_api.exception.VehicleUsageForbiddenException;
 import com.fujitsu.delivery_fee_api.model.VehicleType;
-import com.fujitsu.delivery_fee_api.model.fee_tables.WindSpeedExtraFee;
-import com.fujitsu.delivery_fee_api.repository.WindSpeedExtraFeeRepository;
 import com.fujitsu.delivery_fee_api.service.fee.ExtraFeeInterface;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffLookup;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffRule;
 
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Component
 public class WindSpeedExtraFeeCalculator implements ExtraFeeInterface {
-    private final WindSpeedExtraFeeRepository windSpeedExtraFeeRepository;
-
-    public WindSpeedExtraFeeCalculator(WindSpeedExtraFeeRepository windSpeedExtraFeeRepository) {
-        this.windSpeedExtraFeeRepository = windSpeedExtraFeeRepository;
-    }
 
     /**
-     * Calculates the extra fee for a given weather data, vehicle type, and date time.
+     * Finds the wind speed extra fee rule for a given weather data, vehicle type, and date time.
      * 
      * @param weatherData    the weather data to calculate the extra fee for
      * @param vehicleType    the vehicle type to calculate the extra fee for
      * @param dateTime       the date time to calculate the extra fee for
-     * @return               the calculated extra fee, or BigDecimal.ZERO if no extra fee is applicable
+     * @param tariff         the tariff to read the fee rules from
+     * @return               the applicable rule, or null if no extra fee is applicable
+     * @throws VehicleUsageForbiddenException if the wind speed forbids usage of the vehicle type
      */
     @Override
-    public BigDecimal calculateExtraFee(WeatherDataDTO weatherData, VehicleType vehicleType, LocalDateTime dateTime) {
+    public TariffRule findApplicableRule(WeatherDataDTO weatherData, VehicleType vehicleType, LocalDateTime dateTime, TariffLookup tariff) {
         if (!vehicleType.getExtraFeeApplicable()) {
-            return BigDecimal.ZERO;
+            return null;
         }
 
         Float windSpeed = weatherData.getWindSpeed();
         Long vehicleTypeId = vehicleType.getId();
 
-        WindSpeedExtraFee fee = windSpeedExtraFeeRepository
-            .findLatestByWindSpeedAndVehicleTypeAndQueryTime(windSpeed, vehicleTypeId, dateTime);
+        TariffRule fee = tariff
+            .findWindSpeedExtraFee(windSpeed, vehicleTypeId, dateTime)
+            .orElse(null);
 
         if (fee == null) {
-            return BigDecimal.ZERO;
+            return null;
         }
 
-        if (fee.getForbidden()) {
-            log.info(" Forbidden WS for selected vehicle type, {}", windSpeed);
-            throw new VehicleUsageForbiddenException();
+        if (fee.forbidden()) {
+            log.debug(" Forbidden WS for selected vehicle type, {}", windSpeed);
+            throw new VehicleUsageForbiddenException(getClass().getSimpleName(), fee);
         }
 
-        return fee.getExtraFee();
+        return fee;
     }
 }
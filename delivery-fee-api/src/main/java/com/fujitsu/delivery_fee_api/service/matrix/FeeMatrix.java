@@ -0,0 +1,109 @@
+package com.fujitsu.delivery_fee_api.service.matrix;
+
+import java.time.LocalDateTime;
+
+import com.fujitsu.delivery_fee_api.service.fee.FeeOutcome;
+import com.fujitsu.delivery_fee_api.service.reference.ReferenceData;
+
+/**
+ * Immutable table of the current delivery fee outcome of every city and vehicle type combination.
+ * Outcomes are kept in one flat array indexed by the reference data ordinals of the city and vehicle type,
+ * so a lookup is two name lookups and one array access.
+ */
+public final class FeeMatrix {
+
+    private final ReferenceData referenceData;
+    private final FeeOutcome[] outcomes;
+    private final long tariffVersion;
+    private final Integer observationTimestamp;
+    private final LocalDateTime builtAt;
+    private final LocalDateTime validUntil;
+
+    /**
+     * @param referenceData         the reference data the ordinals of the outcomes refer to
+     * @param outcomes              the outcomes, indexed by {@code cityOrdinal * vehicleTypeCount + vehicleTypeOrdinal}
+     * @param tariffVersion         the version of the tariff the outcomes were calculated with
+     * @param observationTimestamp  the timestamp of the newest observation the outcomes were calculated from, may be null
+     * @param builtAt               the time the outcomes were calculated for
+     * @param validUntil            the time the next fee rule becomes effective, or null if there is none
+     */
+    FeeMatrix(ReferenceData referenceData, FeeOutcome[] outcomes,
+              long tariffVersion, Integer observationTimestamp, LocalDateTime builtAt, LocalDateTime validUntil) {
+        this.referenceData = referenceData;
+        this.outcomes = outcomes;
+        this.tariffVersion = tariffVersion;
+        this.observationTimestamp = observationTimestamp;
+        this.builtAt = builtAt;
+        this.validUntil = validUntil;
+    }
+
+    /**
+     * Returns the outcome for the given city and vehicle type.
+     *
+     * @param cityName         the name of the city
+     * @param vehicleTypeName  the name of the vehicle type
+     * @return                 the outcome, or null if the city or vehicle type is not part of the matrix
+     */
+    public FeeOutcome get(String cityName, String vehicleTypeName) {
+        return get(referenceData.cityOrdinal(cityName), referenceData.vehicleTypeOrdinal(vehicleTypeName));
+    }
+
+    /**
+     * Returns the outcome for the given city and vehicle type ordinals of {@link #getReferenceDataVersion()}.
+     *
+     * @param cityOrdinal         the ordinal of the city
+     * @param vehicleTypeOrdinal  the ordinal of the vehicle type
+     * @return                    the outcome, or null if an ordinal is out of range
+     */
+    public FeeOutcome get(int cityOrdinal, int vehicleTypeOrdinal) {
+        int vehicleTypeCount = referenceData.getVehicleTypeCount();
+        if (cityOrdinal < 0 || cityOrdinal >= referenceData.getCityCount()
+                || vehicleTypeOrdinal < 0 || vehicleTypeOrdinal >= vehicleTypeCount) {
+            return null;
+        }
+        return outcomes[cityOrdinal * vehicleTypeCount + vehicleTypeOrdinal];
+    }
+
+    /**
+     * Checks whether the outcomes still hold at the given time, i.e. no fee rule has become effective since the build.
+     *
+     * @param dateTime the time to check
+     * @return         true if the matrix may be used at the given time
+     */
+    public boolean isValidAt(LocalDateTime dateTime) {
+        return !dateTime.isBefore(builtAt) && (validUntil == null || dateTime.isBefore(validUntil));
+    }
+
+    /**
+     * @return the reference data the matrix was built from
+     */
+    public ReferenceData getReferenceData() {
+        return referenceData;
+    }
+
+    /**
+     * @return the version of the reference data the matrix was built from
+     */
+    public long getReferenceDataVersion() {
+        return referenceData.getVersion();
+    }
+
+    public long getTariffVersion() {
+        return tariffVersion;
+    }
+
+    /**
+     * @return the timestamp of the newest weather observation the matrix was built from, or null if there was none
+     */
+    public Integer getObservationTimestamp() {
+        return observationTimestamp;
+    }
+
+    public LocalDateTime getBuiltAt() {
+        return builtAt;
+    }
+
+    public LocalDateTime getValidUntil() {
+        return validUntil;
+    }
+}
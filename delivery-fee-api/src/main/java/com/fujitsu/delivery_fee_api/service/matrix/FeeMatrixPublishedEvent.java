@@ -0,0 +1,10 @@
+package com.fujitsu.delivery_fee_api.service.matrix;
+
+/**
+ * Published by {@link FeeMatrixService} after a rebuilt matrix has been made current.
+ *
+ * @param previous the matrix that was current before, or null if there was none
+ * @param current  the new current matrix
+ */
+public record FeeMatrixPublishedEvent(FeeMatrix previous, FeeMatrix current) {
+}
@@ -0,0 +1,218 @@
+package com.fujitsu.delivery_fee_api.service.matrix;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+import com.fujitsu.delivery_fee_api.model.City;
+import com.fujitsu.delivery_fee_api.model.VehicleType;
+import com.fujitsu.delivery_fee_api.service.DeliveryFeeCalculationService;
+import com.fujitsu.delivery_fee_api.service.ReferenceDataChangedEvent;
+import com.fujitsu.delivery_fee_api.service.WeatherDataService;
+import com.fujitsu.delivery_fee_api.service.fee.FeeInputVersion;
+import com.fujitsu.delivery_fee_api.service.fee.FeeOutcome;
+import com.fujitsu.delivery_fee_api.service.fee.VersionedFeeOutcome;
+import com.fujitsu.delivery_fee_api.service.reference.ReferenceData;
+import com.fujitsu.delivery_fee_api.service.reference.ReferenceDataRegistry;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffLookup;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffPublishedEvent;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffSnapshotService;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherDataSavedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps a precomputed {@link FeeMatrix} of the current delivery fees.
+ * The matrix is rebuilt after every weather data import, tariff change and reference data change,
+ * so current-time quotes do not need to touch the database.
+ */
+@Slf4j
+@Service
+public class FeeMatrixService {
+
+    @Value("${fee.matrix.enabled:true}")
+    private boolean matrixEnabled;
+
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final WeatherDataService weatherDataService;
+    private final DeliveryFeeCalculationService deliveryFeeCalculationService;
+    private final TariffSnapshotService tariffSnapshotService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicReference<FeeMatrix> currentMatrix = new AtomicReference<>();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final Counter hits;
+    private final Counter fallbacks;
+
+    public FeeMatrixService(ReferenceDataRegistry referenceDataRegistry,
+                            WeatherDataService weatherDataService,
+                            DeliveryFeeCalculationService deliveryFeeCalculationService,
+                            TariffSnapshotService tariffSnapshotService,
+                            ApplicationEventPublisher eventPublisher,
+                            MeterRegistry meterRegistry) {
+        this.referenceDataRegistry = referenceDataRegistry;
+        this.weatherDataService = weatherDataService;
+        this.deliveryFeeCalculationService = deliveryFeeCalculationService;
+        this.tariffSnapshotService = tariffSnapshotService;
+        this.eventPublisher = eventPublisher;
+        this.hits = Counter.builder("fee.matrix.lookup")
+            .tag("result", "hit")
+            .description("Current-time quotes answered from the fee matrix")
+            .register(meterRegistry);
+        this.fallbacks = Counter.builder("fee.matrix.lookup")
+            .tag("result", "fallback")
+            .description("Current-time quotes that had to be calculated")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the current delivery fee for a city and vehicle type.
+     * The fee is read from the matrix if it is up to date, otherwise it is calculated.
+     *
+     * @param cityName         the name of the city
+     * @param vehicleTypeName  the name of the vehicle type
+     * @return                 the current delivery fee
+     * @throws com.fujitsu.delivery_fee_api.exception.NotFoundException if the city, vehicle type, weather data or base fee is not found
+     * @throws com.fujitsu.delivery_fee_api.exception.VehicleUsageForbiddenException if the vehicle usage is forbidden under current weather conditions
+     */
+    public BigDecimal getCurrentFee(String cityName, String vehicleTypeName) {
+        return getCurrentOutcome(cityName, vehicleTypeName).outcome().getOrThrow();
+    }
+
+    /**
+     * Returns the current outcome for a city and vehicle type together with the version of the inputs it was
+     * calculated from. The outcome is read from the matrix if it is up to date, otherwise it is calculated.
+     *
+     * @param cityName         the name of the city
+     * @param vehicleTypeName  the name of the vehicle type
+     * @return                 the current outcome and the version of its inputs
+     * @throws com.fujitsu.delivery_fee_api.exception.NotFoundException if the city, vehicle type or weather data is not found
+     */
+    public VersionedFeeOutcome getCurrentOutcome(String cityName, String vehicleTypeName) {
+        FeeMatrix matrix = currentMatrix.get();
+        FeeOutcome outcome = lookup(matrix, cityName, vehicleTypeName);
+        if (outcome == null) {
+            fallbacks.increment();
+            return deliveryFeeCalculationService.calculateVersionedDeliveryFee(cityName, vehicleTypeName, null);
+        }
+        hits.increment();
+        ReferenceData referenceData = matrix.getReferenceData();
+        // no fee rule has become effective since the build, so the next one is still the end of the matrix
+        FeeInputVersion inputVersion = new FeeInputVersion(referenceData.findCity(cityName).getName(),
+                referenceData.findVehicleType(vehicleTypeName).getName(), outcome.observationTimestamp(),
+                outcome.tariffVersion(), matrix.getValidUntil(), matrix.getReferenceDataVersion());
+        return new VersionedFeeOutcome(outcome, inputVersion);
+    }
+
+    /**
+     * Returns the current outcome for a city and vehicle type if the matrix can answer it.
+     *
+     * @param cityName         the name of the city
+     * @param vehicleTypeName  the name of the vehicle type
+     * @return                 the outcome, or null if the fee has to be calculated
+     */
+    public FeeOutcome findCurrentOutcome(String cityName, String vehicleTypeName) {
+        FeeOutcome outcome = lookup(currentMatrix.get(), cityName, vehicleTypeName);
+        if (outcome != null) {
+            hits.increment();
+        } else {
+            fallbacks.increment();
+        }
+        return outcome;
+    }
+
+    /**
+     * @return the current matrix, or null if it has not been built yet
+     */
+    public FeeMatrix getCurrentMatrix() {
+        return currentMatrix.get();
+    }
+
+    @EventListener
+    public void onTariffPublished(TariffPublishedEvent event) {
+        rebuild();
+    }
+
+    @EventListener
+    public void onWeatherDataSaved(WeatherDataSavedEvent event) {
+        rebuild();
+    }
+
+    @EventListener
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Recalculates the fee of every city and vehicle type combination at the current time
+     * and publishes the result as the current matrix.
+     * A {@link FeeMatrixPublishedEvent} is sent once the new matrix is current.
+     *
+     * @return the new matrix, or null if the matrix is disabled
+     */
+    public FeeMatrix rebuild() {
+        if (!matrixEnabled) {
+            return null;
+        }
+        rebuildLock.lock();
+        try {
+            FeeMatrix matrix = build();
+            FeeMatrix previous = currentMatrix.getAndSet(matrix);
+            log.info("Built fee matrix for tariff version {} and observation timestamp {}",
+                    matrix.getTariffVersion(), matrix.getObservationTimestamp());
+            eventPublisher.publishEvent(new FeeMatrixPublishedEvent(previous, matrix));
+            return matrix;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private FeeOutcome lookup(FeeMatrix matrix, String cityName, String vehicleTypeName) {
+        if (!matrixEnabled || matrix == null
+                || matrix.getTariffVersion() != tariffSnapshotService.getCurrentVersion()
+                || matrix.getReferenceDataVersion() != referenceDataRegistry.getCurrent().getVersion()
+                || !matrix.isValidAt(LocalDateTime.now())) {
+            return null;
+        }
+        FeeOutcome outcome = matrix.get(cityName, vehicleTypeName);
+        // missing data is reported by the calculation itself, with the request time in the message
+        return outcome == null || outcome.status() == FeeOutcome.Status.NOT_FOUND ? null : outcome;
+    }
+
+    private FeeMatrix build() {
+        LocalDateTime builtAt = LocalDateTime.now();
+        TariffLookup tariff = tariffSnapshotService.getCurrentTariff();
+        ReferenceData referenceData = referenceDataRegistry.getCurrent();
+        List<City> cities = referenceData.getCities();
+        List<VehicleType> vehicleTypes = referenceData.getVehicleTypes();
+
+        FeeOutcome[] outcomes = new FeeOutcome[cities.size() * vehicleTypes.size()];
+        Integer observationTimestamp = null;
+        for (int i = 0; i < cities.size(); i++) {
+            City city = cities.get(i);
+            WeatherDataDTO weatherData = weatherDataService.getWeatherDataForCity(city, null);
+            if (weatherData != null && weatherData.getObservationTimestamp() != null
+                    && (observationTimestamp == null || weatherData.getObservationTimestamp() > observationTimestamp)) {
+                observationTimestamp = weatherData.getObservationTimestamp();
+            }
+            for (int j = 0; j < vehicleTypes.size(); j++) {
+                outcomes[i * vehicleTypes.size() + j] = weatherData == null
+                    ? FeeOutcome.notFound("Weather data not found for city: " + city.getName(), null, tariff.getVersion())
+                    : deliveryFeeCalculationService.calculateFeeOutcome(city, vehicleTypes.get(j), weatherData, builtAt, tariff);
+            }
+        }
+
+        LocalDateTime validUntil = tariff.findNextEffectiveDate(builtAt).orElse(null);
+        return new FeeMatrix(referenceData, outcomes, tariff.getVersion(), observationTimestamp, builtAt, validUntil);
+    }
+}
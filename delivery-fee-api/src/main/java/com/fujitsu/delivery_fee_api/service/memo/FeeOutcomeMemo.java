@@ -0,0 +1,213 @@
+package com.fujitsu.delivery_fee_api.service.memo;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+import com.fujitsu.delivery_fee_api.model.City;
+import com.fujitsu.delivery_fee_api.model.VehicleType;
+import com.fujitsu.delivery_fee_api.service.ReferenceDataChangedEvent;
+import com.fujitsu.delivery_fee_api.service.fee.FeeOutcome;
+import com.fujitsu.delivery_fee_api.service.reference.ReferenceData;
+import com.fujitsu.delivery_fee_api.service.reference.ReferenceDataRegistry;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffLookup;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffPublishedEvent;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherDataSavedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded least-recently-used memo of fee outcomes for queries with an explicit date/time.
+ * <p>
+ * An outcome only depends on the city, the vehicle type, the weather observation, the tariff version and
+ * the fee rules effective at the date/time. The rules effective at a date/time are identified by the next
+ * effective date of the tariff after it, so all date/times between two effective dates share one entry.
+ * Forbidden and not found outcomes are memoized as well. Entries of an older tariff or reference data version
+ * are evicted as soon as a newer version is published, and are never added afterwards.
+ * <p>
+ * Observations without an id are not memoized. Since a saved observation can be updated in place, the key holds the
+ * values the fee is calculated from besides the id, and entries of observations that are saved again are evicted.
+ */
+@Component
+public class FeeOutcomeMemo {
+
+    @Value("${fee.memo.enabled:true}")
+    private boolean enabled;
+
+    @Value("${fee.memo.max-size:10000}")
+    private int maxSize;
+
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final Map<Key, FeeOutcome> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong minimumTariffVersion = new AtomicLong();
+    private final AtomicLong minimumReferenceDataVersion = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter capacityEvictions;
+    private final Counter versionEvictions;
+    private final Counter observationEvictions;
+
+    public FeeOutcomeMemo(ReferenceDataRegistry referenceDataRegistry, MeterRegistry meterRegistry) {
+        this.referenceDataRegistry = referenceDataRegistry;
+        this.hits = Counter.builder("fee.memo.requests")
+            .tag("result", "hit")
+            .description("Historical fee queries answered from the memo")
+            .register(meterRegistry);
+        this.misses = Counter.builder("fee.memo.requests")
+            .tag("result", "miss")
+            .description("Historical fee queries that had to be calculated")
+            .register(meterRegistry);
+        this.capacityEvictions = Counter.builder("fee.memo.evictions")
+            .tag("cause", "size")
+            .description("Memo entries evicted because the memo was full")
+            .register(meterRegistry);
+        this.versionEvictions = Counter.builder("fee.memo.evictions")
+            .tag("cause", "version")
+            .description("Memo entries evicted because a newer tariff or reference data version was published")
+            .register(meterRegistry);
+        this.observationEvictions = Counter.builder("fee.memo.evictions")
+            .tag("cause", "observation")
+            .description("Memo entries evicted because their weather observation was saved again")
+            .register(meterRegistry);
+        Gauge.builder("fee.memo.size", this, FeeOutcomeMemo::size)
+            .description("Fee outcomes currently memoized")
+            .register(meterRegistry);
+        Gauge.builder("fee.memo.hit_ratio", this, FeeOutcomeMemo::hitRatio)
+            .description("Share of historical fee queries answered from the memo")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the memoized outcome of a calculation, or runs the calculation and memoizes its outcome.
+     *
+     * @param referenceData      the reference data the city and vehicle type were resolved with
+     * @param city               the city
+     * @param vehicleType        the vehicle type
+     * @param weatherData        the weather observation the fee is calculated from
+     * @param nextEffectiveDate  the next effective date of the tariff after the date and time the fee rules have to be
+     *                           effective at, null if none
+     * @param tariff             the tariff the fee is calculated with
+     * @param calculation        calculates the outcome if it is not memoized
+     * @return                   the outcome of the calculation
+     */
+    public FeeOutcome get(ReferenceData referenceData, City city, VehicleType vehicleType, WeatherDataDTO weatherData,
+                          LocalDateTime nextEffectiveDate, TariffLookup tariff, Supplier<FeeOutcome> calculation) {
+        if (!enabled || weatherData.getId() == null) {
+            return calculation.get();
+        }
+
+        Key key = new Key(referenceData.getVersion(), tariff.getVersion(), city.getId(), vehicleType.getId(),
+                weatherData.getId(), weatherData.getObservationTimestamp(), weatherData.getAirTemperature(),
+                weatherData.getWindSpeed(), weatherData.getWeatherPhenomenon(), nextEffectiveDate);
+        FeeOutcome outcome;
+        lock.lock();
+        try {
+            outcome = entries.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (outcome != null) {
+            hits.increment();
+            return outcome;
+        }
+
+        misses.increment();
+        outcome = calculation.get();
+        put(key, outcome);
+        return outcome;
+    }
+
+    /**
+     * @return the number of memoized outcomes
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double hitRatio() {
+        double requests = hits.count() + misses.count();
+        return requests == 0 ? 0.0 : hits.count() / requests;
+    }
+
+    @EventListener
+    public void onTariffPublished(TariffPublishedEvent event) {
+        minimumTariffVersion.accumulateAndGet(event.version(), Math::max);
+        evictIf(key -> key.tariffVersion() < event.version(), versionEvictions);
+    }
+
+    @EventListener
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        long version = referenceDataRegistry.getCurrent().getVersion();
+        minimumReferenceDataVersion.accumulateAndGet(version, Math::max);
+        evictIf(key -> key.referenceDataVersion() < version, versionEvictions);
+    }
+
+    @EventListener
+    public void onWeatherDataSaved(WeatherDataSavedEvent event) {
+        Set<Long> savedIds = new HashSet<>();
+        for (WeatherDataDTO observation : event.observations()) {
+            if (observation.getId() != null) {
+                savedIds.add(observation.getId());
+            }
+        }
+        if (!savedIds.isEmpty()) {
+            evictIf(key -> savedIds.contains(key.observationId()), observationEvictions);
+        }
+    }
+
+    private void put(Key key, FeeOutcome outcome) {
+        lock.lock();
+        try {
+            if (key.tariffVersion() < minimumTariffVersion.get()
+                    || key.referenceDataVersion() < minimumReferenceDataVersion.get()) {
+                return;
+            }
+            entries.put(key, outcome);
+            if (entries.size() > maxSize) {
+                Iterator<Key> eldest = entries.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                capacityEvictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictIf(Predicate<Key> stale, Counter evictions) {
+        lock.lock();
+        try {
+            int before = entries.size();
+            entries.keySet().removeIf(stale);
+            evictions.increment(before - entries.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Key(long referenceDataVersion, long tariffVersion, Long cityId, Long vehicleTypeId,
+                       Long observationId, Integer observationTimestamp, Float airTemperature, Float windSpeed,
+                       String weatherPhenomenon, LocalDateTime nextEffectiveDate) {
+    }
+}
@@ -0,0 +1,172 @@
+package com.fujitsu.delivery_fee_api.service.reference;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import com.fujitsu.delivery_fee_api.model.City;
+import com.fujitsu.delivery_fee_api.model.VehicleType;
+import com.fujitsu.delivery_fee_api.model.WeatherPhenomenonType;
+
+/**
+ * Immutable, versioned copy of the cities, vehicle types and weather phenomenon types.
+ * <p>
+ * Cities and vehicle types are numbered with dense ordinals {@code 0..count-1} in ID order, so caches built from
+ * one version can keep per-city or per-vehicle-type data in flat arrays. Ordinals are only stable within a version.
+ * With lenient matching, city and vehicle type names also match ignoring case, diacritics and surrounding whitespace ("parnu" finds "Pärnu"),
+ * unless two names fold to the same form. Weather phenomena are always matched leniently, see
+ * {@link WeatherPhenomenonClassifier}. The shared entities must not be modified.
+ */
+public final class ReferenceData {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final long version;
+    private final boolean lenientMatching;
+    private final List<City> cities;
+    private final List<VehicleType> vehicleTypes;
+    private final NameIndex cityIndex;
+    private final NameIndex vehicleTypeIndex;
+    private final WeatherPhenomenonClassifier weatherPhenomenonClassifier;
+
+    /**
+     * @param version                 the version assigned to the reference data
+     * @param lenientMatching         whether names also match ignoring case and diacritics
+     * @param cities                  the cities, in ID order
+     * @param vehicleTypes            the vehicle types, in ID order
+     * @param weatherPhenomenonTypes  the weather phenomenon types
+     */
+    ReferenceData(long version, boolean lenientMatching, List<City> cities, List<VehicleType> vehicleTypes,
+                  List<WeatherPhenomenonType> weatherPhenomenonTypes) {
+        this.version = version;
+        this.lenientMatching = lenientMatching;
+        this.cities = List.copyOf(cities);
+        this.vehicleTypes = List.copyOf(vehicleTypes);
+        this.cityIndex = NameIndex.build(this.cities, City::getName);
+        this.vehicleTypeIndex = NameIndex.build(this.vehicleTypes, VehicleType::getName);
+        this.weatherPhenomenonClassifier = WeatherPhenomenonClassifier.build(weatherPhenomenonTypes);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the cities, indexed by ordinal
+     */
+    public List<City> getCities() {
+        return cities;
+    }
+
+    /**
+     * @return the vehicle types, indexed by ordinal
+     */
+    public List<VehicleType> getVehicleTypes() {
+        return vehicleTypes;
+    }
+
+    public int getCityCount() {
+        return cities.size();
+    }
+
+    public int getVehicleTypeCount() {
+        return vehicleTypes.size();
+    }
+
+    /**
+     * Returns the ordinal of a city.
+     *
+     * @param name the name of the city
+     * @return     the ordinal, or -1 if the city is not found
+     */
+    public int cityOrdinal(String name) {
+        return cityIndex.ordinal(name, lenientMatching);
+    }
+
+    /**
+     * Returns the ordinal of a vehicle type.
+     *
+     * @param name the name of the vehicle type
+     * @return     the ordinal, or -1 if the vehicle type is not found
+     */
+    public int vehicleTypeOrdinal(String name) {
+        return vehicleTypeIndex.ordinal(name, lenientMatching);
+    }
+
+    /**
+     * @param name the name of the city
+     * @return     the city, or null if it is not found
+     */
+    public City findCity(String name) {
+        int ordinal = cityOrdinal(name);
+        return ordinal >= 0 ? cities.get(ordinal) : null;
+    }
+
+    /**
+     * @param name the name of the vehicle type
+     * @return     the vehicle type, or null if it is not found
+     */
+    public VehicleType findVehicleType(String name) {
+        int ordinal = vehicleTypeOrdinal(name);
+        return ordinal >= 0 ? vehicleTypes.get(ordinal) : null;
+    }
+
+    /**
+     * @return the classifier of the weather phenomena reported by the weather service
+     */
+    public WeatherPhenomenonClassifier getWeatherPhenomenonClassifier() {
+        return weatherPhenomenonClassifier;
+    }
+
+    /**
+     * Folds a name for lenient matching: strips diacritics and surrounding whitespace and lower-cases it.
+     *
+     * @param name the name to fold
+     * @return     the folded name
+     */
+    static String fold(String name) {
+        String decomposed = Normalizer.normalize(name.strip(), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Maps exact and folded names to ordinals. Folded names shared by several entries are left out.
+     */
+    private record NameIndex(Map<String, Integer> exact, Map<String, Integer> folded) {
+
+        static <T> NameIndex build(List<T> entries, Function<T, String> nameOf) {
+            Map<String, Integer> exact = new HashMap<>();
+            Map<String, Integer> folded = new HashMap<>();
+            Set<String> ambiguous = new HashSet<>();
+            for (int ordinal = 0; ordinal < entries.size(); ordinal++) {
+                String name = nameOf.apply(entries.get(ordinal));
+                if (name == null) {
+                    continue;
+                }
+                exact.putIfAbsent(name, ordinal);
+                if (folded.putIfAbsent(fold(name), ordinal) != null) {
+                    ambiguous.add(fold(name));
+                }
+            }
+            ambiguous.forEach(folded::remove);
+            return new NameIndex(Map.copyOf(exact), Map.copyOf(folded));
+        }
+
+        int ordinal(String name, boolean lenientMatching) {
+            if (name == null) {
+                return -1;
+            }
+            Integer ordinal = exact.get(name);
+            if (ordinal == null && lenientMatching) {
+                ordinal = folded.get(fold(name));
+            }
+            return ordinal != null ? ordinal : -1;
+        }
+    }
+}
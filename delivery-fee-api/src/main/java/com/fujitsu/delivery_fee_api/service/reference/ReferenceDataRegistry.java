@@ -0,0 +1,131 @@
+package com.fujitsu.delivery_fee_api.service.reference;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.fujitsu.delivery_fee_api.model.City;
+import com.fujitsu.delivery_fee_api.model.VehicleType;
+import com.fujitsu.delivery_fee_api.model.WeatherPhenomenonCategory;
+import com.fujitsu.delivery_fee_api.model.WeatherPhenomenonType;
+import com.fujitsu.delivery_fee_api.repository.CityRepository;
+import com.fujitsu.delivery_fee_api.repository.VehicleTypeRepository;
+import com.fujitsu.delivery_fee_api.repository.WeatherPhenomenonTypeRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the current {@link ReferenceData} and replaces it atomically whenever a city,
+ * vehicle type or weather phenomenon type is written.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReferenceDataRegistry {
+
+    @Value("${reference.lenient-matching:false}")
+    private boolean lenientMatching;
+
+    private final CityRepository cityRepository;
+    private final VehicleTypeRepository vehicleTypeRepository;
+    private final WeatherPhenomenonTypeRepository weatherPhenomenonTypeRepository;
+
+    private final AtomicReference<ReferenceData> current = new AtomicReference<>();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private long nextVersion = 1;
+
+    /**
+     * Returns the current reference data. Callers that resolve several names for one request
+     * should fetch it once, so all names are resolved against the same version.
+     *
+     * @return the current reference data
+     */
+    public ReferenceData getCurrent() {
+        ReferenceData referenceData = current.get();
+        return referenceData != null ? referenceData : refresh();
+    }
+
+    public City findCity(String name) {
+        return getCurrent().findCity(name);
+    }
+
+    public VehicleType findVehicleType(String name) {
+        return getCurrent().findVehicleType(name);
+    }
+
+    public WeatherPhenomenonCategory classifyWeatherPhenomenon(String phenomenon) {
+        return getCurrent().getWeatherPhenomenonClassifier().classify(phenomenon);
+    }
+
+    /**
+     * Stores a weather phenomenon type for every phenomenon that is not configured yet, classified by
+     * {@link WeatherPhenomenonClassifier#classify(String)}, and refreshes the reference data if any was stored.
+     * Called when weather data is saved, so fee calculations never meet an unrecorded phenomenon.
+     *
+     * @param phenomena the weather phenomena of the saved observations, may contain nulls
+     */
+    public void recordUnseenWeatherPhenomena(Collection<String> phenomena) {
+        WeatherPhenomenonClassifier classifier = getCurrent().getWeatherPhenomenonClassifier();
+        Map<String, String> unseen = new LinkedHashMap<>();
+        for (String phenomenon : phenomena) {
+            if (phenomenon != null && !phenomenon.isBlank() && !classifier.isKnown(phenomenon)) {
+                unseen.putIfAbsent(WeatherPhenomenonClassifier.normalize(phenomenon), phenomenon.strip());
+            }
+        }
+        if (unseen.isEmpty()) {
+            return;
+        }
+
+        refreshLock.lock();
+        try {
+            for (String phenomenon : unseen.values()) {
+                WeatherPhenomenonCategory category = classifier.classify(phenomenon);
+                weatherPhenomenonTypeRepository.save(new WeatherPhenomenonType(phenomenon, category));
+                log.info("Recorded new weather phenomenon '{}' as {}", phenomenon, category);
+            }
+            refresh();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    /**
+     * Reloads the reference data from the database and publishes it as a new version.
+     *
+     * @return the new reference data
+     */
+    public ReferenceData refresh() {
+        refreshLock.lock();
+        try {
+            List<City> cities = cityRepository.findAll().stream()
+                .sorted(Comparator.comparing(City::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+            List<VehicleType> vehicleTypes = vehicleTypeRepository.findAll().stream()
+                .sorted(Comparator.comparing(VehicleType::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+            ReferenceData referenceData = new ReferenceData(nextVersion++, lenientMatching, cities, vehicleTypes,
+                    weatherPhenomenonTypeRepository.findAll());
+            current.set(referenceData);
+            log.debug("Loaded reference data version {} with {} cities and {} vehicle types",
+                    referenceData.getVersion(), cities.size(), vehicleTypes.size());
+            return referenceData;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.fujitsu.delivery_fee_api.service.reference;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.fujitsu.delivery_fee_api.model.WeatherPhenomenonCategory;
+import com.fujitsu.delivery_fee_api.model.WeatherPhenomenonType;
+
+/**
+ * Immutable mapping of weather phenomenon strings, as reported by the weather service, to their extra fee category.
+ * <p>
+ * Every configured phenomenon is indexed by its exact string, by its normalized form (lower case, without diacritics,
+ * single spaces) and by its normalized form without an intensity prefix ("light", "moderate", "heavy"), so a known
+ * feed string is classified with a single hash probe. A phenomenon that is not configured is classified by keywords,
+ * e.g. anything mentioning snow or sleet is {@link WeatherPhenomenonCategory#SNOW_OR_SLEET}.
+ */
+public final class WeatherPhenomenonClassifier {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern INTENSITY_PREFIX = Pattern.compile("^(light|moderate|heavy) ");
+
+    private final Map<String, WeatherPhenomenonCategory> categories;
+    private final Set<String> knownPhenomena;
+
+    private WeatherPhenomenonClassifier(Map<String, WeatherPhenomenonCategory> categories, Set<String> knownPhenomena) {
+        this.categories = categories;
+        this.knownPhenomena = knownPhenomena;
+    }
+
+    /**
+     * Builds a classifier from the configured weather phenomenon types.
+     * A normalized form shared by phenomena of different categories is only matched by the exact strings.
+     *
+     * @param weatherPhenomenonTypes the configured weather phenomenon types
+     * @return                       the built classifier
+     */
+    static WeatherPhenomenonClassifier build(List<WeatherPhenomenonType> weatherPhenomenonTypes) {
+        Map<String, WeatherPhenomenonCategory> exact = new HashMap<>();
+        Map<String, WeatherPhenomenonCategory> normalized = new HashMap<>();
+        Set<String> conflicting = new HashSet<>();
+        Set<String> knownPhenomena = new HashSet<>();
+        for (WeatherPhenomenonType type : weatherPhenomenonTypes) {
+            if (type.getPhenomenon() == null || type.getCategory() == null) {
+                continue;
+            }
+            exact.putIfAbsent(type.getPhenomenon(), type.getCategory());
+            String normalizedPhenomenon = normalize(type.getPhenomenon());
+            knownPhenomena.add(normalizedPhenomenon);
+            for (String key : List.of(normalizedPhenomenon, stripIntensity(normalizedPhenomenon))) {
+                WeatherPhenomenonCategory previous = normalized.putIfAbsent(key, type.getCategory());
+                if (previous != null && previous != type.getCategory()) {
+                    conflicting.add(key);
+                }
+            }
+        }
+        conflicting.forEach(normalized::remove);
+        normalized.putAll(exact);
+        return new WeatherPhenomenonClassifier(Map.copyOf(normalized), Set.copyOf(knownPhenomena));
+    }
+
+    /**
+     * Classifies a weather phenomenon.
+     *
+     * @param phenomenon the weather phenomenon as reported by the weather service, may be null
+     * @return           the category, {@link WeatherPhenomenonCategory#NONE} for a missing phenomenon
+     */
+    public WeatherPhenomenonCategory classify(String phenomenon) {
+        if (phenomenon == null) {
+            return WeatherPhenomenonCategory.NONE;
+        }
+        WeatherPhenomenonCategory category = categories.get(phenomenon);
+        if (category != null) {
+            return category;
+        }
+        String normalizedPhenomenon = normalize(phenomenon);
+        category = categories.get(normalizedPhenomenon);
+        if (category != null) {
+            return category;
+        }
+        String withoutIntensity = stripIntensity(normalizedPhenomenon);
+        category = categories.get(withoutIntensity);
+        return category != null ? category : inferCategory(withoutIntensity);
+    }
+
+    /**
+     * Checks whether a weather phenomenon is configured, ignoring case, diacritics and whitespace.
+     *
+     * @param phenomenon the weather phenomenon as reported by the weather service
+     * @return           true if a weather phenomenon type exists for it
+     */
+    public boolean isKnown(String phenomenon) {
+        return phenomenon != null && (categories.containsKey(phenomenon) || knownPhenomena.contains(normalize(phenomenon)));
+    }
+
+    static String normalize(String phenomenon) {
+        return WHITESPACE.matcher(ReferenceData.fold(phenomenon)).replaceAll(" ");
+    }
+
+    private static String stripIntensity(String normalizedPhenomenon) {
+        return INTENSITY_PREFIX.matcher(normalizedPhenomenon).replaceFirst("");
+    }
+
+    // most severe category first, so e.g. "thunder with snow" is not classified as snow
+    private static WeatherPhenomenonCategory inferCategory(String normalizedPhenomenon) {
+        if (normalizedPhenomenon.contains("thunder") || normalizedPhenomenon.contains("glaze") || normalizedPhenomenon.contains("hail")) {
+            return WeatherPhenomenonCategory.THUNDER_GLAZE_OR_HAIL;
+        }
+        if (normalizedPhenomenon.contains("snow") || normalizedPhenomenon.contains("sleet")) {
+            return WeatherPhenomenonCategory.SNOW_OR_SLEET;
+        }
+        if (normalizedPhenomenon.contains("rain") || normalizedPhenomenon.contains("shower") || normalizedPhenomenon.contains("drizzle")) {
+            return WeatherPhenomenonCategory.RAIN;
+        }
+        return WeatherPhenomenonCategory.NONE;
+    }
+}
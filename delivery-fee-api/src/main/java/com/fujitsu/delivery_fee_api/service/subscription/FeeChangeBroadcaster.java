@@ -0,0 +1,312 @@
+package com.fujitsu.delivery_fee_api.service.subscription;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fujitsu.delivery_fee_api.dto.FeeChangeDTO;
+import com.fujitsu.delivery_fee_api.exception.NotFoundException;
+import com.fujitsu.delivery_fee_api.model.City;
+import com.fujitsu.delivery_fee_api.model.VehicleType;
+import com.fujitsu.delivery_fee_api.service.fee.FeeOutcome;
+import com.fujitsu.delivery_fee_api.service.matrix.FeeMatrix;
+import com.fujitsu.delivery_fee_api.service.matrix.FeeMatrixPublishedEvent;
+import com.fujitsu.delivery_fee_api.service.matrix.FeeMatrixService;
+import com.fujitsu.delivery_fee_api.service.reference.ReferenceData;
+import com.fujitsu.delivery_fee_api.service.reference.ReferenceDataRegistry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pushes changes of the current delivery fee to subscribers as server-sent events.
+ * <p>
+ * A subscriber names the city and vehicle type pairs it is interested in and first receives their current outcomes.
+ * Whenever the {@link FeeMatrixService} publishes a rebuilt matrix, after a weather import, a fee change or a reference
+ * data change, the outcomes of both matrices are compared and only pairs whose fee, status or message changed are sent.
+ * Changes of the observation timestamp or tariff version alone are not sent.
+ * <p>
+ * Events are queued per subscription and sent on virtual threads, one subscription at a time in queue order, so the
+ * thread publishing the matrix never writes to a subscriber. A subscription falling more than
+ * {@code fee.subscription.max-pending} events behind is dropped.
+ */
+@Slf4j
+@Component
+public class FeeChangeBroadcaster {
+
+    static final String EVENT_NAME = "fee";
+
+    @Value("${fee.subscription.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${fee.subscription.max-pending:1000}")
+    private int maxPendingEvents;
+
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final FeeMatrixService feeMatrixService;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock broadcastLock = new ReentrantLock();
+    private final ExecutorService sendExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong eventIds = new AtomicLong();
+    private final Counter sentEvents;
+
+    public FeeChangeBroadcaster(ReferenceDataRegistry referenceDataRegistry,
+                                FeeMatrixService feeMatrixService,
+                                MeterRegistry meterRegistry) {
+        this.referenceDataRegistry = referenceDataRegistry;
+        this.feeMatrixService = feeMatrixService;
+        this.sentEvents = Counter.builder("fee.subscriptions.events")
+            .description("Fee change events sent to subscribers")
+            .register(meterRegistry);
+        Gauge.builder("fee.subscriptions.active", subscriptions, Set::size)
+            .description("Open fee change subscriptions")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sendExecutor.shutdownNow();
+    }
+
+    /**
+     * Subscribes to the changes of every combination of the given cities and vehicle types.
+     * The current outcome of each combination is sent right away if the fee matrix has been built.
+     *
+     * @param cityNames         the names of the cities, null or empty for all cities
+     * @param vehicleTypeNames  the names of the vehicle types, null or empty for all vehicle types
+     * @return                  the emitter the events are sent to
+     * @throws NotFoundException if a city or vehicle type is not found
+     */
+    public SseEmitter subscribe(List<String> cityNames, List<String> vehicleTypeNames) {
+        ReferenceData referenceData = referenceDataRegistry.getCurrent();
+        List<String> cities = resolveCities(referenceData, cityNames);
+        List<String> vehicleTypes = resolveVehicleTypes(referenceData, vehicleTypeNames);
+
+        Set<Pair> pairs = new LinkedHashSet<>();
+        for (String city : cities) {
+            for (String vehicleType : vehicleTypes) {
+                pairs.add(new Pair(city, vehicleType));
+            }
+        }
+
+        Subscription subscription = new Subscription(new SseEmitter(timeoutMillis), pairs);
+        subscription.emitter.onCompletion(() -> subscriptions.remove(subscription));
+        subscription.emitter.onTimeout(() -> subscriptions.remove(subscription));
+        subscription.emitter.onError(e -> subscriptions.remove(subscription));
+
+        // registering and queuing the current outcomes under the lock keeps a concurrent change from being overtaken
+        broadcastLock.lock();
+        try {
+            subscriptions.add(subscription);
+            FeeMatrix matrix = feeMatrixService.getCurrentMatrix();
+            if (matrix != null) {
+                for (Pair pair : pairs) {
+                    FeeOutcome outcome = matrix.get(pair.city(), pair.vehicleType());
+                    if (outcome != null) {
+                        enqueue(subscription, toChange(pair, outcome));
+                    }
+                }
+            }
+        } finally {
+            broadcastLock.unlock();
+        }
+        log.debug("Subscribed to fee changes of {} city and vehicle type pairs", pairs.size());
+        return subscription.emitter;
+    }
+
+    /**
+     * @return the number of open subscriptions
+     */
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    @EventListener
+    public void onFeeMatrixPublished(FeeMatrixPublishedEvent event) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        Map<Pair, FeeChangeDTO> changes = findChanges(event.previous(), event.current());
+        if (changes.isEmpty()) {
+            return;
+        }
+        log.debug("Fee matrix changed for {} city and vehicle type pairs", changes.size());
+        // only queues the changes, the lock is never held while writing to a subscriber
+        broadcastLock.lock();
+        try {
+            for (Subscription subscription : subscriptions) {
+                for (Pair pair : subscription.pairs) {
+                    FeeChangeDTO change = changes.get(pair);
+                    if (change != null) {
+                        enqueue(subscription, change);
+                    }
+                }
+            }
+        } finally {
+            broadcastLock.unlock();
+        }
+    }
+
+    private static Map<Pair, FeeChangeDTO> findChanges(FeeMatrix previous, FeeMatrix current) {
+        Map<Pair, FeeChangeDTO> changes = new LinkedHashMap<>();
+        ReferenceData referenceData = current.getReferenceData();
+        List<City> cities = referenceData.getCities();
+        List<VehicleType> vehicleTypes = referenceData.getVehicleTypes();
+        for (int i = 0; i < cities.size(); i++) {
+            for (int j = 0; j < vehicleTypes.size(); j++) {
+                Pair pair = new Pair(cities.get(i).getName(), vehicleTypes.get(j).getName());
+                FeeOutcome outcome = current.get(i, j);
+                FeeOutcome previousOutcome = previous != null ? previous.get(pair.city(), pair.vehicleType()) : null;
+                if (outcome != null && !sameResult(previousOutcome, outcome)) {
+                    changes.put(pair, toChange(pair, outcome));
+                }
+            }
+        }
+        return changes;
+    }
+
+    private static boolean sameResult(FeeOutcome previous, FeeOutcome current) {
+        return previous != null
+                && previous.status() == current.status()
+                && previous.feeCents() == current.feeCents()
+                && Objects.equals(previous.message(), current.message());
+    }
+
+    private void enqueue(Subscription subscription, FeeChangeDTO change) {
+        if (subscription.pendingCount.incrementAndGet() > maxPendingEvents) {
+            log.debug("Dropping fee change subscription with more than {} pending events", maxPendingEvents);
+            subscriptions.remove(subscription);
+            subscription.pending.clear();
+            sendExecutor.execute(() -> subscription.emitter.completeWithError(
+                    new IllegalStateException("Too many pending fee change events")));
+            return;
+        }
+        subscription.pending.add(change);
+        scheduleDrain(subscription);
+    }
+
+    private void scheduleDrain(Subscription subscription) {
+        if (subscription.draining.compareAndSet(false, true)) {
+            try {
+                sendExecutor.execute(() -> drain(subscription));
+            } catch (RejectedExecutionException e) {
+                subscription.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        FeeChangeDTO change;
+        while ((change = subscription.pending.poll()) != null) {
+            subscription.pendingCount.decrementAndGet();
+            if (!send(subscription, change)) {
+                subscription.pending.clear();
+                return;
+            }
+        }
+        subscription.draining.set(false);
+        // a change queued after the last poll but before the flag was cleared would otherwise wait for the next one
+        if (!subscription.pending.isEmpty()) {
+            scheduleDrain(subscription);
+        }
+    }
+
+    private boolean send(Subscription subscription, FeeChangeDTO change) {
+        try {
+            subscription.emitter.send(SseEmitter.event()
+                .id(Long.toString(eventIds.incrementAndGet()))
+                .name(EVENT_NAME)
+                .data(change));
+            sentEvents.increment();
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping fee change subscription: {}", e.toString());
+            subscriptions.remove(subscription);
+            subscription.emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private static List<String> resolveCities(ReferenceData referenceData, List<String> cityNames) {
+        if (cityNames == null || cityNames.isEmpty()) {
+            return referenceData.getCities().stream().map(City::getName).toList();
+        }
+        List<String> cities = new ArrayList<>();
+        for (String cityName : cityNames) {
+            City city = referenceData.findCity(cityName);
+            if (city == null) {
+                throw new NotFoundException("City not found: " + cityName);
+            }
+            cities.add(city.getName());
+        }
+        return cities;
+    }
+
+    private static List<String> resolveVehicleTypes(ReferenceData referenceData, List<String> vehicleTypeNames) {
+        if (vehicleTypeNames == null || vehicleTypeNames.isEmpty()) {
+            return referenceData.getVehicleTypes().stream().map(VehicleType::getName).toList();
+        }
+        List<String> vehicleTypes = new ArrayList<>();
+        for (String vehicleTypeName : vehicleTypeNames) {
+            VehicleType vehicleType = referenceData.findVehicleType(vehicleTypeName);
+            if (vehicleType == null) {
+                throw new NotFoundException("Vehicle type not found: " + vehicleTypeName);
+            }
+            vehicleTypes.add(vehicleType.getName());
+        }
+        return vehicleTypes;
+    }
+
+    private static FeeChangeDTO toChange(Pair pair, FeeOutcome outcome) {
+        FeeChangeDTO change = new FeeChangeDTO();
+        change.setCity(pair.city());
+        change.setVehicleType(pair.vehicleType());
+        change.setStatus(outcome.status());
+        change.setFee(outcome.fee());
+        change.setMessage(outcome.message());
+        change.setObservationTimestamp(outcome.observationTimestamp());
+        change.setTariffVersion(outcome.tariffVersion());
+        return change;
+    }
+
+    private record Pair(String city, String vehicleType) {
+    }
+
+    private static final class Subscription {
+
+        private final SseEmitter emitter;
+        private final Set<Pair> pairs;
+        private final Queue<FeeChangeDTO> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscription(SseEmitter emitter, Set<Pair> pairs) {
+            this.emitter = emitter;
+            this.pairs = pairs;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.fujitsu.delivery_fee_api.service.tariff;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Lookup structure for banded fee rules of a single vehicle type, such as the air temperature
+ * and wind speed extra fees.
+ * <p>
+ * All band boundaries are kept in one sorted array which splits the value axis into
+ * alternating open and single point segments: {@code (-inf, b0), [b0], (b0, b1), [b1], ... (bn, +inf)}.
+ * Each segment stores the effective-date history of the rules covering it, so answering
+ * "which band applies to value X as of time T" takes two binary searches and allocates nothing.
+ * A null lower or upper band bound leaves that side of the band open.
+ */
+public final class RangeFeeIndex {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final float[] boundaries;
+    private final long[][] segmentEffectiveTimes;
+    private final TariffRule[][] segmentRules;
+
+    private RangeFeeIndex(float[] boundaries, long[][] segmentEffectiveTimes, TariffRule[][] segmentRules) {
+        this.boundaries = boundaries;
+        this.segmentEffectiveTimes = segmentEffectiveTimes;
+        this.segmentRules = segmentRules;
+    }
+
+    /**
+     * A rule together with the band of values it applies to.
+     *
+     * @param lowerBound  the inclusive lower bound, or null if the band is open downwards
+     * @param upperBound  the inclusive upper bound, or null if the band is open upwards
+     * @param rule        the rule applied within the band
+     */
+    public record Band(Float lowerBound, Float upperBound, TariffRule rule) {
+
+        boolean contains(double value) {
+            return (lowerBound == null || value >= lowerBound) && (upperBound == null || value <= upperBound);
+        }
+    }
+
+    /**
+     * Builds an index over the given bands. Bands without an effective date are ignored.
+     *
+     * @param bands the bands to index
+     * @return      the built index
+     */
+    public static RangeFeeIndex build(List<Band> bands) {
+        List<Band> effectiveBands = bands.stream()
+                .filter(band -> band.rule().effectiveDate() != null)
+                .sorted((a, b) -> TariffRule.EFFECTIVE_ORDER.compare(a.rule(), b.rule()))
+                .toList();
+
+        TreeSet<Float> distinctBoundaries = new TreeSet<>();
+        for (Band band : effectiveBands) {
+            if (band.lowerBound() != null) {
+                distinctBoundaries.add(normalize(band.lowerBound()));
+            }
+            if (band.upperBound() != null) {
+                distinctBoundaries.add(normalize(band.upperBound()));
+            }
+        }
+
+        float[] boundaries = new float[distinctBoundaries.size()];
+        int i = 0;
+        for (Float boundary : distinctBoundaries) {
+            boundaries[i++] = boundary;
+        }
+
+        int segmentCount = 2 * boundaries.length + 1;
+        long[][] segmentEffectiveTimes = new long[segmentCount][];
+        TariffRule[][] segmentRules = new TariffRule[segmentCount][];
+
+        for (int segment = 0; segment < segmentCount; segment++) {
+            double sample = sampleValue(boundaries, segment);
+            List<TariffRule> history = new ArrayList<>();
+            for (Band band : effectiveBands) {
+                if (band.contains(sample)) {
+                    history.add(band.rule());
+                }
+            }
+            segmentEffectiveTimes[segment] = history.stream()
+                    .mapToLong(rule -> toEffectiveTime(rule.effectiveDate()))
+                    .toArray();
+            segmentRules[segment] = history.toArray(TariffRule[]::new);
+        }
+
+        return new RangeFeeIndex(boundaries, segmentEffectiveTimes, segmentRules);
+    }
+
+    /**
+     * Finds the rule of the band containing the value that was the latest to become effective
+     * at or before the query time.
+     *
+     * @param value      the measured value, e.g. air temperature or wind speed
+     * @param queryTime  the time the rule has to be effective at
+     * @return           the applicable rule, or null if no band applies
+     */
+    public TariffRule find(float value, LocalDateTime queryTime) {
+        return find(value, toEffectiveTime(queryTime));
+    }
+
+    /**
+     * Same as {@link #find(float, LocalDateTime)} with the query time given as returned by
+     * {@link #toEffectiveTime(LocalDateTime)}.
+     */
+    public TariffRule find(float value, long queryEffectiveTime) {
+        if (Float.isNaN(value)) {
+            return null;
+        }
+        int segment = segmentOf(normalize(value));
+        long[] effectiveTimes = segmentEffectiveTimes[segment];
+
+        int low = 0;
+        int high = effectiveTimes.length - 1;
+        int latest = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (effectiveTimes[mid] <= queryEffectiveTime) {
+                latest = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return latest < 0 ? null : segmentRules[segment][latest];
+    }
+
+    /**
+     * @return the number of distinct band boundaries in the index
+     */
+    public int getBoundaryCount() {
+        return boundaries.length;
+    }
+
+    /**
+     * Converts a date time to the comparable value used for effective-date history,
+     * keeping nanosecond precision so it orders exactly like {@link LocalDateTime}.
+     *
+     * @param dateTime the date time to convert
+     * @return         nanoseconds since the epoch, treating the date time as UTC
+     */
+    public static long toEffectiveTime(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * NANOS_PER_SECOND + dateTime.getNano();
+    }
+
+    private int segmentOf(float value) {
+        int position = Arrays.binarySearch(boundaries, value);
+        return position >= 0 ? 2 * position + 1 : 2 * (-position - 1);
+    }
+
+    private static double sampleValue(float[] boundaries, int segment) {
+        if (boundaries.length == 0) {
+            return 0.0;
+        }
+        if (segment % 2 == 1) {
+            return boundaries[segment / 2];
+        }
+        int upper = segment / 2;
+        if (upper == 0) {
+            return boundaries[0] - 1.0;
+        }
+        if (upper == boundaries.length) {
+            return boundaries[boundaries.length - 1] + 1.0;
+        }
+        return ((double) boundaries[upper - 1] + boundaries[upper]) / 2.0;
+    }
+
+    // folds -0.0 into 0.0 so both land in the same segment
+    private static float normalize(float value) {
+        return value + 0.0f;
+    }
+}
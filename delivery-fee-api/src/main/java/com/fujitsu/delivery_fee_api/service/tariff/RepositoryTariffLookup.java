@@ -0,0 +1,71 @@
+package com.fujitsu.delivery_fee_api.service.tariff;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.fujitsu.delivery_fee_api.model.WeatherPhenomenonCategory;
+import com.fujitsu.delivery_fee_api.repository.AirTemperatureExtraFeeRepository;
+import com.fujitsu.delivery_fee_api.repository.RegionalBaseFeeRepository;
+import com.fujitsu.delivery_fee_api.repository.WeatherPhenomenonExtraFeeRepository;
+import com.fujitsu.delivery_fee_api.repository.WindSpeedExtraFeeRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Tariff lookup that queries the fee tables directly on every call.
+ * Used when the in-memory snapshot is disabled.
+ */
+@RequiredArgsConstructor
+class RepositoryTariffLookup implements TariffLookup {
+
+    private final long version;
+    private final RegionalBaseFeeRepository regionalBaseFeeRepository;
+    private final AirTemperatureExtraFeeRepository airTemperatureExtraFeeRepository;
+    private final WindSpeedExtraFeeRepository windSpeedExtraFeeRepository;
+    private final WeatherPhenomenonExtraFeeRepository weatherPhenomenonExtraFeeRepository;
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public Optional<TariffRule> findBaseFee(Long cityId, Long vehicleTypeId, LocalDateTime queryTime) {
+        return regionalBaseFeeRepository.findLatestBaseFee(cityId, vehicleTypeId, queryTime)
+            .map(TariffRule::of);
+    }
+
+    @Override
+    public Optional<TariffRule> findAirTemperatureExtraFee(Float airTemperature, Long vehicleTypeId, LocalDateTime queryTime) {
+        return airTemperatureExtraFeeRepository
+            .findLatestByTemperatureAndVehicleTypeAndQueryTime(airTemperature, vehicleTypeId, queryTime)
+            .map(TariffRule::of);
+    }
+
+    @Override
+    public Optional<TariffRule> findWindSpeedExtraFee(Float windSpeed, Long vehicleTypeId, LocalDateTime queryTime) {
+        return Optional.ofNullable(windSpeedExtraFeeRepository
+            .findLatestByWindSpeedAndVehicleTypeAndQueryTime(windSpeed, vehicleTypeId, queryTime))
+            .map(TariffRule::of);
+    }
+
+    @Override
+    public Optional<TariffRule> findWeatherPhenomenonExtraFee(WeatherPhenomenonCategory category, Long vehicleTypeId, LocalDateTime queryTime) {
+        return Optional.ofNullable(weatherPhenomenonExtraFeeRepository
+            .findLatestByPhenomenonCategoryVehicleTypeAndQueryTime(category, vehicleTypeId, queryTime))
+            .map(TariffRule::of);
+    }
+
+    @Override
+    public Optional<LocalDateTime> findNextEffectiveDate(LocalDateTime after) {
+        return Stream.of(
+                regionalBaseFeeRepository.findNextEffectiveDateAfter(after),
+                airTemperatureExtraFeeRepository.findNextEffectiveDateAfter(after),
+                windSpeedExtraFeeRepository.findNextEffectiveDateAfter(after),
+                weatherPhenomenonExtraFeeRepository.findNextEffectiveDateAfter(after))
+            .filter(Objects::nonNull)
+            .min(LocalDateTime::compareTo);
+    }
+}
@@ -0,0 +1,9 @@
+package com.fujitsu.delivery_fee_api.service.tariff;
+
+/**
+ * Published by the fee services after a fee table has been written.
+ *
+ * @param feeTable the name of the fee table that was changed
+ */
+public record TariffChangedEvent(String feeTable) {
+}
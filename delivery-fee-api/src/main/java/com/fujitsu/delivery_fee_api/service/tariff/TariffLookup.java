@@ -0,0 +1,35 @@
+package com.fujitsu.delivery_fee_api.service.tariff;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import com.fujitsu.delivery_fee_api.model.WeatherPhenomenonCategory;
+
+/**
+ * Read access to one version of the fee tables.
+ * Every lookup returns the latest rule effective at or before the given query time.
+ */
+public interface TariffLookup {
+
+    /**
+     * @return the version of the tariff this lookup reads from
+     */
+    long getVersion();
+
+    Optional<TariffRule> findBaseFee(Long cityId, Long vehicleTypeId, LocalDateTime queryTime);
+
+    Optional<TariffRule> findAirTemperatureExtraFee(Float airTemperature, Long vehicleTypeId, LocalDateTime queryTime);
+
+    Optional<TariffRule> findWindSpeedExtraFee(Float windSpeed, Long vehicleTypeId, LocalDateTime queryTime);
+
+    Optional<TariffRule> findWeatherPhenomenonExtraFee(WeatherPhenomenonCategory category, Long vehicleTypeId, LocalDateTime queryTime);
+
+    /**
+     * Finds the first point in time after the given one at which a rule becomes effective,
+     * i.e. until when fees calculated at the given time stay valid.
+     *
+     * @param after the time to search from, exclusive
+     * @return      the next effective date, or an empty Optional if no rule becomes effective later
+     */
+    Optional<LocalDateTime> findNextEffectiveDate(LocalDateTime after);
+}
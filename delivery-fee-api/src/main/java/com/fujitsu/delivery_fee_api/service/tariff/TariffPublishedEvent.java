@@ -0,0 +1,9 @@
+package com.fujitsu.delivery_fee_api.service.tariff;
+
+/**
+ * Published by {@link TariffSnapshotService} after a new tariff version has been made current.
+ *
+ * @param version the version of the published tariff
+ */
+public record TariffPublishedEvent(long version) {
+}
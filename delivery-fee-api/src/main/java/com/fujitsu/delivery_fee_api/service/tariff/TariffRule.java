@@ -0,0 +1,62 @@
+package com.fujitsu.delivery_fee_api.service.tariff;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+import com.fujitsu.delivery_fee_api.model.fee_tables.AirTemperatureExtraFee;
+import com.fujitsu.delivery_fee_api.model.fee_tables.RegionalBaseFee;
+import com.fujitsu.delivery_fee_api.model.fee_tables.WeatherPhenomenonExtraFee;
+import com.fujitsu.delivery_fee_api.model.fee_tables.WindSpeedExtraFee;
+import com.fujitsu.delivery_fee_api.util.MoneyUtils;
+
+/**
+ * Immutable view of a single fee table row as seen by the fee calculators.
+ *
+ * @param id             the ID of the fee table row
+ * @param fee            the fee amount, may be null for forbidden rows
+ * @param forbidden      whether the row forbids usage of the vehicle type
+ * @param effectiveDate  the date and time from which the row is effective
+ * @param feeCents       the fee amount in cents, 0 if the fee is null
+ */
+public record TariffRule(Long id, BigDecimal fee, boolean forbidden, LocalDateTime effectiveDate, long feeCents) {
+
+    /**
+     * Orders rules from the oldest to the newest effective date, rows with a higher ID winning ties.
+     */
+    public static final Comparator<TariffRule> EFFECTIVE_ORDER = Comparator
+            .comparing(TariffRule::effectiveDate)
+            .thenComparing(TariffRule::id, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    public TariffRule(Long id, BigDecimal fee, boolean forbidden, LocalDateTime effectiveDate) {
+        this(id, fee, forbidden, effectiveDate, MoneyUtils.toCents(fee));
+    }
+
+    public static TariffRule of(RegionalBaseFee baseFee) {
+        return new TariffRule(baseFee.getId(), baseFee.getBaseFee(), false, baseFee.getEffectiveDate());
+    }
+
+    public static TariffRule of(AirTemperatureExtraFee extraFee) {
+        return new TariffRule(extraFee.getId(), extraFee.getExtraFee(), false, extraFee.getEffectiveDate());
+    }
+
+    public static TariffRule of(WindSpeedExtraFee extraFee) {
+        return new TariffRule(extraFee.getId(), extraFee.getExtraFee(),
+                Boolean.TRUE.equals(extraFee.getForbidden()), extraFee.getEffectiveDate());
+    }
+
+    public static TariffRule of(WeatherPhenomenonExtraFee extraFee) {
+        return new TariffRule(extraFee.getId(), extraFee.getExtraFee(),
+                Boolean.TRUE.equals(extraFee.getForbidden()), extraFee.getEffectiveDate());
+    }
+
+    /**
+     * Checks whether the rule is already effective at the given time.
+     *
+     * @param queryTime the time to check against
+     * @return true if the effective date is at or before the query time
+     */
+    public boolean isEffectiveAt(LocalDateTime queryTime) {
+        return !effectiveDate.isAfter(queryTime);
+    }
+}
@@ -0,0 +1,191 @@
+package com.fujitsu.delivery_fee_api.service.tariff;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.fujitsu.delivery_fee_api.model.VehicleType;
+import com.fujitsu.delivery_fee_api.model.WeatherPhenomenonCategory;
+import com.fujitsu.delivery_fee_api.model.fee_tables.AirTemperatureExtraFee;
+import com.fujitsu.delivery_fee_api.model.fee_tables.RegionalBaseFee;
+import com.fujitsu.delivery_fee_api.model.fee_tables.WeatherPhenomenonExtraFee;
+import com.fujitsu.delivery_fee_api.model.fee_tables.WindSpeedExtraFee;
+
+/**
+ * Immutable, versioned in-memory copy of the fee tables.
+ * A snapshot is never modified after it has been built, so a request that holds on to
+ * one snapshot sees the same tariff version in every calculator.
+ */
+public final class TariffSnapshot implements TariffLookup {
+
+    private final long version;
+    private final Map<BaseFeeKey, List<TariffRule>> baseFees;
+    private final Map<Long, RangeFeeIndex> airTemperatureFees;
+    private final Map<Long, RangeFeeIndex> windSpeedFees;
+    private final Map<Long, Map<WeatherPhenomenonCategory, List<TariffRule>>> weatherPhenomenonFees;
+    private final NavigableSet<LocalDateTime> effectiveDates;
+
+    private TariffSnapshot(long version,
+                           Map<BaseFeeKey, List<TariffRule>> baseFees,
+                           Map<Long, RangeFeeIndex> airTemperatureFees,
+                           Map<Long, RangeFeeIndex> windSpeedFees,
+                           Map<Long, Map<WeatherPhenomenonCategory, List<TariffRule>>> weatherPhenomenonFees,
+                           NavigableSet<LocalDateTime> effectiveDates) {
+        this.version = version;
+        this.baseFees = baseFees;
+        this.airTemperatureFees = airTemperatureFees;
+        this.windSpeedFees = windSpeedFees;
+        this.weatherPhenomenonFees = weatherPhenomenonFees;
+        this.effectiveDates = effectiveDates;
+    }
+
+    /**
+     * Builds a snapshot from the given fee table rows.
+     * Base fees are taken regardless of their active flag, extra fees are expected to be active rows only,
+     * matching the filters of the repository queries.
+     *
+     * @param version                 the version assigned to the snapshot
+     * @param baseFees                the regional base fee rows
+     * @param airTemperatureFees      the active air temperature extra fee rows
+     * @param windSpeedFees           the active wind speed extra fee rows
+     * @param weatherPhenomenonFees   the active weather phenomenon extra fee rows
+     * @return                        the built snapshot
+     */
+    public static TariffSnapshot build(long version,
+                                       List<RegionalBaseFee> baseFees,
+                                       List<AirTemperatureExtraFee> airTemperatureFees,
+                                       List<WindSpeedExtraFee> windSpeedFees,
+                                       List<WeatherPhenomenonExtraFee> weatherPhenomenonFees) {
+        Map<BaseFeeKey, List<TariffRule>> baseFeeIndex = new HashMap<>();
+        for (RegionalBaseFee baseFee : baseFees) {
+            if (baseFee.getCity() == null || baseFee.getVehicleType() == null || baseFee.getEffectiveDate() == null) {
+                continue;
+            }
+            BaseFeeKey key = new BaseFeeKey(baseFee.getCity().getId(), baseFee.getVehicleType().getId());
+            baseFeeIndex.computeIfAbsent(key, k -> new ArrayList<>()).add(TariffRule.of(baseFee));
+        }
+
+        Map<Long, List<RangeFeeIndex.Band>> airTemperatureBands = new HashMap<>();
+        for (AirTemperatureExtraFee extraFee : airTemperatureFees) {
+            RangeFeeIndex.Band band = new RangeFeeIndex.Band(extraFee.getMinTemp(), extraFee.getMaxTemp(), TariffRule.of(extraFee));
+            addPerVehicle(airTemperatureBands, extraFee.getApplicableVehicles(), extraFee.getEffectiveDate(), band);
+        }
+
+        Map<Long, List<RangeFeeIndex.Band>> windSpeedBands = new HashMap<>();
+        for (WindSpeedExtraFee extraFee : windSpeedFees) {
+            RangeFeeIndex.Band band = new RangeFeeIndex.Band(extraFee.getMinSpeed(), extraFee.getMaxSpeed(), TariffRule.of(extraFee));
+            addPerVehicle(windSpeedBands, extraFee.getApplicableVehicles(), extraFee.getEffectiveDate(), band);
+        }
+
+        Map<Long, Map<WeatherPhenomenonCategory, List<TariffRule>>> phenomenonIndex = new HashMap<>();
+        for (WeatherPhenomenonExtraFee extraFee : weatherPhenomenonFees) {
+            if (extraFee.getEffectiveDate() == null || extraFee.getPhenomenonCategory() == null
+                    || extraFee.getApplicableVehicles() == null) {
+                continue;
+            }
+            TariffRule rule = TariffRule.of(extraFee);
+            for (VehicleType vehicleType : extraFee.getApplicableVehicles()) {
+                phenomenonIndex
+                    .computeIfAbsent(vehicleType.getId(), k -> new EnumMap<>(WeatherPhenomenonCategory.class))
+                    .computeIfAbsent(extraFee.getPhenomenonCategory(), k -> new ArrayList<>())
+                    .add(rule);
+            }
+        }
+
+        baseFeeIndex.replaceAll((key, rules) -> sorted(rules));
+        phenomenonIndex.values().forEach(byCategory -> byCategory.replaceAll((key, rules) -> sorted(rules)));
+
+        NavigableSet<LocalDateTime> effectiveDates = new TreeSet<>();
+        baseFeeIndex.values().forEach(rules -> rules.forEach(rule -> effectiveDates.add(rule.effectiveDate())));
+        airTemperatureBands.values().forEach(bands -> bands.forEach(band -> effectiveDates.add(band.rule().effectiveDate())));
+        windSpeedBands.values().forEach(bands -> bands.forEach(band -> effectiveDates.add(band.rule().effectiveDate())));
+        phenomenonIndex.values().forEach(byCategory -> byCategory.values()
+                .forEach(rules -> rules.forEach(rule -> effectiveDates.add(rule.effectiveDate()))));
+
+        return new TariffSnapshot(version, baseFeeIndex, indexPerVehicle(airTemperatureBands),
+                indexPerVehicle(windSpeedBands), phenomenonIndex, Collections.unmodifiableNavigableSet(effectiveDates));
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public Optional<TariffRule> findBaseFee(Long cityId, Long vehicleTypeId, LocalDateTime queryTime) {
+        return latestEffective(baseFees.get(new BaseFeeKey(cityId, vehicleTypeId)), queryTime);
+    }
+
+    @Override
+    public Optional<TariffRule> findAirTemperatureExtraFee(Float airTemperature, Long vehicleTypeId, LocalDateTime queryTime) {
+        return latestEffectiveInRange(airTemperatureFees.get(vehicleTypeId), airTemperature, queryTime);
+    }
+
+    @Override
+    public Optional<TariffRule> findWindSpeedExtraFee(Float windSpeed, Long vehicleTypeId, LocalDateTime queryTime) {
+        return latestEffectiveInRange(windSpeedFees.get(vehicleTypeId), windSpeed, queryTime);
+    }
+
+    @Override
+    public Optional<TariffRule> findWeatherPhenomenonExtraFee(WeatherPhenomenonCategory category, Long vehicleTypeId, LocalDateTime queryTime) {
+        Map<WeatherPhenomenonCategory, List<TariffRule>> byCategory = weatherPhenomenonFees.get(vehicleTypeId);
+        return byCategory == null ? Optional.empty() : latestEffective(byCategory.get(category), queryTime);
+    }
+
+    @Override
+    public Optional<LocalDateTime> findNextEffectiveDate(LocalDateTime after) {
+        return Optional.ofNullable(effectiveDates.higher(after));
+    }
+
+    private static Optional<TariffRule> latestEffective(List<TariffRule> rules, LocalDateTime queryTime) {
+        if (rules == null) {
+            return Optional.empty();
+        }
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            TariffRule rule = rules.get(i);
+            if (rule.isEffectiveAt(queryTime)) {
+                return Optional.of(rule);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<TariffRule> latestEffectiveInRange(RangeFeeIndex index, Float value, LocalDateTime queryTime) {
+        if (index == null || value == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(index.find(value, queryTime));
+    }
+
+    private static void addPerVehicle(Map<Long, List<RangeFeeIndex.Band>> bandsPerVehicle, Set<VehicleType> vehicles,
+                                      LocalDateTime effectiveDate, RangeFeeIndex.Band band) {
+        if (vehicles == null || effectiveDate == null) {
+            return;
+        }
+        for (VehicleType vehicleType : vehicles) {
+            bandsPerVehicle.computeIfAbsent(vehicleType.getId(), k -> new ArrayList<>()).add(band);
+        }
+    }
+
+    private static Map<Long, RangeFeeIndex> indexPerVehicle(Map<Long, List<RangeFeeIndex.Band>> bandsPerVehicle) {
+        Map<Long, RangeFeeIndex> index = new HashMap<>();
+        bandsPerVehicle.forEach((vehicleTypeId, bands) -> index.put(vehicleTypeId, RangeFeeIndex.build(bands)));
+        return index;
+    }
+
+    private static List<TariffRule> sorted(List<TariffRule> rules) {
+        rules.sort(TariffRule.EFFECTIVE_ORDER);
+        return Collections.unmodifiableList(rules);
+    }
+
+    private record BaseFeeKey(Long cityId, Long vehicleTypeId) {
+    }
+}
@@ -0,0 +1,116 @@
+package com.fujitsu.delivery_fee_api.service.tariff;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fujitsu.delivery_fee_api.repository.AirTemperatureExtraFeeRepository;
+import com.fujitsu.delivery_fee_api.repository.RegionalBaseFeeRepository;
+import com.fujitsu.delivery_fee_api.repository.WeatherPhenomenonExtraFeeRepository;
+import com.fujitsu.delivery_fee_api.repository.WindSpeedExtraFeeRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the currently published tariff and swaps it atomically whenever a fee table changes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TariffSnapshotService {
+
+    @Value("${tariff.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    private final RegionalBaseFeeRepository regionalBaseFeeRepository;
+    private final AirTemperatureExtraFeeRepository airTemperatureExtraFeeRepository;
+    private final WindSpeedExtraFeeRepository windSpeedExtraFeeRepository;
+    private final WeatherPhenomenonExtraFeeRepository weatherPhenomenonExtraFeeRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicReference<TariffSnapshot> currentSnapshot = new AtomicReference<>();
+    private final AtomicLong tariffVersion = new AtomicLong();
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    /**
+     * Returns the tariff that a single fee calculation should read from.
+     * Callers are expected to fetch it once per request and pass it on to every calculator.
+     *
+     * @return the published snapshot, or a repository backed lookup if the snapshot is disabled
+     */
+    public TariffLookup getCurrentTariff() {
+        if (!snapshotEnabled) {
+            return new RepositoryTariffLookup(tariffVersion.get(), regionalBaseFeeRepository,
+                    airTemperatureExtraFeeRepository, windSpeedExtraFeeRepository, weatherPhenomenonExtraFeeRepository);
+        }
+        TariffSnapshot snapshot = currentSnapshot.get();
+        return snapshot != null ? snapshot : publishNewVersion();
+    }
+
+    /**
+     * @return the version of the currently published tariff
+     */
+    public long getCurrentVersion() {
+        return tariffVersion.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        publishNewVersion();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTariffChanged(TariffChangedEvent event) {
+        log.debug("Fee table {} changed, rebuilding tariff snapshot", event.feeTable());
+        publishNewVersion();
+    }
+
+    /**
+     * Reloads the fee tables and publishes them as a new tariff version.
+     * A {@link TariffPublishedEvent} is sent once the new version is current.
+     *
+     * @return the newly published snapshot, or null if the snapshot is disabled
+     */
+    public TariffSnapshot publishNewVersion() {
+        long version;
+        TariffSnapshot snapshot;
+        publishLock.lock();
+        try {
+            version = tariffVersion.get() + 1;
+            snapshot = snapshotEnabled ? loadSnapshot(version) : null;
+            currentSnapshot.set(snapshot);
+            tariffVersion.set(version);
+            log.info("Published tariff version {}", version);
+        } finally {
+            publishLock.unlock();
+        }
+        eventPublisher.publishEvent(new TariffPublishedEvent(version));
+        return snapshot;
+    }
+
+    private TariffSnapshot loadSnapshot(long version) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setReadOnly(true);
+
+        return transactionTemplate.execute(status -> TariffSnapshot.build(
+                version,
+                regionalBaseFeeRepository.findAll(),
+                airTemperatureExtraFeeRepository.findAllActiveWithVehicles(),
+                windSpeedExtraFeeRepository.findAllActiveWithVehicles(),
+                weatherPhenomenonExtraFeeRepository.findAllActiveWithVehicles()));
+    }
+}
@@ -0,0 +1,203 @@
+package com.fujitsu.delivery_fee_api.service.timeline;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fujitsu.delivery_fee_api.dto.FeeTimelineEntryDTO;
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+import com.fujitsu.delivery_fee_api.exception.InvalidRequestException;
+import com.fujitsu.delivery_fee_api.exception.NotFoundException;
+import com.fujitsu.delivery_fee_api.mapper.WeatherDataMapper;
+import com.fujitsu.delivery_fee_api.model.City;
+import com.fujitsu.delivery_fee_api.model.VehicleType;
+import com.fujitsu.delivery_fee_api.model.WeatherData;
+import com.fujitsu.delivery_fee_api.repository.WeatherDataRepository;
+import com.fujitsu.delivery_fee_api.service.DeliveryFeeCalculationService;
+import com.fujitsu.delivery_fee_api.service.fee.FeeOutcome;
+import com.fujitsu.delivery_fee_api.service.reference.ReferenceData;
+import com.fujitsu.delivery_fee_api.service.reference.ReferenceDataRegistry;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffLookup;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffSnapshotService;
+import com.fujitsu.delivery_fee_api.util.TimeUtils;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Calculates how the delivery fee of a city and vehicle type changed over a time range.
+ * <p>
+ * The fee can only change when a new weather observation arrives or a fee rule becomes effective.
+ * The observations of the range are streamed from the database in timestamp order and merged with the
+ * effective dates of the tariff, so the fee is recalculated only at these change points and an entry is
+ * emitted only when the outcome differs from the previous one. Time is linear in the number of change
+ * points and memory does not grow with the length of the range.
+ */
+@Service
+@RequiredArgsConstructor
+public class FeeTimelineService {
+
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final WeatherDataRepository weatherDataRepository;
+    private final WeatherDataMapper weatherDataMapper;
+    private final DeliveryFeeCalculationService deliveryFeeCalculationService;
+    private final TariffSnapshotService tariffSnapshotService;
+    private final TimeUtils timeUtils;
+    private final EntityManager entityManager;
+
+    /**
+     * A validated timeline request.
+     *
+     * @param city         the city
+     * @param vehicleType  the vehicle type
+     * @param from         the start of the range, inclusive
+     * @param to           the end of the range, inclusive
+     */
+    public record TimelineRange(City city, VehicleType vehicleType, LocalDateTime from, LocalDateTime to) {
+    }
+
+    /**
+     * Resolves and validates a timeline request before any entry is streamed.
+     *
+     * @param cityName         the name of the city
+     * @param vehicleTypeName  the name of the vehicle type
+     * @param from             the start of the range, inclusive
+     * @param to               the end of the range, inclusive
+     * @return                 the validated request
+     * @throws NotFoundException       if the city or vehicle type is not found
+     * @throws InvalidRequestException if the range ends before it starts
+     */
+    public TimelineRange resolve(String cityName, String vehicleTypeName, LocalDateTime from, LocalDateTime to) {
+        if (from.isAfter(to)) {
+            throw new InvalidRequestException("Timeline start " + from + " is after its end " + to);
+        }
+        ReferenceData referenceData = referenceDataRegistry.getCurrent();
+        City city = referenceData.findCity(cityName);
+        if (city == null) {
+            throw new NotFoundException("City not found: " + cityName);
+        }
+        VehicleType vehicleType = referenceData.findVehicleType(vehicleTypeName);
+        if (vehicleType == null) {
+            throw new NotFoundException("Vehicle type not found: " + vehicleTypeName);
+        }
+        return new TimelineRange(city, vehicleType, from, to);
+    }
+
+    /**
+     * Passes every change of the fee within the range to the sink, in time order.
+     * The first entry is valid from the start of the range, every entry is valid until the next one.
+     *
+     * @param range  the validated timeline request
+     * @param sink   the consumer receiving the entries
+     */
+    @Transactional(readOnly = true)
+    public void stream(TimelineRange range, Consumer<FeeTimelineEntryDTO> sink) {
+        TariffLookup tariff = tariffSnapshotService.getCurrentTariff();
+        int wmoCode = range.city().getWmoCode();
+        int fromEpochSeconds = timeUtils.convertToEpochSeconds(range.from());
+        int toEpochSeconds = timeUtils.convertToEpochSeconds(range.to());
+
+        Sweep sweep = new Sweep(range, tariff, sink);
+        WeatherDataDTO initial = weatherDataRepository.findLatestByWMOCodeAsOfOpt(wmoCode, fromEpochSeconds)
+            .map(weatherDataMapper::toDto)
+            .orElse(null);
+        sweep.advance(range.from(), initial, true);
+
+        LocalDateTime nextTariffChange = nextTariffChange(tariff, range.from(), range.to());
+        try (Stream<WeatherData> observations = weatherDataRepository.streamByWMOCodeBetween(wmoCode, fromEpochSeconds, toEpochSeconds)) {
+            Iterator<WeatherData> iterator = observations.iterator();
+            while (iterator.hasNext()) {
+                WeatherData row = iterator.next();
+                WeatherDataDTO observation = weatherDataMapper.toDto(row);
+                // keeps the persistence context from growing with the range
+                entityManager.detach(row);
+                LocalDateTime observedAt = timeUtils.convertToLocalDateTime(observation.getObservationTimestamp());
+
+                while (nextTariffChange != null && nextTariffChange.isBefore(observedAt)) {
+                    sweep.advance(nextTariffChange, sweep.weatherData, true);
+                    nextTariffChange = nextTariffChange(tariff, nextTariffChange, range.to());
+                }
+                boolean tariffChanged = observedAt.equals(nextTariffChange);
+                if (tariffChanged) {
+                    nextTariffChange = nextTariffChange(tariff, nextTariffChange, range.to());
+                }
+                sweep.advance(observedAt, observation, tariffChanged);
+            }
+        }
+        while (nextTariffChange != null) {
+            sweep.advance(nextTariffChange, sweep.weatherData, true);
+            nextTariffChange = nextTariffChange(tariff, nextTariffChange, range.to());
+        }
+    }
+
+    private static LocalDateTime nextTariffChange(TariffLookup tariff, LocalDateTime after, LocalDateTime to) {
+        return tariff.findNextEffectiveDate(after)
+            .filter(effectiveDate -> !effectiveDate.isAfter(to))
+            .orElse(null);
+    }
+
+    private static boolean sameInputs(WeatherDataDTO previous, WeatherDataDTO current) {
+        if (previous == null || current == null) {
+            return previous == current;
+        }
+        return Objects.equals(previous.getAirTemperature(), current.getAirTemperature())
+            && Objects.equals(previous.getWindSpeed(), current.getWindSpeed())
+            && Objects.equals(previous.getWeatherPhenomenon(), current.getWeatherPhenomenon());
+    }
+
+    private static boolean sameOutcome(FeeOutcome previous, FeeOutcome current) {
+        return previous.status() == current.status()
+            && previous.feeCents() == current.feeCents()
+            && Objects.equals(previous.message(), current.message());
+    }
+
+    /**
+     * State of the sweep over the change points of one timeline.
+     */
+    private final class Sweep {
+
+        private final TimelineRange range;
+        private final TariffLookup tariff;
+        private final Consumer<FeeTimelineEntryDTO> sink;
+        private WeatherDataDTO weatherData;
+        private FeeOutcome lastOutcome;
+
+        Sweep(TimelineRange range, TariffLookup tariff, Consumer<FeeTimelineEntryDTO> sink) {
+            this.range = range;
+            this.tariff = tariff;
+            this.sink = sink;
+        }
+
+        void advance(LocalDateTime time, WeatherDataDTO current, boolean tariffChanged) {
+            boolean weatherChanged = !sameInputs(weatherData, current);
+            weatherData = current;
+            if (!weatherChanged && !tariffChanged) {
+                return;
+            }
+
+            FeeOutcome outcome = current == null
+                ? FeeOutcome.notFound("Weather data not found for city: " + range.city().getName(), null, tariff.getVersion())
+                : deliveryFeeCalculationService.calculateFeeOutcome(range.city(), range.vehicleType(), current, time, tariff);
+            if (lastOutcome != null && sameOutcome(lastOutcome, outcome)) {
+                return;
+            }
+            lastOutcome = outcome;
+            sink.accept(toEntry(time, outcome));
+        }
+
+        private static FeeTimelineEntryDTO toEntry(LocalDateTime validFrom, FeeOutcome outcome) {
+            FeeTimelineEntryDTO entry = new FeeTimelineEntryDTO();
+            entry.setValidFrom(validFrom);
+            entry.setStatus(outcome.status());
+            entry.setFee(outcome.fee());
+            entry.setMessage(outcome.message());
+            entry.setObservationTimestamp(outcome.observationTimestamp());
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.fujitsu.delivery_fee_api.service.trace;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Structured record of a single fee calculation, kept in memory by the {@link CalculationTraceRecorder}.
+ *
+ * @param sequence              the position of the trace in the order traces were recorded
+ * @param startedAt             the time the calculation started
+ * @param city                  the name of the city
+ * @param vehicleType           the name of the vehicle type
+ * @param dateTime              the date and time the fee rules had to be effective at
+ * @param weatherDataId         the ID of the weather observation used, may be null
+ * @param observationTimestamp  the timestamp of the weather observation used, may be null
+ * @param tariffVersion         the version of the tariff the fee was calculated with
+ * @param components            the fee components found before the calculation completed or failed, ending with the
+ *                              component that forbade the vehicle type if the outcome is {@link Outcome#FORBIDDEN}
+ * @param totalFee              the total fee, null unless the outcome is {@link Outcome#OK}
+ * @param outcome               the outcome of the calculation
+ * @param message               the error message, null if the outcome is {@link Outcome#OK}
+ * @param durationMicros        the duration of the calculation in microseconds
+ * @param captureReason         why the trace was kept
+ */
+public record CalculationTrace(long sequence,
+                               Instant startedAt,
+                               String city,
+                               String vehicleType,
+                               LocalDateTime dateTime,
+                               Long weatherDataId,
+                               Integer observationTimestamp,
+                               long tariffVersion,
+                               List<FeeComponent> components,
+                               BigDecimal totalFee,
+                               Outcome outcome,
+                               String message,
+                               long durationMicros,
+                               CaptureReason captureReason) {
+
+    public enum Outcome {
+        OK,
+        FORBIDDEN,
+        NOT_FOUND,
+        ERROR
+    }
+
+    public enum CaptureReason {
+        SAMPLED,
+        SLOW,
+        FAILED
+    }
+
+    /**
+     * A single component of the total fee.
+     *
+     * @param name    the name of the component, e.g. the calculator that produced it
+     * @param ruleId  the ID of the fee table row applied, null if no rule applied
+     * @param fee     the fee of the component
+     */
+    public record FeeComponent(String name, Long ruleId, BigDecimal fee) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.fujitsu.delivery_fee_api.service.trace;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+import com.fujitsu.delivery_fee_api.model.City;
+import com.fujitsu.delivery_fee_api.model.VehicleType;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffLookup;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffRule;
+import com.fujitsu.delivery_fee_api.util.MoneyUtils;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Keeps the most recent fee calculation traces in a bounded ring buffer.
+ * <p>
+ * A configurable share of calculations is sampled; calculations that are slow, forbidden or fail are always kept.
+ * Recording never locks: each trace claims the next sequence number and overwrites the oldest slot,
+ * readers skip slots that have been overwritten since they read the sequence.
+ */
+@Component
+public class CalculationTraceRecorder {
+
+    @Value("${trace.enabled:true}")
+    private boolean enabled;
+
+    @Value("${trace.sample-rate:0.01}")
+    private double sampleRate;
+
+    @Value("${trace.slow-threshold-ms:100}")
+    private long slowThresholdMillis;
+
+    @Value("${trace.buffer-size:1024}")
+    private int bufferSize;
+
+    private final AtomicLong nextSequence = new AtomicLong();
+    private AtomicReferenceArray<CalculationTrace> slots;
+    private int mask;
+    private long slowThresholdNanos;
+
+    @PostConstruct
+    void init() {
+        int capacity = Integer.highestOneBit(Math.max(1, bufferSize - 1)) << 1;
+        slots = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+        slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+
+    /**
+     * Starts recording a fee calculation.
+     *
+     * @param city         the city
+     * @param vehicleType  the vehicle type
+     * @param weatherData  the weather observation the fee is calculated from
+     * @param dateTime     the date and time the fee rules have to be effective at
+     * @param tariff       the tariff the fee is calculated with
+     * @return             the recording to add the fee components and the outcome to
+     */
+    public Recording start(City city, VehicleType vehicleType, WeatherDataDTO weatherData, LocalDateTime dateTime, TariffLookup tariff) {
+        return new Recording(city.getName(), vehicleType.getName(), dateTime,
+                weatherData.getId(), weatherData.getObservationTimestamp(), tariff.getVersion());
+    }
+
+    /**
+     * Returns the most recently recorded traces, newest first.
+     *
+     * @param limit  the maximum number of traces to return
+     * @return       the recorded traces
+     */
+    public List<CalculationTrace> getRecent(int limit) {
+        List<CalculationTrace> traces = new ArrayList<>(Math.min(Math.max(limit, 0), slots.length()));
+        long newest = nextSequence.get() - 1;
+        long oldest = Math.max(0, newest - slots.length() + 1);
+        for (long sequence = newest; sequence >= oldest && traces.size() < limit; sequence--) {
+            CalculationTrace trace = slots.get((int) (sequence & mask));
+            if (trace != null && trace.sequence() == sequence) {
+                traces.add(trace);
+            }
+        }
+        return traces;
+    }
+
+    private void finish(Recording recording, CalculationTrace.Outcome outcome, Long totalFeeCents, String message) {
+        if (!enabled) {
+            return;
+        }
+        long durationNanos = System.nanoTime() - recording.startNanos;
+        CalculationTrace.CaptureReason reason;
+        if (outcome != CalculationTrace.Outcome.OK) {
+            reason = CalculationTrace.CaptureReason.FAILED;
+        } else if (durationNanos >= slowThresholdNanos) {
+            reason = CalculationTrace.CaptureReason.SLOW;
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            reason = CalculationTrace.CaptureReason.SAMPLED;
+        } else {
+            return;
+        }
+
+        long sequence = nextSequence.getAndIncrement();
+        slots.set((int) (sequence & mask), new CalculationTrace(sequence, recording.startedAt,
+                recording.city, recording.vehicleType, recording.dateTime, recording.weatherDataId,
+                recording.observationTimestamp, recording.tariffVersion, List.copyOf(recording.components),
+                totalFeeCents != null ? MoneyUtils.fromCents(totalFeeCents) : null, outcome, message, TimeUnit.NANOSECONDS.toMicros(durationNanos), reason));
+    }
+
+    /**
+     * Collects the details of one fee calculation until its outcome is known.
+     * A recording is used by the calculating thread only.
+     */
+    public final class Recording {
+
+        private final Instant startedAt = Instant.now();
+        private final long startNanos = System.nanoTime();
+        private final String city;
+        private final String vehicleType;
+        private final LocalDateTime dateTime;
+        private final Long weatherDataId;
+        private final Integer observationTimestamp;
+        private final long tariffVersion;
+        private final List<CalculationTrace.FeeComponent> components = new ArrayList<>(4);
+
+        private Recording(String city, String vehicleType, LocalDateTime dateTime,
+                          Long weatherDataId, Integer observationTimestamp, long tariffVersion) {
+            this.city = city;
+            this.vehicleType = vehicleType;
+            this.dateTime = dateTime;
+            this.weatherDataId = weatherDataId;
+            this.observationTimestamp = observationTimestamp;
+            this.tariffVersion = tariffVersion;
+        }
+
+        /**
+         * Adds a fee component.
+         *
+         * @param name  the name of the component
+         * @param rule  the rule applied, null if no rule applied
+         */
+        public void component(String name, TariffRule rule) {
+            if (!enabled) {
+                return;
+            }
+            components.add(rule != null
+                    ? new CalculationTrace.FeeComponent(name, rule.id(), rule.fee() != null ? rule.fee() : BigDecimal.ZERO)
+                    : new CalculationTrace.FeeComponent(name, null, BigDecimal.ZERO));
+        }
+
+        public void completed(long totalFeeCents) {
+            finish(this, CalculationTrace.Outcome.OK, totalFeeCents, null);
+        }
+
+        public void failed(CalculationTrace.Outcome outcome, String message) {
+            finish(this, outcome, null, message);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.fujitsu.delivery_fee_api.service.weather;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.stereotype.Component;
+
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Holds the most recent observation of every WMO station.
+ * <p>
+ * Reads never lock: each station has its own reference which is only ever replaced by a newer
+ * observation, so a reader sees either the previous or the new observation, never a partial update.
+ * The cached DTOs are shared between callers and must not be modified.
+ */
+@Component
+public class LatestObservationCache {
+
+    private final Map<Integer, AtomicReference<WeatherDataDTO>> latestByWmoCode = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public LatestObservationCache(MeterRegistry meterRegistry) {
+        this.hits = Counter.builder("weather.observation.cache")
+            .tag("result", "hit")
+            .description("Current weather lookups answered from the latest observation cache")
+            .register(meterRegistry);
+        this.misses = Counter.builder("weather.observation.cache")
+            .tag("result", "miss")
+            .description("Current weather lookups that had to query the weather data table")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the latest observation of a station, provided it is not newer than the given time.
+     *
+     * @param wmoCode       the WMO code of the station
+     * @param epochSeconds  the query time in epoch seconds
+     * @return              the cached observation, or null on a cache miss
+     */
+    public WeatherDataDTO getLatest(Integer wmoCode, int epochSeconds) {
+        AtomicReference<WeatherDataDTO> holder = latestByWmoCode.get(wmoCode);
+        WeatherDataDTO latest = holder != null ? holder.get() : null;
+        if (latest == null || latest.getObservationTimestamp() > epochSeconds) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return latest;
+    }
+
+    /**
+     * Offers an observation to the cache. It replaces the cached one only if it is newer.
+     *
+     * @param observation the saved observation
+     */
+    public void offer(WeatherDataDTO observation) {
+        if (observation == null || observation.getWmoCode() == null || observation.getObservationTimestamp() == null) {
+            return;
+        }
+        latestByWmoCode
+            .computeIfAbsent(observation.getWmoCode(), k -> new AtomicReference<>())
+            .accumulateAndGet(observation, LatestObservationCache::newer);
+    }
+
+    /**
+     * Removes all cached observations, so the next lookup of every station queries the weather data table.
+     */
+    public void clear() {
+        latestByWmoCode.clear();
+    }
+
+    private static WeatherDataDTO newer(WeatherDataDTO current, WeatherDataDTO candidate) {
+        if (current == null || candidate.getObservationTimestamp() >= current.getObservationTimestamp()) {
+            return candidate;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,228 @@
+package com.fujitsu.delivery_fee_api.service.weather;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fujitsu.delivery_fee_api.model.WeatherData;
+import com.fujitsu.delivery_fee_api.repository.WeatherDataRepository;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Upserts the observations of an import in one transaction, as JDBC batches.
+ * <p>
+ * An observation is identified by its WMO code and observation timestamp, which are unique in the weather data table.
+ * Rows are processed in chunks of the JDBC batch size: the existing rows of a chunk are loaded with one query, new
+ * rows are inserted, existing rows with other values are updated and existing rows with the same values are skipped,
+ * so importing the same feed again writes nothing.
+ * <p>
+ * {@link WeatherData} ids come from a pooled sequence, so persisting a row does not insert it right away and
+ * Hibernate can send the inserts of a chunk in one round trip. The persistence context is flushed and cleared after
+ * every chunk, so it does not grow with the size of the import.
+ * <p>
+ * With {@link WeatherStorageMode#CHANGES_ONLY} an observation is only inserted if its fee relevant values differ from
+ * the row valid at its timestamp; the validity of that row then ends at the new observation. An observation with the
+ * same values is skipped, leaving the row valid over it and extending its observed span. An observation with other
+ * values before the last observation merged into a row is rejected: the merged observations are not stored, so the
+ * row cannot be split at the observation following it.
+ */
+@Slf4j
+@Component
+public class WeatherDataBatchWriter {
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Value("${weather.storage.mode:ROW_PER_OBSERVATION}")
+    private WeatherStorageMode storageMode;
+
+    private final WeatherDataRepository weatherDataRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public WeatherDataBatchWriter(WeatherDataRepository weatherDataRepository,
+                                  EntityManager entityManager,
+                                  PlatformTransactionManager transactionManager) {
+        this.weatherDataRepository = weatherDataRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Upserts the rows in one transaction. Of several rows with the same WMO code and observation timestamp the last
+     * one wins.
+     *
+     * @param rows  the imported rows, without ids
+     * @return      the written rows and the number of inserted, updated and skipped rows
+     */
+    public WeatherDataUpsertResult upsertAll(List<WeatherData> rows) {
+        WeatherDataUpsertResult result = transactionTemplate.execute(status ->
+            storageMode == WeatherStorageMode.CHANGES_ONLY ? upsertChanges(rows) : upsertRows(rows));
+        log.debug("Upserted {} weather data rows in batches of {}: {} inserted, {} updated, {} skipped",
+            rows.size(), batchSize, result.inserted(), result.updated(), result.skipped());
+        return result;
+    }
+
+    public WeatherStorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    private WeatherDataUpsertResult upsertRows(List<WeatherData> rows) {
+        List<WeatherData> writtenRows = new ArrayList<>();
+        Set<WeatherData> written = Collections.newSetFromMap(new IdentityHashMap<>());
+        int inserted = 0;
+        int updated = 0;
+        int skipped = 0;
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<WeatherData> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            Map<Key, WeatherData> existing = findExisting(chunk);
+            for (WeatherData row : chunk) {
+                Key key = new Key(row.getWmoCode(), row.getObservationTimestamp());
+                WeatherData current = existing.get(key);
+                if (current == null) {
+                    entityManager.persist(row);
+                    existing.put(key, row);
+                    written.add(row);
+                    writtenRows.add(row);
+                    inserted++;
+                } else if (sameValues(current, row)) {
+                    skipped++;
+                } else {
+                    copyValues(row, current);
+                    if (written.add(current)) {
+                        writtenRows.add(current);
+                    }
+                    updated++;
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return new WeatherDataUpsertResult(writtenRows, inserted, updated, skipped);
+    }
+
+    /**
+     * Writes the rows that change the fee relevant values of their station, maintaining the validity intervals.
+     * Rows are applied in time order per station, so an import only has to look at the row valid before it.
+     * Rejected rows are counted as skipped.
+     */
+    private WeatherDataUpsertResult upsertChanges(List<WeatherData> rows) {
+        List<WeatherData> ordered = new ArrayList<>(rows);
+        ordered.sort(Comparator.comparing(WeatherData::getWmoCode).thenComparing(WeatherData::getObservationTimestamp));
+        Set<WeatherData> writtenRows = Collections.newSetFromMap(new IdentityHashMap<>());
+        int inserted = 0;
+        int updated = 0;
+        int skipped = 0;
+        // the row valid at the previous observation of the same station, while it is managed
+        WeatherData previous = null;
+        for (int i = 0; i < ordered.size(); i++) {
+            WeatherData row = ordered.get(i);
+            int wmoCode = row.getWmoCode();
+            int time = row.getObservationTimestamp();
+            WeatherData valid = previous != null && isValidAt(previous, wmoCode, time)
+                ? previous
+                : weatherDataRepository.findValidAt(wmoCode, time).orElse(null);
+            if (valid != null && sameFeeValues(valid, row)) {
+                if (time > valid.getObservedSpanEnd()) {
+                    valid.setLastObservedAt(time);
+                }
+                previous = valid;
+                skipped++;
+            } else if (valid != null && time < valid.getObservedSpanEnd()) {
+                log.warn("Rejected weather data of station {} at {}: it differs from the observations merged from {} to {}",
+                    wmoCode, time, valid.getValidFrom(), valid.getObservedSpanEnd());
+                previous = valid;
+                skipped++;
+            } else if (valid != null && valid.getValidFrom() == time) {
+                // the row stands for this observation only, so it is corrected in place
+                copyValues(row, valid);
+                writtenRows.add(valid);
+                previous = valid;
+                updated++;
+            } else {
+                WeatherData next = valid != null ? null : weatherDataRepository.findFirstValidAfter(wmoCode, time).orElse(null);
+                if (next != null && sameFeeValues(next, row)) {
+                    // an observation before the first row of the station with the same values extends that row back
+                    next.setValidFrom(time);
+                    next.setObservationTimestamp(time);
+                    writtenRows.add(next);
+                    previous = next;
+                    updated++;
+                } else {
+                    row.setValidFrom(time);
+                    row.setLastObservedAt(time);
+                    row.setValidTo(valid != null ? valid.getValidTo() : next != null ? next.getValidFrom() : null);
+                    if (valid != null) {
+                        valid.setValidTo(time);
+                    }
+                    entityManager.persist(row);
+                    writtenRows.add(row);
+                    previous = row;
+                    inserted++;
+                }
+            }
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+                previous = null;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return new WeatherDataUpsertResult(List.copyOf(writtenRows), inserted, updated, skipped);
+    }
+
+    private Map<Key, WeatherData> findExisting(List<WeatherData> chunk) {
+        Set<Integer> wmoCodes = new HashSet<>();
+        Set<Integer> timestamps = new HashSet<>();
+        for (WeatherData row : chunk) {
+            wmoCodes.add(row.getWmoCode());
+            timestamps.add(row.getObservationTimestamp());
+        }
+        Map<Key, WeatherData> existing = new HashMap<>();
+        for (WeatherData row : weatherDataRepository.findByWMOCodesAndTimestamps(wmoCodes, timestamps)) {
+            existing.put(new Key(row.getWmoCode(), row.getObservationTimestamp()), row);
+        }
+        return existing;
+    }
+
+    private static boolean isValidAt(WeatherData row, int wmoCode, int time) {
+        return row.getWmoCode() == wmoCode
+                && row.getValidFrom() <= time
+                && (row.getValidTo() == null || row.getValidTo() > time);
+    }
+
+    private static boolean sameValues(WeatherData current, WeatherData row) {
+        return Objects.equals(current.getStationName(), row.getStationName()) && sameFeeValues(current, row);
+    }
+
+    private static boolean sameFeeValues(WeatherData current, WeatherData row) {
+        return Objects.equals(current.getAirTemperature(), row.getAirTemperature())
+                && Objects.equals(current.getWindSpeed(), row.getWindSpeed())
+                && Objects.equals(current.getWeatherPhenomenon(), row.getWeatherPhenomenon());
+    }
+
+    private static void copyValues(WeatherData from, WeatherData to) {
+        to.setStationName(from.getStationName());
+        to.setAirTemperature(from.getAirTemperature());
+        to.setWindSpeed(from.getWindSpeed());
+        to.setWeatherPhenomenon(from.getWeatherPhenomenon());
+    }
+
+    private record Key(Integer wmoCode, Integer observationTimestamp) {
+    }
+}
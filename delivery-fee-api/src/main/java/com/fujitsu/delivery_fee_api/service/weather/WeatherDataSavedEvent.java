@@ -0,0 +1,14 @@
+package com.fujitsu.delivery_fee_api.service.weather;
+
+import java.util.List;
+
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+
+/**
+ * Published by the weather data service after new observations have been saved,
+ * either by a weather data import or by a manually created observation.
+ *
+ * @param observations the saved observations
+ */
+public record WeatherDataSavedEvent(List<WeatherDataDTO> observations) {
+}
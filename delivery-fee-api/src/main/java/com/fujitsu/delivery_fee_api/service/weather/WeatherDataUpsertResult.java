@@ -0,0 +1,16 @@
+package com.fujitsu.delivery_fee_api.service.weather;
+
+import java.util.List;
+
+import com.fujitsu.delivery_fee_api.model.WeatherData;
+
+/**
+ * The outcome of upserting the observations of an import.
+ *
+ * @param writtenRows  the inserted and updated rows, detached
+ * @param inserted     the number of rows inserted
+ * @param updated      the number of existing rows whose values were updated
+ * @param skipped      the number of rows that already existed with the same values
+ */
+public record WeatherDataUpsertResult(List<WeatherData> writtenRows, int inserted, int updated, int skipped) {
+}
@@ -0,0 +1,25 @@
+package com.fujitsu.delivery_fee_api.service.weather;
+
+import java.util.List;
+import java.util.Set;
+
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+
+/**
+ * A fetched observations feed with the validators it was served with.
+ *
+ * @param provider              the name of the provider the feed was fetched from
+ * @param relevantWmoCodes      the WMO codes of the stations that were kept
+ * @param observations          the observations of the relevant stations
+ * @param observationTimestamp  the observation timestamp of the feed in epoch seconds
+ * @param contentHash           the SHA-256 of the decoded feed, hex encoded
+ * @param eTag                  the ETag of the response, null if there was none
+ * @param lastModified          the Last-Modified of the response, null if there was none
+ */
+public record WeatherFeed(String provider, Set<Integer> relevantWmoCodes, List<WeatherDataDTO> observations,
+                          int observationTimestamp, String contentHash, String eTag, String lastModified) {
+
+    WeatherFeed withValidators(String provider, String eTag, String lastModified) {
+        return new WeatherFeed(provider, relevantWmoCodes, observations, observationTimestamp, contentHash, eTag, lastModified);
+    }
+}
@@ -0,0 +1,382 @@
+package com.fujitsu.delivery_fee_api.service.weather;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fujitsu.delivery_fee_api.service.weather.provider.WeatherFeedHandler;
+import com.fujitsu.delivery_fee_api.service.weather.provider.WeatherFeedResponse;
+import com.fujitsu.delivery_fee_api.service.weather.provider.WeatherProvider;
+import com.fujitsu.delivery_fee_api.util.ObservationFeed;
+import com.fujitsu.delivery_fee_api.util.ObservationFeedReader;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fetches the observations feed from the configured {@link WeatherProvider}, skipping feeds that have already been
+ * imported.
+ * <p>
+ * The fetch carries the validators of the last imported feed if it came from the same provider, and the encoded feed
+ * is decoded and read by the {@link ObservationFeedReader} while it is streamed. The feed is skipped when the
+ * provider reports it as not modified, when its observation timestamp equals the one of the last imported feed, in
+ * which case only the root element is read, or when its content hash equals the one of the last imported feed.
+ * <p>
+ * With a {@code weather.provider.secondary}, a fetch from the primary provider that fails or takes longer than
+ * {@code weather.provider.failover-timeout-ms} is abandoned and the feed is fetched from the secondary provider.
+ */
+@Slf4j
+@Component
+public class WeatherFeedFetcher {
+
+    @Value("${weather.fetch.conditional:true}")
+    private boolean conditional;
+
+    @Value("${weather.provider.primary:http}")
+    private String primaryName;
+
+    @Value("${weather.provider.secondary:}")
+    private String secondaryName;
+
+    @Value("${weather.provider.failover-timeout-ms:10000}")
+    private long failoverTimeoutMillis;
+
+    private final List<WeatherProvider> providers;
+    private final ObservationFeedReader observationFeedReader;
+    private final MeterRegistry meterRegistry;
+
+    private WeatherProvider primary;
+    private WeatherProvider secondary;
+    private ExecutorService failoverExecutor;
+
+    private final AtomicReference<WeatherFeed> lastImported = new AtomicReference<>();
+    private final Counter fetchedBytes;
+    private final Counter notModified;
+    private final Counter sameTimestamp;
+    private final Counter sameContent;
+    private final Counter slowFailovers;
+    private final Counter failedFailovers;
+    private final Timer fetchTimer;
+
+    public WeatherFeedFetcher(List<WeatherProvider> providers,
+                              ObservationFeedReader observationFeedReader,
+                              MeterRegistry meterRegistry) {
+        this.providers = providers;
+        this.observationFeedReader = observationFeedReader;
+        this.meterRegistry = meterRegistry;
+        this.fetchedBytes = Counter.builder("weather.feed.bytes")
+            .baseUnit("bytes")
+            .description("Bytes of the observations feed received, before decompression")
+            .register(meterRegistry);
+        this.notModified = skippedImports("not_modified", meterRegistry);
+        this.sameTimestamp = skippedImports("same_timestamp", meterRegistry);
+        this.sameContent = skippedImports("same_content", meterRegistry);
+        this.slowFailovers = failovers("slow", meterRegistry);
+        this.failedFailovers = failovers("failed", meterRegistry);
+        this.fetchTimer = Timer.builder("weather.feed.fetch")
+            .description("Time to fetch and read the observations feed")
+            .register(meterRegistry);
+    }
+
+    private static Counter skippedImports(String reason, MeterRegistry meterRegistry) {
+        return Counter.builder("weather.import.skipped")
+            .tag("reason", reason)
+            .description("Weather imports skipped because the feed had not changed")
+            .register(meterRegistry);
+    }
+
+    private static Counter failovers(String reason, MeterRegistry meterRegistry) {
+        return Counter.builder("weather.provider.failovers")
+            .tag("reason", reason)
+            .description("Weather feed fetches that fell back to the secondary provider")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        primary = provider(primaryName);
+        if (secondaryName != null && !secondaryName.isBlank()) {
+            secondary = provider(secondaryName);
+            failoverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        }
+        log.info("Fetching the weather feed from the {} provider{}", primary.getName(),
+            secondary != null ? ", failing over to the " + secondary.getName() + " provider" : "");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (failoverExecutor != null) {
+            failoverExecutor.shutdownNow();
+        }
+    }
+
+    private WeatherProvider provider(String name) {
+        return providers.stream()
+            .filter(provider -> provider.getName().equals(name))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("Unknown weather provider: " + name));
+    }
+
+    /**
+     * Fetches the feed and reads the observations of the relevant stations. The fetch is only conditional on the
+     * last imported feed if that kept the same stations, so the stations of a new city are imported right away.
+     *
+     * @param relevantWmoCodes  the WMO codes of the stations to keep
+     * @return                  the feed, or null if it has not changed since the last imported feed
+     * @throws RuntimeException if the feed could not be fetched
+     */
+    public WeatherFeed fetch(Set<Integer> relevantWmoCodes) {
+        return fetch(relevantWmoCodes, new WeatherImportRecording());
+    }
+
+    /**
+     * Fetches the feed like {@link #fetch(Set)}, recording the time until the feed arrives as the fetch stage and the
+     * time to read it as the parse and filter stages.
+     *
+     * @param relevantWmoCodes  the WMO codes of the stations to keep
+     * @param recording         the recording of the import
+     * @return                  the feed, or null if it has not changed since the last imported feed
+     * @throws RuntimeException if the feed could not be fetched
+     */
+    public WeatherFeed fetch(Set<Integer> relevantWmoCodes, WeatherImportRecording recording) {
+        WeatherFeed imported = lastImported.get();
+        WeatherFeed last = imported != null && imported.relevantWmoCodes().equals(relevantWmoCodes) ? imported : null;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long startNanos = System.nanoTime();
+        try {
+            if (secondary == null) {
+                return fetchAndPublish(primary, relevantWmoCodes, last, recording, startNanos);
+            }
+            return fetchWithFailover(relevantWmoCodes, last, recording, startNanos);
+        } finally {
+            sample.stop(fetchTimer);
+        }
+    }
+
+    private WeatherFeed fetchWithFailover(Set<Integer> relevantWmoCodes, WeatherFeed last,
+                                          WeatherImportRecording recording, long startNanos) {
+        AtomicBoolean abandoned = new AtomicBoolean();
+        WeatherImportRecording.FeedAttempt primaryAttempt = new WeatherImportRecording.FeedAttempt(primary.getName());
+        Future<WeatherFeed> primaryFetch = failoverExecutor.submit(
+            () -> fetch(primary, relevantWmoCodes, last, primaryAttempt, startNanos, abandoned));
+        try {
+            WeatherFeed feed = primaryFetch.get(failoverTimeoutMillis, TimeUnit.MILLISECONDS);
+            // the completed fetch happens-before get returns, an abandoned attempt is never published
+            recording.publish(primaryAttempt);
+            return feed;
+        } catch (TimeoutException e) {
+            log.warn("The {} provider did not deliver the weather feed within {} ms, failing over to the {} provider",
+                primary.getName(), failoverTimeoutMillis, secondary.getName());
+            slowFailovers.increment();
+        } catch (ExecutionException e) {
+            log.warn("The {} provider failed to deliver the weather feed, failing over to the {} provider: {}",
+                primary.getName(), secondary.getName(), e.getCause().getMessage());
+            failedFailovers.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching weather data", e);
+        } finally {
+            abandoned.set(true);
+            primaryFetch.cancel(true);
+        }
+        return fetchAndPublish(secondary, relevantWmoCodes, last, recording, startNanos);
+    }
+
+    /**
+     * Fetches the feed on the importing thread, publishing the numbers of the attempt also if it fails.
+     */
+    private WeatherFeed fetchAndPublish(WeatherProvider provider, Set<Integer> relevantWmoCodes, WeatherFeed last,
+                                        WeatherImportRecording recording, long startNanos) {
+        WeatherImportRecording.FeedAttempt attempt = new WeatherImportRecording.FeedAttempt(provider.getName());
+        try {
+            return fetch(provider, relevantWmoCodes, last, attempt, startNanos, new AtomicBoolean());
+        } finally {
+            recording.publish(attempt);
+        }
+    }
+
+    private WeatherFeed fetch(WeatherProvider provider, Set<Integer> relevantWmoCodes, WeatherFeed last,
+                              WeatherImportRecording.FeedAttempt attempt, long startNanos, AtomicBoolean abandoned) {
+        boolean sameProvider = conditional && last != null && provider.getName().equals(last.provider());
+        try {
+            return provider.fetch(sameProvider ? last.eTag() : null, sameProvider ? last.lastModified() : null,
+                new WeatherFeedHandler<>() {
+                    @Override
+                    public WeatherFeed feed(WeatherFeedResponse response) throws IOException {
+                        attempt.stage(WeatherImportRecording.FETCH, System.nanoTime() - startNanos);
+                        return readFeed(provider, response, relevantWmoCodes, last, attempt, abandoned);
+                    }
+
+                    @Override
+                    public WeatherFeed notModified() {
+                        attempt.stage(WeatherImportRecording.FETCH, System.nanoTime() - startNanos);
+                        skipped(notModified, last);
+                        return null;
+                    }
+                });
+        } catch (IOException e) {
+            log.error("Failed to read weather data from the {} provider: {}", provider.getName(), e.getMessage());
+            throw new RuntimeException("Failed to fetch weather data", e);
+        }
+    }
+
+    /**
+     * Records a feed as imported, so the next fetch is conditional on it.
+     *
+     * @param feed the feed whose observations have been saved
+     */
+    public void markImported(WeatherFeed feed) {
+        lastImported.set(feed);
+    }
+
+    /**
+     * Returns the observation timestamp of the last imported feed.
+     *
+     * @return the observation timestamp in epoch seconds, or null if no feed has been imported yet
+     */
+    public Integer getLastImportedTimestamp() {
+        WeatherFeed imported = lastImported.get();
+        return imported != null ? imported.observationTimestamp() : null;
+    }
+
+    private WeatherFeed readFeed(WeatherProvider provider, WeatherFeedResponse response, Set<Integer> relevantWmoCodes,
+                                 WeatherFeed last, WeatherImportRecording.FeedAttempt attempt, AtomicBoolean abandoned)
+            throws IOException {
+        long readStartNanos = System.nanoTime();
+        CountingInputStream body = new CountingInputStream(response.body(), abandoned);
+        MessageDigest digest = sha256();
+        try (InputStream decoded = "gzip".equalsIgnoreCase(response.contentEncoding()) ? new GZIPInputStream(body) : body;
+             DigestInputStream feed = new DigestInputStream(decoded, digest)) {
+            ObservationFeed observationFeed = observationFeedReader.read(feed, relevantWmoCodes,
+                timestamp -> last == null || timestamp != last.observationTimestamp());
+            if (observationFeed.observations() == null) {
+                fetchedBytes.increment(body.count);
+                read(attempt, body.count, observationFeed, readStartNanos);
+                skipped(sameTimestamp, last);
+                updateValidators(provider, last, response, abandoned);
+                return null;
+            }
+
+            feed.transferTo(OutputStream.nullOutputStream());
+            fetchedBytes.increment(body.count);
+            read(attempt, body.count, observationFeed, readStartNanos);
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            if (last != null && contentHash.equals(last.contentHash())) {
+                skipped(sameContent, last);
+                updateValidators(provider, last, response, abandoned);
+                return null;
+            }
+            log.info("Received weather data successfully from the {} provider: {} bytes, observation timestamp {}",
+                provider.getName(), body.count, observationFeed.timestamp());
+            return new WeatherFeed(provider.getName(), Set.copyOf(relevantWmoCodes), observationFeed.observations(),
+                observationFeed.timestamp(), contentHash, response.eTag(), response.lastModified());
+        }
+    }
+
+    private static void read(WeatherImportRecording.FeedAttempt attempt, long bytes, ObservationFeed observationFeed,
+                             long readStartNanos) {
+        long readNanos = System.nanoTime() - readStartNanos;
+        attempt.stage(WeatherImportRecording.PARSE, readNanos - observationFeed.filterNanos());
+        if (observationFeed.observations() != null) {
+            attempt.stage(WeatherImportRecording.FILTER, observationFeed.filterNanos());
+        }
+        attempt.feed(bytes, observationFeed.stationsSeen(),
+            observationFeed.observations() != null ? observationFeed.observations().size() : 0);
+    }
+
+    /**
+     * Keeps the validators of a response whose feed equals the last imported one, so the next fetch can get a 304.
+     */
+    private void updateValidators(WeatherProvider provider, WeatherFeed last, WeatherFeedResponse response,
+                                  AtomicBoolean abandoned) {
+        if (!abandoned.get()) {
+            lastImported.compareAndSet(last, last.withValidators(provider.getName(), response.eTag(), response.lastModified()));
+        }
+    }
+
+    private static void skipped(Counter counter, WeatherFeed last) {
+        log.info("Weather data has not changed since observation timestamp {}, skipping import ({})",
+            last != null ? last.observationTimestamp() : null, counter.getId().getTag("reason"));
+        counter.increment();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Counts the bytes read, and stops a fetch that has been abandoned for the secondary provider at its next read.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final AtomicBoolean abandoned;
+        private long count;
+
+        CountingInputStream(InputStream in, AtomicBoolean abandoned) {
+            super(in);
+            this.abandoned = abandoned;
+        }
+
+        private void checkAbandoned() throws IOException {
+            if (abandoned.get()) {
+                throw new InterruptedIOException("Abandoned for the secondary weather provider");
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkAbandoned();
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkAbandoned();
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            checkAbandoned();
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
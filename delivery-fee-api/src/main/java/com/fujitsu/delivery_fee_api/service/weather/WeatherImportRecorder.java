@@ -0,0 +1,178 @@
+package com.fujitsu.delivery_fee_api.service.weather;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fujitsu.delivery_fee_api.dto.WeatherImportReportDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes the stage numbers of weather imports as metrics and keeps the reports of the most recent imports.
+ * <p>
+ * Every stage of an import has a {@code weather.import.stage} timer: fetching the feed up to its first byte, parsing
+ * it while it streams in, filtering out the stations that are not relevant, which happens within the parse and is
+ * not included in its time, mapping the observations to rows, persisting the rows and publishing the saved
+ * observations to the fee matrix and subscribers. Stages that do not run, e.g. because the feed has not changed,
+ * are not recorded.
+ */
+@Slf4j
+@Component
+public class WeatherImportRecorder {
+
+    private static final List<String> STAGES = List.of(WeatherImportRecording.FETCH, WeatherImportRecording.PARSE,
+        WeatherImportRecording.FILTER, WeatherImportRecording.MAP, WeatherImportRecording.PERSIST,
+        WeatherImportRecording.PUBLISH);
+
+    @Value("${weather.import.history-size:20}")
+    private int historySize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<WeatherImportReportDTO> history = new ArrayDeque<>();
+
+    private final Map<String, Timer> stageTimers = new LinkedHashMap<>();
+    private final Timer importedTimer;
+    private final Timer unchangedTimer;
+    private final Timer failedTimer;
+    private final DistributionSummary stationsSeen;
+    private final DistributionSummary stationsRelevant;
+    private final Counter insertedRows;
+    private final Counter updatedRows;
+    private final Counter skippedRows;
+
+    public WeatherImportRecorder(MeterRegistry meterRegistry) {
+        for (String stage : STAGES) {
+            stageTimers.put(stage, Timer.builder("weather.import.stage")
+                .tag("stage", stage)
+                .description("Time spent in a stage of the weather import")
+                .register(meterRegistry));
+        }
+        this.importedTimer = imports("imported", meterRegistry);
+        this.unchangedTimer = imports("unchanged", meterRegistry);
+        this.failedTimer = imports("failed", meterRegistry);
+        this.stationsSeen = stations("seen", "Stations in the imported weather feed", meterRegistry);
+        this.stationsRelevant = stations("relevant", "Stations of the imported weather feed kept for known cities", meterRegistry);
+        this.insertedRows = rows("inserted", meterRegistry);
+        this.updatedRows = rows("updated", meterRegistry);
+        this.skippedRows = rows("skipped", meterRegistry);
+    }
+
+    private static Timer imports(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("weather.import")
+            .tag("outcome", outcome)
+            .description("Time of a whole weather import")
+            .register(meterRegistry);
+    }
+
+    private static DistributionSummary stations(String kind, String description, MeterRegistry meterRegistry) {
+        return DistributionSummary.builder("weather.import.stations")
+            .tag("kind", kind)
+            .description(description)
+            .register(meterRegistry);
+    }
+
+    private static Counter rows(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("weather.import.rows")
+            .tag("result", result)
+            .description("Observation rows written or skipped by weather imports")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Records a finished import and fills the stage numbers into its report.
+     *
+     * @param recording  the numbers collected during the import
+     * @param report     the report of the import
+     */
+    public void record(WeatherImportRecording recording, WeatherImportReportDTO report) {
+        long elapsedNanos = recording.getElapsedNanos();
+        fill(recording, report, elapsedNanos);
+        for (Map.Entry<String, Long> stage : recording.getStageNanos().entrySet()) {
+            Timer timer = stageTimers.get(stage.getKey());
+            if (timer != null) {
+                timer.record(stage.getValue(), TimeUnit.NANOSECONDS);
+            }
+        }
+        if (report.getError() != null) {
+            failedTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        } else if (report.isFeedUnchanged()) {
+            unchangedTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        } else {
+            importedTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            stationsSeen.record(recording.getStationsSeen());
+            stationsRelevant.record(recording.getStationsRelevant());
+            insertedRows.increment(report.getInsertedRows());
+            updatedRows.increment(report.getUpdatedRows());
+            skippedRows.increment(report.getSkippedRows());
+        }
+        log.debug("Weather import stages (us): {}, {} of {} stations relevant, {} bytes",
+            report.getStageMicros(), report.getStationsRelevant(), report.getStationsSeen(), report.getFeedBytes());
+
+        lock.lock();
+        try {
+            if (history.size() == historySize) {
+                history.removeLast();
+            }
+            history.addFirst(report);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records an import that failed.
+     *
+     * @param recording  the numbers collected until the import failed
+     * @param error      the cause of the failure
+     */
+    public void recordFailure(WeatherImportRecording recording, RuntimeException error) {
+        WeatherImportReportDTO report = new WeatherImportReportDTO();
+        report.setError(error.getMessage());
+        record(recording, report);
+    }
+
+    /**
+     * Returns the reports of the most recent imports, newest first.
+     *
+     * @param limit  the maximum number of reports to return
+     * @return       the reports
+     */
+    public List<WeatherImportReportDTO> getRecent(int limit) {
+        lock.lock();
+        try {
+            return history.stream().limit(Math.max(limit, 0)).toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void fill(WeatherImportRecording recording, WeatherImportReportDTO report, long elapsedNanos) {
+        Map<String, Long> stageMicros = new LinkedHashMap<>();
+        for (String stage : STAGES) {
+            Long nanos = recording.getStageNanos().get(stage);
+            if (nanos != null) {
+                stageMicros.put(stage, TimeUnit.NANOSECONDS.toMicros(nanos));
+            }
+        }
+        report.setStartedAt(recording.getStartedAt());
+        report.setProvider(recording.getProvider());
+        report.setFeedBytes(recording.getFeedBytes());
+        report.setStationsSeen(recording.getStationsSeen());
+        report.setStationsRelevant(recording.getStationsRelevant());
+        report.setStageMicros(stageMicros);
+        report.setTotalMicros(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+    }
+}
@@ -0,0 +1,120 @@
+package com.fujitsu.delivery_fee_api.service.weather;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects the numbers of one weather import while it runs: the duration of every stage, the bytes received and the
+ * stations seen and kept. A recording is used by the importing thread only: each attempt to fetch the feed collects
+ * its numbers in its own {@link FeedAttempt}, and only the attempt whose feed is imported is published to the recording.
+ */
+public class WeatherImportRecording {
+
+    public static final String FETCH = "fetch";
+    public static final String PARSE = "parse";
+    public static final String FILTER = "filter";
+    public static final String MAP = "map";
+    public static final String PERSIST = "persist";
+    public static final String PUBLISH = "publish";
+
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> stageNanos = new HashMap<>();
+    private String provider;
+    private long feedBytes;
+    private int stationsSeen;
+    private int stationsRelevant;
+
+    /**
+     * Sets the time spent in a stage, replacing the time of an abandoned attempt.
+     *
+     * @param stage  the stage, one of the constants of this class
+     * @param nanos  the time spent
+     */
+    public void stage(String stage, long nanos) {
+        stageNanos.put(stage, nanos);
+    }
+
+    /**
+     * Records the stages and the feed of the attempt whose feed is imported. The attempt must have finished, with its
+     * numbers visible to the calling thread, e.g. because the caller waited for it.
+     *
+     * @param attempt  the finished attempt
+     */
+    public void publish(FeedAttempt attempt) {
+        stageNanos.putAll(attempt.stageNanos);
+        this.provider = attempt.provider;
+        this.feedBytes = attempt.feedBytes;
+        this.stationsSeen = attempt.stationsSeen;
+        this.stationsRelevant = attempt.stationsRelevant;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public Map<String, Long> getStageNanos() {
+        return stageNanos;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public long getFeedBytes() {
+        return feedBytes;
+    }
+
+    public int getStationsSeen() {
+        return stationsSeen;
+    }
+
+    public int getStationsRelevant() {
+        return stationsRelevant;
+    }
+
+    /**
+     * Collects the numbers of one attempt to fetch the feed from a provider. An attempt is used by the thread running
+     * it only, an abandoned attempt is discarded.
+     */
+    public static final class FeedAttempt {
+
+        private final String provider;
+        private final Map<String, Long> stageNanos = new HashMap<>(4);
+        private long feedBytes;
+        private int stationsSeen;
+        private int stationsRelevant;
+
+        public FeedAttempt(String provider) {
+            this.provider = provider;
+        }
+
+        /**
+         * Sets the time spent in a stage.
+         *
+         * @param stage  the stage, one of the constants of {@link WeatherImportRecording}
+         * @param nanos  the time spent
+         */
+        public void stage(String stage, long nanos) {
+            stageNanos.put(stage, nanos);
+        }
+
+        /**
+         * Records the feed as it was received and read.
+         *
+         * @param feedBytes         the bytes received, before decompression
+         * @param stationsSeen      the number of stations in the feed
+         * @param stationsRelevant  the number of stations that were kept
+         */
+        public void feed(long feedBytes, int stationsSeen, int stationsRelevant) {
+            this.feedBytes = feedBytes;
+            this.stationsSeen = stationsSeen;
+            this.stationsRelevant = stationsRelevant;
+        }
+    }
+}
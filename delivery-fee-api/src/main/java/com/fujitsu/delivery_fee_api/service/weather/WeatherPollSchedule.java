@@ -0,0 +1,262 @@
+package com.fujitsu.delivery_fee_api.service.weather;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decides when the weather feed is polled next, from the cadence its observation timestamp has advanced at.
+ * <p>
+ * Every poll reports the observation timestamp of the last imported feed. When it advances, the schedule records the
+ * period since the previous feed and the lag between the observation timestamp and the poll that saw it; the next
+ * feed is expected at the last observation timestamp plus the lower median period and lag of the recent updates.
+ * Until then the feed is polled at most {@code weather.poll.max-interval-seconds} apart and at the start of a window
+ * of {@code weather.poll.window-seconds} around the expected update, then every
+ * {@code weather.poll.min-interval-seconds} within the window. Once the window has passed, or while the cadence has not been learned yet, the interval doubles from
+ * the minimum up to the maximum until the feed advances.
+ * <p>
+ * Since a poll can only see an update after it happened, the recorded lags are upper bounds. Polling from the start
+ * of the window pulls a lag that was learned too long towards the real one, and the dense polls within the window
+ * keep it within the minimum interval.
+ * <p>
+ * Without adaptive polling the feed is imported at {@code weather.import.cron}. Either way the schedule tells by when
+ * the next import is expected to have finished, which bounds how long responses depending on the weather may be
+ * cached.
+ */
+@Slf4j
+@Component
+public class WeatherPollSchedule {
+
+    @Value("${weather.poll.adaptive:true}")
+    private boolean adaptive;
+
+    @Value("${weather.poll.min-interval-seconds:60}")
+    private long minIntervalSeconds;
+
+    @Value("${weather.poll.max-interval-seconds:900}")
+    private long maxIntervalSeconds;
+
+    @Value("${weather.poll.window-seconds:300}")
+    private long windowSeconds;
+
+    @Value("${weather.poll.history-size:24}")
+    private int historySize;
+
+    @Value("${weather.import.cron}")
+    private String importCron;
+
+    @Value("${weather.import.grace-seconds:60}")
+    private long importGraceSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Long> periods = new ArrayDeque<>();
+    private final Deque<Long> lags = new ArrayDeque<>();
+    private Integer lastObservationTimestamp;
+    private long backoffSeconds;
+    private Instant lastPoll;
+    private Instant nextPoll;
+    private CronExpression importSchedule;
+
+    private final Counter advancedPolls;
+    private final Counter unchangedPolls;
+    private final Counter failedPolls;
+
+    public WeatherPollSchedule(MeterRegistry meterRegistry) {
+        this.advancedPolls = polls("advanced", "Weather feed polls that imported a newer observation timestamp", meterRegistry);
+        this.unchangedPolls = polls("unchanged", "Weather feed polls that found no newer observation timestamp", meterRegistry);
+        this.failedPolls = polls("failed", "Weather feed polls that failed", meterRegistry);
+        TimeGauge.builder("weather.poll.interval", this, TimeUnit.SECONDS, WeatherPollSchedule::currentIntervalSeconds)
+            .description("Time between the last and the next scheduled poll of the weather feed")
+            .register(meterRegistry);
+        TimeGauge.builder("weather.feed.update.period", this, TimeUnit.SECONDS, s -> s.learned(s.periods))
+            .description("Learned time between two observation timestamps of the weather feed")
+            .register(meterRegistry);
+        TimeGauge.builder("weather.feed.update.lag", this, TimeUnit.SECONDS, s -> s.learned(s.lags))
+            .description("Learned time from an observation timestamp until the feed carrying it is published")
+            .register(meterRegistry);
+        TimeGauge.builder("weather.data.staleness", this, TimeUnit.SECONDS, WeatherPollSchedule::stalenessSeconds)
+            .description("Age of the observation timestamp of the weather data being served")
+            .register(meterRegistry);
+    }
+
+    private static Counter polls(String result, String description, MeterRegistry meterRegistry) {
+        return Counter.builder("weather.polls")
+            .tag("result", result)
+            .description(description)
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        importSchedule = importCron != null && CronExpression.isValidExpression(importCron) ? CronExpression.parse(importCron) : null;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Returns by when the next import is expected to have finished: the next poll, or the next import scheduled by
+     * {@code weather.import.cron} if polling is not adaptive, plus the grace period for the import to finish. Right
+     * after a scheduled import has started the deadline is the end of its grace period.
+     *
+     * @return the deadline, or null without an import schedule or before the first poll has been scheduled
+     */
+    public Instant nextImportDeadline() {
+        Duration grace = Duration.ofSeconds(importGraceSeconds);
+        Instant nextImport;
+        if (adaptive) {
+            // the next poll is only scheduled once the current one has finished
+            nextImport = getNextPoll();
+        } else {
+            ZonedDateTime nextCron = importSchedule != null ? importSchedule.next(ZonedDateTime.now().minus(grace)) : null;
+            nextImport = nextCron != null ? nextCron.toInstant() : null;
+        }
+        return nextImport != null ? nextImport.plus(grace) : null;
+    }
+
+    /**
+     * Returns when the feed is polled next, as last scheduled.
+     *
+     * @return the time of the next poll, or null before the first poll has been scheduled
+     */
+    public Instant getNextPoll() {
+        lock.lock();
+        try {
+            return nextPoll;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a poll of the feed.
+     *
+     * @param observationTimestamp  the observation timestamp of the last imported feed after the poll, null if none
+     * @param polledAt              when the poll ran
+     */
+    public void recordPoll(Integer observationTimestamp, Instant polledAt) {
+        lock.lock();
+        try {
+            lastPoll = polledAt;
+            if (observationTimestamp == null
+                    || lastObservationTimestamp != null && observationTimestamp <= lastObservationTimestamp) {
+                unchangedPolls.increment();
+                return;
+            }
+            // the first feed seen says nothing about when it was published
+            if (lastObservationTimestamp != null) {
+                add(periods, (long) observationTimestamp - lastObservationTimestamp);
+                add(lags, Math.max(0, polledAt.getEpochSecond() - observationTimestamp));
+            }
+            lastObservationTimestamp = observationTimestamp;
+            backoffSeconds = 0;
+            advancedPolls.increment();
+            log.debug("Weather feed advanced to observation timestamp {}, learned period {} s and lag {} s",
+                observationTimestamp, learned(periods), learned(lags));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a poll that failed, so the next poll backs off.
+     *
+     * @param polledAt when the poll ran
+     */
+    public void recordFailure(Instant polledAt) {
+        lock.lock();
+        try {
+            lastPoll = polledAt;
+            failedPolls.increment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Schedules the next poll.
+     *
+     * @param now  the current time
+     * @return     the time of the next poll
+     */
+    public Instant scheduleNextPoll(Instant now) {
+        lock.lock();
+        try {
+            nextPoll = now.plusSeconds(nextDelaySeconds(now.getEpochSecond()));
+            return nextPoll;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long nextDelaySeconds(long now) {
+        if (lastObservationTimestamp != null && !periods.isEmpty()) {
+            long expectedUpdate = lastObservationTimestamp + median(periods) + median(lags);
+            if (now < expectedUpdate - windowSeconds) {
+                return Math.min(expectedUpdate - windowSeconds - now, maxIntervalSeconds);
+            }
+            if (now <= expectedUpdate + windowSeconds) {
+                return minIntervalSeconds;
+            }
+        }
+        backoffSeconds = backoffSeconds == 0 ? minIntervalSeconds : Math.min(backoffSeconds * 2, maxIntervalSeconds);
+        return backoffSeconds;
+    }
+
+    private void add(Deque<Long> samples, long sample) {
+        if (samples.size() == historySize) {
+            samples.removeFirst();
+        }
+        samples.addLast(sample);
+    }
+
+    private static long median(Deque<Long> samples) {
+        long[] sorted = samples.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted[(sorted.length - 1) / 2];
+    }
+
+    private double learned(Deque<Long> samples) {
+        lock.lock();
+        try {
+            return samples.isEmpty() ? Double.NaN : median(samples);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double currentIntervalSeconds() {
+        lock.lock();
+        try {
+            return lastPoll != null && nextPoll != null ? nextPoll.getEpochSecond() - lastPoll.getEpochSecond() : Double.NaN;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double stalenessSeconds() {
+        lock.lock();
+        try {
+            return lastObservationTimestamp != null
+                ? Instant.now().getEpochSecond() - lastObservationTimestamp : Double.NaN;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
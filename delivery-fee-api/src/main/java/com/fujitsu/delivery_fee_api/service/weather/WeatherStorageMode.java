@@ -0,0 +1,16 @@
+package com.fujitsu.delivery_fee_api.service.weather;
+
+/**
+ * How imported observations are stored in the weather data table.
+ */
+public enum WeatherStorageMode {
+    /**
+     * Every observation is stored as a row; rows are valid from their observation timestamp until further notice.
+     */
+    ROW_PER_OBSERVATION,
+    /**
+     * A row is only stored when the air temperature, wind speed or weather phenomenon of a station changes;
+     * every row is valid from its observation timestamp until the next change of the station.
+     */
+    CHANGES_ONLY
+}
@@ -0,0 +1,27 @@
+package com.fujitsu.delivery_fee_api.service.weather.provider;
+
+import java.io.IOException;
+
+/**
+ * Receives the feed fetched by a {@link WeatherProvider}.
+ *
+ * @param <T> the result type of the handler
+ */
+public interface WeatherFeedHandler<T> {
+
+    /**
+     * Reads the feed. The body is closed by the provider once the handler returns.
+     *
+     * @param response  the feed with the validators it was served with
+     * @return          the result of the handler
+     * @throws IOException if the feed could not be read
+     */
+    T feed(WeatherFeedResponse response) throws IOException;
+
+    /**
+     * Called instead of {@link #feed} when the feed has not been modified since the given validators.
+     *
+     * @return the result of the handler
+     */
+    T notModified();
+}
@@ -0,0 +1,14 @@
+package com.fujitsu.delivery_fee_api.service.weather.provider;
+
+import java.io.InputStream;
+
+/**
+ * A feed as served by a {@link WeatherProvider}.
+ *
+ * @param body             the feed, still encoded
+ * @param contentEncoding  the encoding of the body, e.g. gzip, null if it is not encoded
+ * @param eTag             the ETag of the feed, null if there is none
+ * @param lastModified     the Last-Modified of the feed, null if there is none
+ */
+public record WeatherFeedResponse(InputStream body, String contentEncoding, String eTag, String lastModified) {
+}
@@ -0,0 +1,31 @@
+package com.fujitsu.delivery_fee_api.service.weather.provider;
+
+import java.io.IOException;
+
+/**
+ * A source of the observations feed. Providers only deliver the raw feed; decoding, parsing and deciding whether it
+ * has to be imported is left to the {@link WeatherFeedHandler}.
+ */
+public interface WeatherProvider {
+
+    /**
+     * Returns the name the provider is selected by in {@code weather.provider.primary} and
+     * {@code weather.provider.secondary}.
+     *
+     * @return the name of the provider
+     */
+    String getName();
+
+    /**
+     * Fetches the feed and hands it to the handler while it is open.
+     *
+     * @param eTag          the ETag of the last feed imported from this provider, null to fetch unconditionally
+     * @param lastModified  the Last-Modified of the last feed imported from this provider, null to fetch unconditionally
+     * @param handler       reads the feed, or is told that it has not been modified
+     * @param <T>           the result type of the handler
+     * @return              the result of the handler
+     * @throws IOException      if the feed could not be read
+     * @throws RuntimeException if the feed could not be fetched
+     */
+    <T> T fetch(String eTag, String lastModified, WeatherFeedHandler<T> handler) throws IOException;
+}
@@ -0,0 +1,63 @@
+package com.fujitsu.delivery_fee_api.service.weather.provider.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import com.fujitsu.delivery_fee_api.service.weather.provider.WeatherFeedHandler;
+import com.fujitsu.delivery_fee_api.service.weather.provider.WeatherFeedResponse;
+import com.fujitsu.delivery_fee_api.service.weather.provider.WeatherProvider;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fetches the observations feed from {@code weather.api.url}, conditionally on the given validators and accepting
+ * gzip.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HttpWeatherProvider implements WeatherProvider {
+
+    @Value("${weather.api.url}")
+    private String weatherApiUrl;
+
+    private final RestTemplate restTemplate;
+
+    @Override
+    public String getName() {
+        return "http";
+    }
+
+    @Override
+    public <T> T fetch(String eTag, String lastModified, WeatherFeedHandler<T> handler) {
+        return restTemplate.execute(weatherApiUrl, HttpMethod.GET,
+            request -> {
+                HttpHeaders headers = request.getHeaders();
+                headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+                if (eTag != null) {
+                    headers.set(HttpHeaders.IF_NONE_MATCH, eTag);
+                }
+                if (lastModified != null) {
+                    headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+                }
+            },
+            response -> {
+                if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                    return handler.notModified();
+                }
+                if (response.getStatusCode() != HttpStatus.OK) {
+                    log.error("Failed to fetch weather data: HTTP Status {}", response.getStatusCode());
+                    throw new RuntimeException("Failed to fetch weather data");
+                }
+                HttpHeaders headers = response.getHeaders();
+                return handler.feed(new WeatherFeedResponse(response.getBody(),
+                    headers.getFirst(HttpHeaders.CONTENT_ENCODING), headers.getETag(),
+                    headers.getFirst(HttpHeaders.LAST_MODIFIED)));
+            });
+    }
+}
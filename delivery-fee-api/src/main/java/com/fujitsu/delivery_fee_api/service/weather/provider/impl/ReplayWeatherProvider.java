@@ -0,0 +1,143 @@
+package com.fujitsu.delivery_fee_api.service.weather.provider.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fujitsu.delivery_fee_api.service.weather.provider.WeatherFeedHandler;
+import com.fujitsu.delivery_fee_api.service.weather.provider.WeatherFeedResponse;
+import com.fujitsu.delivery_fee_api.service.weather.provider.WeatherProvider;
+import com.fujitsu.delivery_fee_api.util.ObservationFeedReader;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Replays a directory of recorded observation feeds, {@code .xml} or gzip compressed {@code .xml.gz} files, so imports
+ * and quotes can be exercised without the weather service.
+ * <p>
+ * The recording starts with the first fetch: from then on the replay clock runs {@code weather.replay.speed} times
+ * as fast as the wall clock from the earliest observation timestamp of the recording, and every fetch serves the
+ * latest feed whose observation timestamp the replay clock has reached. The last feed is served once the recording
+ * has ended. Feeds carry their observation timestamp as ETag, so a feed that has already been served is answered
+ * as not modified.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReplayWeatherProvider implements WeatherProvider {
+
+    @Value("${weather.replay.directory:}")
+    private String directory;
+
+    @Value("${weather.replay.speed:60}")
+    private double speed;
+
+    private final ObservationFeedReader observationFeedReader;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private List<RecordedFeed> recording;
+    private Instant startedAt;
+
+    @Override
+    public String getName() {
+        return "replay";
+    }
+
+    @Override
+    public <T> T fetch(String eTag, String lastModified, WeatherFeedHandler<T> handler) throws IOException {
+        RecordedFeed feed = current(Instant.now());
+        String feedETag = "\"" + feed.observationTimestamp() + "\"";
+        if (feedETag.equals(eTag)) {
+            return handler.notModified();
+        }
+        try (InputStream body = Files.newInputStream(feed.path())) {
+            return handler.feed(new WeatherFeedResponse(body, isGzip(feed.path()) ? "gzip" : null, feedETag, null));
+        }
+    }
+
+    /**
+     * Returns the feed the replay clock has reached, starting the replay on the first call.
+     *
+     * @param now  the current time
+     * @return     the latest feed whose observation timestamp is not after the replay clock
+     * @throws IOException if the recording could not be read
+     */
+    RecordedFeed current(Instant now) throws IOException {
+        lock.lock();
+        try {
+            if (recording == null) {
+                recording = load();
+                startedAt = now;
+                log.info("Replaying {} recorded weather feeds from {} at {}x speed", recording.size(), directory, speed);
+            }
+            double replayedSeconds = Duration.between(startedAt, now).toMillis() / 1000.0 * speed;
+            long replayTime = recording.get(0).observationTimestamp() + (long) replayedSeconds;
+            RecordedFeed current = recording.get(0);
+            for (RecordedFeed feed : recording) {
+                if (feed.observationTimestamp() > replayTime) {
+                    break;
+                }
+                current = feed;
+            }
+            return current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<RecordedFeed> load() throws IOException {
+        if (directory == null || directory.isBlank()) {
+            throw new IllegalStateException("weather.replay.directory is not set");
+        }
+        List<RecordedFeed> feeds = new ArrayList<>();
+        try (Stream<Path> files = Files.list(Path.of(directory))) {
+            for (Path path : files.filter(ReplayWeatherProvider::isFeed).toList()) {
+                feeds.add(new RecordedFeed(path, readObservationTimestamp(path)));
+            }
+        }
+        if (feeds.isEmpty()) {
+            throw new IllegalStateException("No recorded weather feeds in " + directory);
+        }
+        feeds.sort(Comparator.comparingInt(RecordedFeed::observationTimestamp));
+        return feeds;
+    }
+
+    private int readObservationTimestamp(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path);
+             InputStream feed = isGzip(path) ? new GZIPInputStream(in) : in) {
+            return observationFeedReader.read(feed, Set.of(), timestamp -> false).timestamp();
+        }
+    }
+
+    private static boolean isFeed(Path path) {
+        String name = path.getFileName().toString();
+        return Files.isRegularFile(path) && (name.endsWith(".xml") || isGzip(path));
+    }
+
+    private static boolean isGzip(Path path) {
+        return path.getFileName().toString().endsWith(".xml.gz");
+    }
+
+    /**
+     * A recorded feed.
+     *
+     * @param path                  the file of the feed
+     * @param observationTimestamp  the observation timestamp of the feed in epoch seconds
+     */
+    record RecordedFeed(Path path, int observationTimestamp) {
+    }
+}
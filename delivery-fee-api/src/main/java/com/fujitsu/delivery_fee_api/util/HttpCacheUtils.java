@@ -0,0 +1,59 @@
+package com.fujitsu.delivery_fee_api.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.StringJoiner;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Builds the validators and cache lifetimes of cacheable GET responses.
+ * <p>
+ * Current fees and observations only change when weather data is imported, so responses may be cached until the next
+ * import has finished. Fee and tariff edits in between are picked up by clients revalidating with the ETag once the
+ * lifetime has passed.
+ */
+@Component
+public class HttpCacheUtils {
+
+    @Value("${http.cache.enabled:true}")
+    private boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Builds a strong ETag from the values a response depends on.
+     *
+     * @param parts  the values the response depends on, may contain nulls
+     * @return       the quoted ETag
+     */
+    public String eTag(Object... parts) {
+        StringJoiner joiner = new StringJoiner("|");
+        for (Object part : parts) {
+            joiner.add(String.valueOf(part));
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(joiner.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Returns the Cache-Control of responses that change with the weather imports: public, with a max-age reaching
+     * until the next import is expected to have finished. Without a known deadline responses have to be revalidated
+     * every time.
+     *
+     * @param nextImportDeadline  by when the next import is expected to have finished, null if unknown
+     * @return                    the Cache-Control
+     */
+    public CacheControl untilNextImport(Instant nextImportDeadline) {
+        if (nextImportDeadline == null) {
+            return CacheControl.noCache().cachePublic();
+        }
+        Duration maxAge = Duration.between(Instant.now(), nextImportDeadline);
+        return CacheControl.maxAge(maxAge.isNegative() ? Duration.ZERO : maxAge).cachePublic();
+    }
+}
@@ -0,0 +1,38 @@
+package com.fujitsu.delivery_fee_api.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between fee amounts and their fixed-point representation in cents.
+ */
+public final class MoneyUtils {
+
+    private static final int CENT_SCALE = 2;
+
+    private MoneyUtils() {
+    }
+
+    /**
+     * Converts an amount to cents, rounding half up to whole cents.
+     *
+     * @param amount the amount, may be null
+     * @return       the amount in cents, or 0 if the amount is null
+     */
+    public static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(CENT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts an amount in cents to a BigDecimal with two decimal places.
+     *
+     * @param cents the amount in cents
+     * @return      the amount
+     */
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, CENT_SCALE);
+    }
+}
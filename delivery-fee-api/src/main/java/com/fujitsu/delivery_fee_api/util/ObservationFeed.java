@@ -0,0 +1,16 @@
+package com.fujitsu.delivery_fee_api.util;
+
+import java.util.List;
+
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+
+/**
+ * An observations feed as read by the {@link ObservationFeedReader}.
+ *
+ * @param timestamp     the observation timestamp of the feed in epoch seconds
+ * @param observations  the observations of the relevant stations, or null if the stations were not read
+ * @param stationsSeen  the number of stations in the feed, 0 if the stations were not read
+ * @param filterNanos   the time spent reading and skipping the stations that are not relevant
+ */
+public record ObservationFeed(int timestamp, List<WeatherDataDTO> observations, int stationsSeen, long filterNanos) {
+}
@@ -0,0 +1,262 @@
+package com.fujitsu.delivery_fee_api.util;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.springframework.stereotype.Component;
+
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streaming reader of the ilmateenistus observations feed.
+ * <p>
+ * The feed is pulled element by element from the input stream instead of being bound to objects by an {@code XmlMapper}.
+ * The WMO code of a station is parsed from the character buffer of the parser without creating a string, and a station
+ * whose code is not relevant is skipped as soon as its code is known, without reading the rest of its elements. The name
+ * of a station precedes its WMO code, so it is copied into a buffer that is reused for every station. Only the stations
+ * that are kept have their name, phenomenon and numeric fields materialized.
+ */
+@Slf4j
+@Component
+public class ObservationFeedReader {
+
+    private static final String OBSERVATIONS = "observations";
+    private static final String STATION = "station";
+    private static final String TIMESTAMP = "timestamp";
+
+    private final XMLInputFactory inputFactory;
+
+    public ObservationFeedReader() {
+        inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    /**
+     * Reads the observations of the relevant stations from the feed.
+     *
+     * @param feed              the feed, is not closed
+     * @param relevantWmoCodes  the WMO codes of the stations to keep
+     * @return                  the observations of the relevant stations, in feed order,
+     *                          all with the observation timestamp of the feed
+     * @throws IllegalStateException if the feed is not well-formed or has no valid timestamp
+     */
+    public List<WeatherDataDTO> read(InputStream feed, Set<Integer> relevantWmoCodes) {
+        return read(feed, relevantWmoCodes, timestamp -> true).observations();
+    }
+
+    /**
+     * Reads the observations of the relevant stations from the feed, unless the observation timestamp of the feed is
+     * rejected. A rejected feed is not read past its root element.
+     *
+     * @param feed              the feed, is not closed
+     * @param relevantWmoCodes  the WMO codes of the stations to keep
+     * @param timestampFilter   tells whether the stations of a feed with the given observation timestamp are read
+     * @return                  the observation timestamp of the feed, with the observations of the relevant stations
+     *                          in feed order, or with null observations if the timestamp was rejected
+     * @throws IllegalStateException if the feed is not well-formed or has no valid timestamp
+     */
+    public ObservationFeed read(InputStream feed, Set<Integer> relevantWmoCodes, IntPredicate timestampFilter) {
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory.createXMLStreamReader(feed);
+            return readObservations(reader, relevantWmoCodes, timestampFilter);
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Malformed observations feed: " + e.getMessage(), e);
+        } finally {
+            close(reader);
+        }
+    }
+
+    private ObservationFeed readObservations(XMLStreamReader reader, Set<Integer> relevantWmoCodes,
+                                             IntPredicate timestampFilter) throws XMLStreamException {
+        reader.nextTag();
+        reader.require(XMLStreamConstants.START_ELEMENT, null, OBSERVATIONS);
+        Integer observationTimestamp = parseInteger(reader.getAttributeValue(null, TIMESTAMP));
+        if (observationTimestamp == null) {
+            throw new IllegalStateException("Observations feed has no valid timestamp");
+        }
+        if (!timestampFilter.test(observationTimestamp)) {
+            return new ObservationFeed(observationTimestamp, null, 0, 0);
+        }
+
+        List<WeatherDataDTO> observations = new ArrayList<>(relevantWmoCodes.size());
+        StringBuilder nameBuffer = new StringBuilder(64);
+        int stationsSeen = 0;
+        long filterNanos = 0;
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (!STATION.equals(reader.getLocalName())) {
+                skipElement(reader);
+                continue;
+            }
+            stationsSeen++;
+            long stationStart = System.nanoTime();
+            WeatherDataDTO observation = readStation(reader, relevantWmoCodes, nameBuffer);
+            if (observation != null) {
+                observation.setObservationTimestamp(observationTimestamp);
+                observations.add(observation);
+            } else {
+                filterNanos += System.nanoTime() - stationStart;
+            }
+        }
+        return new ObservationFeed(observationTimestamp, observations, stationsSeen, filterNanos);
+    }
+
+    /**
+     * Reads one station element, leaving the reader on its end tag.
+     *
+     * @param nameBuffer  holds the name of the station until the station is known to be relevant
+     * @return            the observation, or null if the station is not relevant
+     */
+    private WeatherDataDTO readStation(XMLStreamReader reader, Set<Integer> relevantWmoCodes,
+                                       StringBuilder nameBuffer) throws XMLStreamException {
+        WeatherDataDTO observation = new WeatherDataDTO();
+        boolean hasName = false;
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "name" -> {
+                    readText(reader, nameBuffer);
+                    hasName = true;
+                }
+                case "wmocode" -> {
+                    int wmoCode = readInt(reader);
+                    if (wmoCode < 0 || !relevantWmoCodes.contains(wmoCode)) {
+                        skipRemainder(reader);
+                        return null;
+                    }
+                    observation.setWmoCode(wmoCode);
+                }
+                case "airtemperature" -> observation.setAirTemperature(parseFloat(readText(reader)));
+                case "windspeed" -> observation.setWindSpeed(parseFloat(readText(reader)));
+                case "phenomenon" -> observation.setWeatherPhenomenon(emptyToNull(readText(reader)));
+                default -> skipElement(reader);
+            }
+        }
+        if (observation.getWmoCode() == null) {
+            return null;
+        }
+        if (hasName) {
+            observation.setStationName(nameBuffer.toString().strip());
+        }
+        return observation;
+    }
+
+    /**
+     * Parses the content of a text-only element as a non-negative int straight from the parser's character buffer.
+     *
+     * @return the value, or -1 if the element is empty or not a non-negative int
+     */
+    private static int readInt(XMLStreamReader reader) throws XMLStreamException {
+        int value = 0;
+        int digits = 0;
+        boolean valid = true;
+        int event;
+        while ((event = reader.next()) != XMLStreamConstants.END_ELEMENT) {
+            if (event != XMLStreamConstants.CHARACTERS && event != XMLStreamConstants.SPACE) {
+                continue;
+            }
+            char[] text = reader.getTextCharacters();
+            int end = reader.getTextStart() + reader.getTextLength();
+            for (int i = reader.getTextStart(); i < end && valid; i++) {
+                char c = text[i];
+                if (c >= '0' && c <= '9' && digits < 9) {
+                    value = value * 10 + (c - '0');
+                    digits++;
+                } else if (!Character.isWhitespace(c)) {
+                    valid = false;
+                }
+            }
+        }
+        return valid && digits > 0 ? value : -1;
+    }
+
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        return reader.getElementText().strip();
+    }
+
+    /**
+     * Copies the content of a text-only element from the parser's character buffer into the given buffer.
+     */
+    private static void readText(XMLStreamReader reader, StringBuilder buffer) throws XMLStreamException {
+        buffer.setLength(0);
+        int event;
+        while ((event = reader.next()) != XMLStreamConstants.END_ELEMENT) {
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE) {
+                buffer.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                throw new XMLStreamException("Unexpected element in text-only element", reader.getLocation());
+            }
+        }
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Skips the remaining children of the current element, leaving the reader on its end tag.
+     */
+    private static void skipRemainder(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            skipElement(reader);
+        }
+    }
+
+    private static Float parseFloat(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid number in observations feed: {}", value);
+            return null;
+        }
+    }
+
+    private static Integer parseInteger(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value.strip());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static void close(XMLStreamReader reader) {
+        if (reader == null) {
+            return;
+        }
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            log.debug("Could not close observations feed reader", e);
+        }
+    }
+}
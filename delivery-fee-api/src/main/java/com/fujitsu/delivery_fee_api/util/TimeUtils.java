@@ -1,5 +1,6 @@
 package com.fujitsu.delivery_fee_api.util;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -23,6 +24,10 @@ public class TimeUtils {
         return Math.toIntExact(zonedDateTime.toEpochSecond());
     }
 
+    public LocalDateTime convertToLocalDateTime(int epochSeconds) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSeconds), ZoneId.of(TALLINN_ZONE));
+    }
+
     public static LocalDateTime getCurrentDateTimeIfNull(LocalDateTime dateTime) {
         return Optional.ofNullable(dateTime).orElseGet(() -> {
             log.info("No dateTime provided. Using current time: {}", LocalDateTime.now());
@@ -0,0 +1,93 @@
+package com.fujitsu.delivery_fee_api.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fujitsu.delivery_fee_api.DeliveryFeeApiApplication;
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+import com.fujitsu.delivery_fee_api.model.City;
+import com.fujitsu.delivery_fee_api.model.VehicleType;
+import com.fujitsu.delivery_fee_api.repository.CityRepository;
+import com.fujitsu.delivery_fee_api.repository.VehicleTypeRepository;
+import com.fujitsu.delivery_fee_api.service.DeliveryFeeCalculationService;
+import com.fujitsu.delivery_fee_api.service.fee.FeeOutcome;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffLookup;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffSnapshotService;
+
+/**
+ * Compares the BigDecimal and the cents fee arithmetic on the full calculation pipeline,
+ * from the tariff lookups to the rounded total fee.
+ * <p>
+ * The weather has no phenomenon so the benchmark is not dominated by the phenomenon type query.
+ * Allocation rates are reported by the gc profiler the benchmark profile enables.
+ * Run with {@code mvn -P benchmark test -DskipTests -Dbenchmark.include=FeeArithmeticBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeeArithmeticBenchmark {
+
+    private static final LocalDateTime QUERY_TIME = LocalDateTime.of(2024, 1, 15, 12, 0);
+
+    @Param({"DECIMAL", "CENTS"})
+    String arithmetic;
+
+    private ConfigurableApplicationContext context;
+    private DeliveryFeeCalculationService deliveryFeeCalculationService;
+    private TariffLookup tariff;
+    private City city;
+    private VehicleType vehicleType;
+    private WeatherDataDTO weatherData;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DeliveryFeeApiApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false",
+                     "--logging.level.root=WARN",
+                     "--logging.level.com.fujitsu=WARN",
+                     "--fee.arithmetic=" + arithmetic);
+        deliveryFeeCalculationService = context.getBean(DeliveryFeeCalculationService.class);
+        tariff = context.getBean(TariffSnapshotService.class).getCurrentTariff();
+        city = context.getBean(CityRepository.class).findByName("Tallinn");
+        vehicleType = context.getBean(VehicleTypeRepository.class).findByName("Bike");
+
+        weatherData = new WeatherDataDTO();
+        weatherData.setStationName("Tallinn-Harku");
+        weatherData.setWmoCode(city.getWmoCode());
+        weatherData.setAirTemperature(-5.0f);
+        weatherData.setWindSpeed(15.0f);
+        weatherData.setObservationTimestamp(1705320000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public FeeOutcome calculateFee() {
+        return deliveryFeeCalculationService.calculateFeeOutcome(city, vehicleType, weatherData, QUERY_TIME, tariff);
+    }
+}
@@ -0,0 +1,89 @@
+package com.fujitsu.delivery_fee_api.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fujitsu.delivery_fee_api.config.JacksonConfig;
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+import com.fujitsu.delivery_fee_api.util.ObservationFeedReader;
+
+/**
+ * Compares reading the relevant stations of a recorded observations feed with the {@code XmlMapper.readValue} based
+ * {@link WeatherDataParser} and with the streaming {@link ObservationFeedReader}.
+ * <p>
+ * Both paths start from the raw bytes of the response and end with the {@code WeatherDataDTO}s that are saved, so the
+ * parser path includes decoding the body into a string and mapping the stations. Run with the GC profiler to compare
+ * allocation as well:
+ * {@code mvn -P benchmark test -DskipTests -Dbenchmark.include=ObservationFeedParserBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObservationFeedParserBenchmark {
+
+    private static final Set<Integer> RELEVANT_WMO_CODES = Set.of(26038, 26242, 41803);
+
+    @Param({"/feeds/observations.xml"})
+    String feedFile;
+
+    private byte[] feed;
+    private List<Integer> relevantWmoCodeList;
+    private WeatherDataParser weatherDataParser;
+    private ObservationFeedReader observationFeedReader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (InputStream in = ObservationFeedParserBenchmark.class.getResourceAsStream(feedFile)) {
+            feed = in.readAllBytes();
+        }
+        relevantWmoCodeList = List.copyOf(RELEVANT_WMO_CODES);
+        weatherDataParser = new WeatherDataParser(new JacksonConfig().xmlMapper());
+        observationFeedReader = new ObservationFeedReader();
+    }
+
+    @Benchmark
+    public List<WeatherDataDTO> xmlMapper() {
+        ObservationsDTO observations = weatherDataParser.parseWeatherDataToDTO(
+                new String(feed, StandardCharsets.UTF_8), relevantWmoCodeList);
+        return observations.getStations().stream()
+            .map(station -> toWeatherDataDto(station, observations.getTimestamp()))
+            .toList();
+    }
+
+    @Benchmark
+    public List<WeatherDataDTO> streaming() {
+        return observationFeedReader.read(new ByteArrayInputStream(feed), RELEVANT_WMO_CODES);
+    }
+
+    private static WeatherDataDTO toWeatherDataDto(StationDTO station, String timestamp) {
+        WeatherDataDTO weatherDataDTO = new WeatherDataDTO();
+        weatherDataDTO.setStationName(station.getName());
+        weatherDataDTO.setWmoCode(Integer.parseInt(station.getWmocode()));
+        weatherDataDTO.setAirTemperature(station.getAirtemperature() != null ? Float.parseFloat(station.getAirtemperature()) : null);
+        weatherDataDTO.setWindSpeed(station.getWindspeed() != null ? Float.parseFloat(station.getWindspeed()) : null);
+        weatherDataDTO.setWeatherPhenomenon(station.getPhenomenon());
+        weatherDataDTO.setObservationTimestamp(Integer.parseInt(timestamp));
+        return weatherDataDTO;
+    }
+}
@@ -0,0 +1,135 @@
+package com.fujitsu.delivery_fee_api.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fujitsu.delivery_fee_api.DeliveryFeeApiApplication;
+import com.fujitsu.delivery_fee_api.model.VehicleType;
+import com.fujitsu.delivery_fee_api.repository.AirTemperatureExtraFeeRepository;
+import com.fujitsu.delivery_fee_api.repository.VehicleTypeRepository;
+import com.fujitsu.delivery_fee_api.repository.WindSpeedExtraFeeRepository;
+import com.fujitsu.delivery_fee_api.service.tariff.RangeFeeIndex;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffLookup;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffRule;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffSnapshotService;
+
+/**
+ * Compares the banded extra fee lookups of the repository queries with the in-memory {@link RangeFeeIndex}.
+ * <p>
+ * Run with {@code mvn -P benchmark test -DskipTests -Dbenchmark.include=RangeFeeIndexBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RangeFeeIndexBenchmark {
+
+    private static final LocalDateTime QUERY_TIME = LocalDateTime.of(2024, 1, 15, 12, 0);
+
+    /**
+     * Application context seeded with the test profile fee tables.
+     */
+    @State(Scope.Benchmark)
+    public static class SeededTariff {
+        ConfigurableApplicationContext context;
+        AirTemperatureExtraFeeRepository airTemperatureExtraFeeRepository;
+        WindSpeedExtraFeeRepository windSpeedExtraFeeRepository;
+        TariffLookup snapshot;
+        Long bikeId;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new SpringApplicationBuilder(DeliveryFeeApiApplication.class)
+                    .profiles("test")
+                    .web(WebApplicationType.NONE)
+                    .run("--spring.jpa.show-sql=false",
+                         "--logging.level.root=WARN",
+                         "--logging.level.com.fujitsu=WARN");
+            airTemperatureExtraFeeRepository = context.getBean(AirTemperatureExtraFeeRepository.class);
+            windSpeedExtraFeeRepository = context.getBean(WindSpeedExtraFeeRepository.class);
+            snapshot = context.getBean(TariffSnapshotService.class).getCurrentTariff();
+            VehicleType bike = context.getBean(VehicleTypeRepository.class).findByName("Bike");
+            bikeId = bike.getId();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    /**
+     * Synthetic index with many adjacent bands and several effective-date versions per band.
+     */
+    @State(Scope.Benchmark)
+    public static class LargeIndex {
+        @Param({"4", "64", "1024"})
+        int bandCount;
+
+        RangeFeeIndex index;
+        float value;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            List<RangeFeeIndex.Band> bands = new ArrayList<>();
+            long id = 0;
+            for (int version = 0; version < 4; version++) {
+                LocalDateTime effectiveDate = LocalDateTime.of(2023, 1, 1, 0, 0).plusMonths(version);
+                for (int band = 0; band < bandCount; band++) {
+                    TariffRule rule = new TariffRule(++id, BigDecimal.valueOf(band, 2), false, effectiveDate);
+                    bands.add(new RangeFeeIndex.Band((float) band, band + 1.0f, rule));
+                }
+            }
+            index = RangeFeeIndex.build(bands);
+            value = bandCount / 3.0f + 0.5f;
+        }
+    }
+
+    @Benchmark
+    public Object repositoryAirTemperatureLookup(SeededTariff state) {
+        return state.airTemperatureExtraFeeRepository
+                .findLatestByTemperatureAndVehicleTypeAndQueryTime(-5.0f, state.bikeId, QUERY_TIME);
+    }
+
+    @Benchmark
+    public Object snapshotAirTemperatureLookup(SeededTariff state) {
+        return state.snapshot.findAirTemperatureExtraFee(-5.0f, state.bikeId, QUERY_TIME);
+    }
+
+    @Benchmark
+    public Object repositoryWindSpeedLookup(SeededTariff state) {
+        return state.windSpeedExtraFeeRepository
+                .findLatestByWindSpeedAndVehicleTypeAndQueryTime(15.0f, state.bikeId, QUERY_TIME);
+    }
+
+    @Benchmark
+    public Object snapshotWindSpeedLookup(SeededTariff state) {
+        return state.snapshot.findWindSpeedExtraFee(15.0f, state.bikeId, QUERY_TIME);
+    }
+
+    @Benchmark
+    public TariffRule indexLookup(LargeIndex state) {
+        return state.index.find(state.value, QUERY_TIME);
+    }
+}
@@ -0,0 +1,120 @@
+package com.fujitsu.delivery_fee_api.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fujitsu.delivery_fee_api.config.JacksonConfig;
+import com.fujitsu.delivery_fee_api.dto.FeeQuoteResultDTO;
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+import com.fujitsu.delivery_fee_api.service.fee.FeeOutcome;
+
+/**
+ * Compares encoding and decoding cost of JSON, Smile and CBOR on the payloads of {@code GET /api/weather}
+ * and {@code POST /api/delivery/batch}, using the mappers of {@link JacksonConfig}.
+ * <p>
+ * The encoded size of each payload is printed at the start of every trial.
+ * Run with {@code mvn -P benchmark test -DskipTests -Dbenchmark.include=SerializationFormatBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationFormatBenchmark {
+
+    private static final TypeReference<List<WeatherDataDTO>> WEATHER_DATA_LIST = new TypeReference<>() { };
+    private static final TypeReference<List<FeeQuoteResultDTO>> QUOTE_RESULT_LIST = new TypeReference<>() { };
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    String format;
+
+    @Param({"1000"})
+    int itemCount;
+
+    private ObjectMapper mapper;
+    private List<WeatherDataDTO> weatherData;
+    private List<FeeQuoteResultDTO> quoteResults;
+    private byte[] encodedWeatherData;
+    private byte[] encodedQuoteResults;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        JacksonConfig jacksonConfig = new JacksonConfig();
+        mapper = switch (format) {
+            case "SMILE" -> jacksonConfig.smileMapper();
+            case "CBOR" -> jacksonConfig.cborMapper();
+            default -> jacksonConfig.objectMapper();
+        };
+
+        String[] stations = {"Tallinn-Harku", "Tartu-Tõravere", "Pärnu"};
+        String[] phenomena = {"Clear", "Light snow shower", "Moderate rain", "Glaze"};
+        weatherData = new ArrayList<>();
+        quoteResults = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            WeatherDataDTO dto = new WeatherDataDTO();
+            dto.setId((long) i);
+            dto.setStationName(stations[i % stations.length]);
+            dto.setWmoCode(26038 + i % stations.length);
+            dto.setAirTemperature(-10.0f + i % 30);
+            dto.setWindSpeed((i % 25) / 1.5f);
+            dto.setWeatherPhenomenon(phenomena[i % phenomena.length]);
+            dto.setObservationTimestamp(1705312800 + i * 3600);
+            weatherData.add(dto);
+
+            FeeQuoteResultDTO result = new FeeQuoteResultDTO();
+            result.setIndex(i);
+            result.setCity(i % 2 == 0 ? "Tallinn" : "Tartu");
+            result.setVehicleType(i % 3 == 0 ? "Bike" : "Car");
+            result.setDateTime(LocalDateTime.of(2024, 1, 15, 12, 0).plusMinutes(i));
+            result.setStatus(FeeOutcome.Status.OK);
+            result.setFee(BigDecimal.valueOf(350 + i % 200, 2));
+            result.setObservationTimestamp(1705312800 + (i / 60) * 3600);
+            quoteResults.add(result);
+        }
+
+        encodedWeatherData = mapper.writeValueAsBytes(weatherData);
+        encodedQuoteResults = mapper.writeValueAsBytes(quoteResults);
+        System.out.printf("%n%s: weather data %d bytes, batch results %d bytes%n",
+                format, encodedWeatherData.length, encodedQuoteResults.length);
+    }
+
+    @Benchmark
+    public byte[] encodeWeatherData() throws IOException {
+        return mapper.writeValueAsBytes(weatherData);
+    }
+
+    @Benchmark
+    public List<WeatherDataDTO> decodeWeatherData() throws IOException {
+        return mapper.readValue(encodedWeatherData, WEATHER_DATA_LIST);
+    }
+
+    @Benchmark
+    public byte[] encodeQuoteResults() throws IOException {
+        return mapper.writeValueAsBytes(quoteResults);
+    }
+
+    @Benchmark
+    public List<FeeQuoteResultDTO> decodeQuoteResults() throws IOException {
+        return mapper.readValue(encodedQuoteResults, QUOTE_RESULT_LIST);
+    }
+}
@@ -1,4 +1,4 @@
-package com.fujitsu.delivery_fee_api.dto;
+package com.fujitsu.delivery_fee_api.benchmark;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
@@ -0,0 +1,152 @@
+package com.fujitsu.delivery_fee_api.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fujitsu.delivery_fee_api.DeliveryFeeApiApplication;
+import com.fujitsu.delivery_fee_api.model.WeatherData;
+import com.fujitsu.delivery_fee_api.repository.WeatherDataRepository;
+
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Load test of the fee endpoint over HTTP with request handling on platform threads and on virtual threads.
+ * <p>
+ * Every request has an explicit date/time, so it queries the weather data table over JDBC, and many client threads
+ * keep more requests in flight than Tomcat has platform threads. Throughput mode reports requests per second,
+ * sample time mode reports the latency percentiles including p0.99.
+ * <p>
+ * While the application runs on virtual threads, every {@code jdk.VirtualThreadPinned} JFR event is counted by
+ * its innermost frame outside of the JDK and printed at the end of the trial, so new {@code synchronized} blocks around blocking calls show up.
+ * Run with {@code mvn -P benchmark test -DskipTests -Dbenchmark.include=ThreadModelLoadBenchmark}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(256)
+@Fork(1)
+public class ThreadModelLoadBenchmark {
+
+    private static final LocalDateTime FIRST_OBSERVATION = LocalDateTime.of(2024, 1, 15, 0, 0);
+    private static final int OBSERVATION_COUNT = 24;
+
+    /**
+     * Application started on a random port, with weather observations for every hour of one day.
+     */
+    @State(Scope.Benchmark)
+    public static class RunningApplication {
+        @Param({"false", "true"})
+        boolean virtualThreads;
+
+        ConfigurableApplicationContext context;
+        HttpClient httpClient;
+        String baseUrl;
+        RecordingStream pinnedEvents;
+        final Map<String, LongAdder> pinnedFrames = new ConcurrentHashMap<>();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new SpringApplicationBuilder(DeliveryFeeApiApplication.class)
+                    .profiles("test")
+                    .web(WebApplicationType.SERVLET)
+                    .run("--server.port=0",
+                         "--spring.jpa.show-sql=false",
+                         "--logging.level.root=WARN",
+                         "--logging.level.com.fujitsu=WARN",
+                         "--weather.import.cron=-",
+                         "--weather.poll.adaptive=false",
+                         "--trace.sample-rate=0.0",
+                         "--spring.threads.virtual.enabled=" + virtualThreads);
+
+            WeatherDataRepository weatherDataRepository = context.getBean(WeatherDataRepository.class);
+            for (int hour = 0; hour < OBSERVATION_COUNT; hour++) {
+                int timestamp = (int) FIRST_OBSERVATION.plusHours(hour).atZone(ZoneId.of("Europe/Tallinn")).toEpochSecond();
+                weatherDataRepository.save(new WeatherData("Tallinn-Harku", 26038, -5.0f + hour, 5.0f, "Clear", timestamp));
+            }
+
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/delivery";
+            httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            if (virtualThreads) {
+                pinnedEvents = new RecordingStream();
+                pinnedEvents.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+                pinnedEvents.onEvent("jdk.VirtualThreadPinned", event -> {
+                    String frame = event.getStackTrace() == null ? "unknown" : describe(event.getStackTrace().getFrames());
+                    pinnedFrames.computeIfAbsent(frame, k -> new LongAdder()).increment();
+                });
+                pinnedEvents.startAsync();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (pinnedEvents != null) {
+                pinnedEvents.close();
+                Map<String, LongAdder> sorted = new TreeMap<>(pinnedFrames);
+                System.out.println("Virtual thread pinning events: " + (sorted.isEmpty() ? "none" : ""));
+                sorted.forEach((frame, count) -> System.out.println("  " + count.sum() + "  " + frame));
+            }
+            context.close();
+        }
+
+        /**
+         * Describes the innermost frame outside of the JDK, which is the code holding the monitor or making the native call.
+         */
+        private static String describe(List<RecordedFrame> frames) {
+            for (RecordedFrame frame : frames) {
+                String type = frame.getMethod().getType().getName();
+                if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                    return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+                }
+            }
+            return "JDK only";
+        }
+    }
+
+    @Benchmark
+    public int historicalFee(RunningApplication application) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime dateTime = FIRST_OBSERVATION
+                .plusHours(random.nextInt(OBSERVATION_COUNT))
+                .plusMinutes(random.nextInt(60));
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create(application.baseUrl + "/city/Tallinn/vehicle/Car?dateTime=" + dateTime)).GET().build();
+        return application.httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -1,10 +1,7 @@
-package com.fujitsu.delivery_fee_api.util;
+package com.fujitsu.delivery_fee_api.benchmark;
 
-import com.fujitsu.delivery_fee_api.dto.ObservationsDTO;
-import com.fujitsu.delivery_fee_api.dto.StationDTO;
 import com.fujitsu.delivery_fee_api.model.WeatherData;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
-import org.springframework.stereotype.Component;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -12,8 +9,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * The {@code XmlMapper.readValue} based parser the weather import used before the {@code ObservationFeedReader},
+ * kept as the baseline of the {@link ObservationFeedParserBenchmark}.
+ */
 @Slf4j
-@Component
 @RequiredArgsConstructor
 public class WeatherDataParser {
     
@@ -0,0 +1,108 @@
+package com.fujitsu.delivery_fee_api.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fujitsu.delivery_fee_api.DeliveryFeeApiApplication;
+import com.fujitsu.delivery_fee_api.model.WeatherData;
+import com.fujitsu.delivery_fee_api.repository.WeatherDataRepository;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherDataBatchWriter;
+
+/**
+ * Measures how many observation rows per second an import persists, with the batched writer and with one
+ * {@code WeatherDataRepository.save} per row as the import did before.
+ * <p>
+ * Each invocation persists one import of {@code rowCount} rows into an emptied table; the rows per second of every
+ * invocation are printed next to the JMH single shot times. Per-row saves of a million rows take minutes.
+ * Run with {@code mvn -P benchmark test -DskipTests -Dbenchmark.include=WeatherDataPersistenceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class WeatherDataPersistenceBenchmark {
+
+    private static final int[] STATIONS = {26038, 26242, 41803};
+
+    @Param({"1000", "100000", "1000000"})
+    int rowCount;
+
+    @Param({"batched", "perRow"})
+    String writer;
+
+    private ConfigurableApplicationContext context;
+    private WeatherDataRepository weatherDataRepository;
+    private WeatherDataBatchWriter weatherDataBatchWriter;
+    private List<WeatherData> rows;
+    private long startNanos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DeliveryFeeApiApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false",
+                     "--logging.level.root=WARN",
+                     "--logging.level.com.fujitsu=WARN",
+                     "--weather.import.cron=-",
+                     "--weather.poll.adaptive=false",
+                     "--spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                     "--spring.jpa.properties.hibernate.order_inserts=true");
+        weatherDataRepository = context.getBean(WeatherDataRepository.class);
+        weatherDataBatchWriter = context.getBean(WeatherDataBatchWriter.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareImport() {
+        weatherDataRepository.deleteAllInBatch();
+        rows = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            int station = STATIONS[i % STATIONS.length];
+            rows.add(new WeatherData("Station " + station, station, -10.0f + i % 30, (i % 25) / 1.5f, "Clear",
+                    1705312800 + (i / STATIONS.length) * 900));
+        }
+        startNanos = System.nanoTime();
+    }
+
+    @TearDown(Level.Invocation)
+    public void report() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("%n%s, %d rows: %.0f rows/s%n", writer, rowCount, rowCount / seconds);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int persistImport() {
+        if ("perRow".equals(writer)) {
+            for (WeatherData row : rows) {
+                weatherDataRepository.save(row);
+            }
+            return rows.size();
+        }
+        return weatherDataBatchWriter.upsertAll(rows).inserted();
+    }
+}
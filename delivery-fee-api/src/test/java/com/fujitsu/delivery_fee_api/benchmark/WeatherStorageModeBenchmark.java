@@ -0,0 +1,175 @@
+package com.fujitsu.delivery_fee_api.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fujitsu.delivery_fee_api.DeliveryFeeApiApplication;
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+import com.fujitsu.delivery_fee_api.model.WeatherData;
+import com.fujitsu.delivery_fee_api.repository.WeatherDataRepository;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherDataBatchWriter;
+import com.fujitsu.delivery_fee_api.util.ObservationFeedReader;
+
+/**
+ * Compares the storage modes on a month of hourly feeds of every station in the recorded feed.
+ * <p>
+ * The month is replayed from the recorded feed: every hour each station keeps its phenomenon with a probability of
+ * 0.9, its wind speed with 0.5 and its air temperature with 0.4, otherwise the value moves by a small step, which
+ * roughly matches the hour-to-hour changes of the feed at its 0.1 resolution. The month is imported feed by feed
+ * into an emptied table and the stored rows are printed; the as-of lookup is measured on the imported month.
+ * Run with {@code mvn -P benchmark test -DskipTests -Dbenchmark.include=WeatherStorageModeBenchmark}.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class WeatherStorageModeBenchmark {
+
+    private static final int FIRST_FEED = 1704067200;
+    private static final int HOURS = 31 * 24;
+    private static final Pattern WMO_CODE = Pattern.compile("<wmocode>(\\d+)</wmocode>");
+    private static final String[] PHENOMENA = {"Clear", "Few clouds", "Variable clouds", "Overcast", "Light snow shower",
+        "Light rain", "Moderate rain", "Mist"};
+
+    @Param({"ROW_PER_OBSERVATION", "CHANGES_ONLY"})
+    String storageMode;
+
+    private ConfigurableApplicationContext context;
+    private WeatherDataRepository weatherDataRepository;
+    private WeatherDataBatchWriter weatherDataBatchWriter;
+    private List<List<WeatherData>> month;
+    private List<Integer> wmoCodes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = new SpringApplicationBuilder(DeliveryFeeApiApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false",
+                     "--logging.level.root=WARN",
+                     "--logging.level.com.fujitsu=WARN",
+                     "--weather.import.cron=-",
+                     "--weather.poll.adaptive=false",
+                     "--weather.storage.mode=" + storageMode);
+        weatherDataRepository = context.getBean(WeatherDataRepository.class);
+        weatherDataBatchWriter = context.getBean(WeatherDataBatchWriter.class);
+
+        byte[] feed;
+        try (InputStream in = WeatherStorageModeBenchmark.class.getResourceAsStream("/feeds/observations.xml")) {
+            feed = in.readAllBytes();
+        }
+        Set<Integer> codes = new HashSet<>();
+        Matcher matcher = WMO_CODE.matcher(new String(feed));
+        while (matcher.find()) {
+            codes.add(Integer.parseInt(matcher.group(1)));
+        }
+        List<WeatherDataDTO> stations = new ObservationFeedReader().read(new ByteArrayInputStream(feed), codes);
+        wmoCodes = stations.stream().map(WeatherDataDTO::getWmoCode).toList();
+        month = replayMonth(stations);
+        importMonth();
+    }
+
+    private static List<List<WeatherData>> replayMonth(List<WeatherDataDTO> stations) {
+        Random random = new Random(42);
+        float[] temperature = new float[stations.size()];
+        float[] windSpeed = new float[stations.size()];
+        String[] phenomenon = new String[stations.size()];
+        for (int s = 0; s < stations.size(); s++) {
+            WeatherDataDTO station = stations.get(s);
+            temperature[s] = station.getAirTemperature() != null ? station.getAirTemperature() : 0.0f;
+            windSpeed[s] = station.getWindSpeed() != null ? station.getWindSpeed() : 0.0f;
+            phenomenon[s] = station.getWeatherPhenomenon() != null ? station.getWeatherPhenomenon() : PHENOMENA[0];
+        }
+        List<List<WeatherData>> feeds = new ArrayList<>(HOURS);
+        for (int hour = 0; hour < HOURS; hour++) {
+            List<WeatherData> feed = new ArrayList<>(stations.size());
+            for (int s = 0; s < stations.size(); s++) {
+                if (random.nextDouble() >= 0.4) {
+                    temperature[s] = Math.round((temperature[s] + (random.nextInt(9) - 4) / 10.0f) * 10) / 10.0f;
+                }
+                if (random.nextDouble() >= 0.5) {
+                    windSpeed[s] = Math.max(0.0f, Math.round((windSpeed[s] + (random.nextInt(11) - 5) / 10.0f) * 10) / 10.0f);
+                }
+                if (random.nextDouble() >= 0.9) {
+                    phenomenon[s] = PHENOMENA[random.nextInt(PHENOMENA.length)];
+                }
+                feed.add(new WeatherData(stations.get(s).getStationName(), stations.get(s).getWmoCode(),
+                        temperature[s], windSpeed[s], phenomenon[s], FIRST_FEED + hour * 3600));
+            }
+            feeds.add(feed);
+        }
+        return feeds;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long observations = (long) HOURS * wmoCodes.size();
+        long rows = weatherDataRepository.count();
+        System.out.printf("%n%s: %d observations of %d stations stored as %d rows (%.1f%%)%n",
+                storageMode, observations, wmoCodes.size(), rows, 100.0 * rows / observations);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public int importMonth() {
+        weatherDataRepository.deleteAllInBatch();
+        int written = 0;
+        for (List<WeatherData> feed : month) {
+            List<WeatherData> rows = new ArrayList<>(feed.size());
+            for (WeatherData observation : feed) {
+                rows.add(new WeatherData(observation.getStationName(), observation.getWmoCode(),
+                        observation.getAirTemperature(), observation.getWindSpeed(),
+                        observation.getWeatherPhenomenon(), observation.getObservationTimestamp()));
+            }
+            written += weatherDataBatchWriter.upsertAll(rows).inserted();
+        }
+        return written;
+    }
+
+    /**
+     * Looks up the observation of a station at a random time of the imported month.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public WeatherData asOfLookup() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int wmoCode = wmoCodes.get(random.nextInt(wmoCodes.size()));
+        int time = FIRST_FEED + random.nextInt(HOURS * 3600);
+        return "CHANGES_ONLY".equals(storageMode)
+                ? weatherDataRepository.findValidAt(wmoCode, time).orElse(null)
+                : weatherDataRepository.findLatestByWMOCodeAsOfOpt(wmoCode, time).orElse(null);
+    }
+}
@@ -0,0 +1,104 @@
+package com.fujitsu.delivery_fee_api.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fujitsu.delivery_fee_api.dto.FeeQuoteResultDTO;
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+import com.fujitsu.delivery_fee_api.model.WeatherData;
+import com.fujitsu.delivery_fee_api.repository.WeatherDataRepository;
+import com.fujitsu.delivery_fee_api.service.fee.FeeOutcome;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CborContentNegotiationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CBORMapper cborMapper;
+
+    @MockBean
+    private WeatherDataRepository weatherDataRepository;
+
+    @Test
+    void getAllWeatherData_AcceptCbor_ReturnsCborBody() throws Exception {
+        // Arrange
+        WeatherData weatherData = new WeatherData("Tallinn-Harku", 26038, 15.0f, 3.0f, "Clear", 1686830400);
+        weatherData.setId(47L);
+        when(weatherDataRepository.findAll()).thenReturn(List.of(weatherData));
+
+        // Act
+        byte[] body = mockMvc.perform(get("/api/weather").accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+        List<WeatherDataDTO> weatherDataDTOs = cborMapper.readValue(body, new TypeReference<List<WeatherDataDTO>>() { });
+
+        // Assert
+        assertEquals(1, weatherDataDTOs.size());
+        assertEquals(47L, weatherDataDTOs.get(0).getId());
+        assertEquals("Tallinn-Harku", weatherDataDTOs.get(0).getStationName());
+        assertEquals(15.0f, weatherDataDTOs.get(0).getAirTemperature());
+        assertEquals(1686830400, weatherDataDTOs.get(0).getObservationTimestamp());
+    }
+
+    @Test
+    void calculateDeliveryFees_AcceptCbor_ReturnsCborBody() throws Exception {
+        // Arrange
+        WeatherData weatherData = new WeatherData("Tallinn-Harku", 26038, 15.0f, 3.0f, "Clear", 1686830400);
+        when(weatherDataRepository.findLatestByWMOCodeAsOfOpt(eq(26038), anyInt())).thenReturn(Optional.of(weatherData));
+        String requests = """
+            [{"city": "Tallinn", "vehicleType": "Car", "dateTime": "2023-06-15T12:00:00"},
+             {"city": "Atlantis", "vehicleType": "Car", "dateTime": "2023-06-15T12:00:00"}]
+            """;
+
+        // Act
+        byte[] body = mockMvc.perform(post("/api/delivery/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requests)
+                .accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+        List<FeeQuoteResultDTO> results = cborMapper.readValue(body, new TypeReference<List<FeeQuoteResultDTO>>() { });
+
+        // Assert
+        assertEquals(2, results.size());
+        assertEquals("Tallinn", results.get(0).getCity());
+        assertEquals(LocalDateTime.of(2023, 6, 15, 12, 0), results.get(0).getDateTime());
+        assertEquals(FeeOutcome.Status.OK, results.get(0).getStatus());
+        assertEquals(0, new BigDecimal("4.00").compareTo(results.get(0).getFee()));
+        assertEquals(1, results.get(1).getIndex());
+        assertEquals(FeeOutcome.Status.NOT_FOUND, results.get(1).getStatus());
+    }
+}
@@ -0,0 +1,47 @@
+package com.fujitsu.delivery_fee_api.controller;
+
+import com.fujitsu.delivery_fee_api.repository.WeatherDataRepository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class DeliveryFeeControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private WeatherDataRepository weatherDataRepository;
+
+    @Test
+    void calculateDeliveryFees_NullItem_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/delivery/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"city\": \"Tallinn\", \"vehicleType\": \"Car\"}, null]")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamDeliveryFees_ItemWithoutCity_ReturnsBadRequestBeforeStreaming() throws Exception {
+        mockMvc.perform(post("/api/delivery/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"vehicleType\": \"Car\"}]")
+                .accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(request().asyncNotStarted())
+            .andExpect(status().isBadRequest());
+    }
+}
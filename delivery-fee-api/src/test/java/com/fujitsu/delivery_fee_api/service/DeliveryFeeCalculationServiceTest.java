@@ -1,10 +1,30 @@
 package com.fujitsu.delivery_fee_api.service;
 
 
+import com.fujitsu.delivery_fee_api.dto.FeeQuoteRequestDTO;
+import com.fujitsu.delivery_fee_api.dto.FeeQuoteResultDTO;
+import com.fujitsu.delivery_fee_api.dto.FeeTimelineEntryDTO;
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+import com.fujitsu.delivery_fee_api.exception.InvalidRequestException;
+import com.fujitsu.delivery_fee_api.exception.NotFoundException;
 import com.fujitsu.delivery_fee_api.exception.VehicleUsageForbiddenException;
 import com.fujitsu.delivery_fee_api.model.*;
 
 import com.fujitsu.delivery_fee_api.repository.*;
+import com.fujitsu.delivery_fee_api.service.batch.BatchFeeQuoteService;
+import com.fujitsu.delivery_fee_api.service.fee.FeeArithmetic;
+import com.fujitsu.delivery_fee_api.service.fee.FeeOutcome;
+import com.fujitsu.delivery_fee_api.service.fee.VersionedFeeOutcome;
+import com.fujitsu.delivery_fee_api.service.matrix.FeeMatrix;
+import com.fujitsu.delivery_fee_api.service.matrix.FeeMatrixService;
+import com.fujitsu.delivery_fee_api.service.memo.FeeOutcomeMemo;
+import com.fujitsu.delivery_fee_api.service.subscription.FeeChangeBroadcaster;
+import com.fujitsu.delivery_fee_api.service.tariff.TariffSnapshotService;
+import com.fujitsu.delivery_fee_api.service.timeline.FeeTimelineService;
+import com.fujitsu.delivery_fee_api.service.trace.CalculationTrace;
+import com.fujitsu.delivery_fee_api.service.trace.CalculationTraceRecorder;
+import com.fujitsu.delivery_fee_api.service.weather.LatestObservationCache;
+import com.fujitsu.delivery_fee_api.service.weather.WeatherDataSavedEvent;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,15 +32,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -40,13 +67,40 @@ class DeliveryFeeCalculationServiceTest {
 
     @Autowired
     private DeliveryFeeCalculationService deliveryFeeCalculationService;
+
+    @Autowired
+    private FeeMatrixService feeMatrixService;
+
+    @Autowired
+    private BatchFeeQuoteService batchFeeQuoteService;
+
+    @Autowired
+    private FeeTimelineService feeTimelineService;
+
+    @Autowired
+    private CalculationTraceRecorder traceRecorder;
+
+    @Autowired
+    private FeeOutcomeMemo feeOutcomeMemo;
+
+    @Autowired
+    private TariffSnapshotService tariffSnapshotService;
+
+    @Autowired
+    private FeeChangeBroadcaster feeChangeBroadcaster;
+
+    @Autowired
+    private LatestObservationCache latestObservationCache;
     
     @MockBean
     private WeatherDataRepository weatherDataRepository;
 
     @BeforeEach
     void setUp() {
-        
+        // the fee matrix is built at startup and queries the mocked repository before the first test
+        clearInvocations(weatherDataRepository);
+        // the cache is shared by all tests of the context
+        latestObservationCache.clear();
     }
 
     @Test
@@ -375,5 +429,286 @@ class DeliveryFeeCalculationServiceTest {
         assertEquals(new BigDecimal("5.00"), deliveryFee); // Base fee 3.5 + ATEF 0.5 + WPEF 1.0
     }
 
+    @Test
+    void calculateDeliveryFee_CentsArithmetic_CarriesFeeInCents() {
+        // Arrange
+        LocalDateTime timestamp = LocalDateTime.of(2023, 1, 15, 12, 0);
+        WeatherData weatherData = new WeatherData("Tallinn-Harku", 26038, -5.0f, 15.0f, "Light snow shower", 1673784000);
+        when(weatherDataRepository.findLatestByWMOCodeAsOfOpt(eq(26038), anyInt())).thenReturn(Optional.of(weatherData));
+        ReflectionTestUtils.setField(deliveryFeeCalculationService, "feeArithmetic", FeeArithmetic.CENTS);
+
+        // Act
+        VersionedFeeOutcome result;
+        try {
+            result = deliveryFeeCalculationService.calculateVersionedDeliveryFee("Tallinn", "Scooter", timestamp);
+        } finally {
+            ReflectionTestUtils.setField(deliveryFeeCalculationService, "feeArithmetic", FeeArithmetic.DECIMAL);
+        }
+
+        // Assert
+        assertEquals(500L, result.outcome().feeCents()); // Base fee 3.5 + ATEF 0.5 + WPEF 1.0
+        assertEquals(new BigDecimal("5.00"), result.outcome().fee());
+    }
+
+    @Test
+    void calculateDeliveryFee_WithoutDateTime_ServesLatestObservationFromCache() {
+        // Arrange
+        String cityName = "Tartu";
+        String vehicleType = "Car";
+        WeatherData weatherData = new WeatherData("Tartu-Tõravere", 26242, 15.0f, 3.0f, "Clear", 1686823200);
+        weatherData.setId(42L);
+        when(weatherDataRepository.findLatestByWMOCodeAsOfOpt(eq(26242), anyInt())).thenReturn(Optional.of(weatherData));
+
+        // Act
+        BigDecimal firstFee = deliveryFeeCalculationService.calculateDeliveryFee(cityName, vehicleType, null);
+        BigDecimal secondFee = deliveryFeeCalculationService.calculateDeliveryFee(cityName, vehicleType, null);
+
+        // Assert
+        assertEquals(firstFee, secondFee);
+        verify(weatherDataRepository, times(1)).findLatestByWMOCodeAsOfOpt(eq(26242), anyInt());
+    }
+
+    @Test
+    void calculateDeliveryFee_WithRepeatedHistoricalQuery_MemoizesForbiddenOutcomeUntilTariffChanges() {
+        // Arrange
+        WeatherData weatherData = new WeatherData("Tallinn-Harku", 26038, 5.0f, 25.0f, "Clear", 1673784000);
+        weatherData.setId(44L);
+        when(weatherDataRepository.findLatestByWMOCodeAsOfOpt(eq(26038), anyInt())).thenReturn(Optional.of(weatherData));
+        int sizeBefore = feeOutcomeMemo.size();
+
+        // Act
+        assertThrows(VehicleUsageForbiddenException.class, () ->
+            deliveryFeeCalculationService.calculateDeliveryFee("Tallinn", "Bike", LocalDateTime.of(2023, 1, 15, 12, 0))
+        );
+        assertThrows(VehicleUsageForbiddenException.class, () ->
+            deliveryFeeCalculationService.calculateDeliveryFee("Tallinn", "Bike", LocalDateTime.of(2023, 1, 15, 12, 30))
+        );
+        int sizeAfterQueries = feeOutcomeMemo.size();
+        tariffSnapshotService.publishNewVersion();
+
+        // Assert
+        assertEquals(sizeBefore + 1, sizeAfterQueries);
+        assertEquals(0, feeOutcomeMemo.size());
+    }
+
+    @Test
+    void calculateDeliveryFee_MemoizedObservationUpdated_ReturnsFeeOfUpdatedValues() {
+        // Arrange
+        LocalDateTime timestamp = LocalDateTime.of(2023, 1, 16, 12, 0);
+        WeatherData weatherData = new WeatherData("Tallinn-Harku", 26038, 5.0f, 5.0f, "Clear", 1673870400);
+        weatherData.setId(46L);
+        when(weatherDataRepository.findLatestByWMOCodeAsOfOpt(eq(26038), anyInt())).thenReturn(Optional.of(weatherData));
+        BigDecimal feeBeforeUpdate = deliveryFeeCalculationService.calculateDeliveryFee("Tallinn", "Bike", timestamp);
+        int sizeBeforeUpdate = feeOutcomeMemo.size();
+
+        // Act, the row is updated in place and saved again
+        WeatherData updatedWeatherData = new WeatherData("Tallinn-Harku", 26038, -5.0f, 5.0f, "Clear", 1673870400);
+        updatedWeatherData.setId(46L);
+        when(weatherDataRepository.findLatestByWMOCodeAsOfOpt(eq(26038), anyInt())).thenReturn(Optional.of(updatedWeatherData));
+        WeatherDataDTO savedWeatherData = new WeatherDataDTO();
+        savedWeatherData.setId(46L);
+        feeOutcomeMemo.onWeatherDataSaved(new WeatherDataSavedEvent(List.of(savedWeatherData)));
+        int sizeAfterSave = feeOutcomeMemo.size();
+        BigDecimal feeAfterUpdate = deliveryFeeCalculationService.calculateDeliveryFee("Tallinn", "Bike", timestamp);
+
+        // Assert
+        assertEquals(new BigDecimal("3.00"), feeBeforeUpdate);
+        assertEquals(sizeBeforeUpdate - 1, sizeAfterSave);
+        assertEquals(new BigDecimal("3.50"), feeAfterUpdate);
+    }
+
+    @Test
+    void subscribeToFeeChanges_WithKnownAndUnknownNames_RegistersOnlyKnownPairs() {
+        // Arrange
+        int subscriptionsBefore = feeChangeBroadcaster.getSubscriptionCount();
+
+        // Act
+        feeChangeBroadcaster.subscribe(List.of("Tallinn", "Tartu"), List.of("Bike"));
+
+        // Assert
+        assertEquals(subscriptionsBefore + 1, feeChangeBroadcaster.getSubscriptionCount());
+        assertThrows(NotFoundException.class, () ->
+            feeChangeBroadcaster.subscribe(List.of("Atlantis"), null)
+        );
+        assertEquals(subscriptionsBefore + 1, feeChangeBroadcaster.getSubscriptionCount());
+        assertDoesNotThrow(() -> feeMatrixService.rebuild());
+    }
+
+    @Test
+    void feeMatrix_AfterRebuild_ServesCurrentFeesAndForbiddenOutcomes() {
+        // Arrange
+        WeatherData weatherData = new WeatherData("Pärnu", 41803, 15.0f, 25.0f, "Clear", 1686823200);
+        weatherData.setId(43L);
+        when(weatherDataRepository.findLatestByWMOCodeAsOfOpt(eq(41803), anyInt())).thenReturn(Optional.of(weatherData));
+
+        // Act
+        FeeMatrix feeMatrix = feeMatrixService.rebuild();
+
+        // Assert
+        assertEquals(1686823200, feeMatrix.getObservationTimestamp());
+        assertEquals(new BigDecimal("3.00"), feeMatrixService.getCurrentFee("Pärnu", "Car"));
+        assertThrows(VehicleUsageForbiddenException.class, () ->
+            feeMatrixService.getCurrentFee("Pärnu", "Bike")
+        );
+    }
+
+    @Test
+    void getCurrentOutcome_FromMatrix_VersionsTheServedOutcome() {
+        // Arrange
+        WeatherData weatherData = new WeatherData("Pärnu", 41803, -5.0f, 3.0f, "Clear", 1686826800);
+        weatherData.setId(45L);
+        when(weatherDataRepository.findLatestByWMOCodeAsOfOpt(eq(41803), anyInt())).thenReturn(Optional.of(weatherData));
+        FeeMatrix feeMatrix = feeMatrixService.rebuild();
+
+        // Act
+        VersionedFeeOutcome result = feeMatrixService.getCurrentOutcome("Pärnu", "Scooter");
+
+        // Assert
+        assertEquals(new BigDecimal("3.00"), result.outcome().fee()); // Base fee 2.5 + ATEF 0.5
+        assertEquals("Pärnu", result.inputVersion().city());
+        assertEquals("Scooter", result.inputVersion().vehicleType());
+        assertEquals(1686826800, result.inputVersion().observationTimestamp());
+        assertEquals(feeMatrix.getTariffVersion(), result.inputVersion().tariffVersion());
+        assertEquals(feeMatrix.getValidUntil(), result.inputVersion().nextEffectiveDate());
+    }
+
+    @Test
+    void batchQuote_MixedItems_ReportsOutcomePerItemAndSharesWeatherLookups() {
+        // Arrange
+        WeatherData weatherData = new WeatherData("Tallinn-Harku", 26038, -5.0f, 25.0f, "Clear", 1673784000);
+        when(weatherDataRepository.findLatestByWMOCodeAsOfOpt(eq(26038), anyInt())).thenReturn(Optional.of(weatherData));
+        List<FeeQuoteRequestDTO> requests = List.of(
+            new FeeQuoteRequestDTO("Tallinn", "Car", LocalDateTime.of(2023, 1, 15, 12, 0)),
+            new FeeQuoteRequestDTO("Tallinn", "Bike", LocalDateTime.of(2023, 1, 15, 13, 0)),
+            new FeeQuoteRequestDTO("Atlantis", "Car", LocalDateTime.of(2023, 1, 15, 12, 0)),
+            new FeeQuoteRequestDTO("Tallinn", "Rocket", LocalDateTime.of(2023, 1, 15, 12, 0)));
+
+        // Act
+        List<FeeQuoteResultDTO> results = batchFeeQuoteService.quoteAll(requests);
+
+        // Assert
+        assertEquals(4, results.size());
+        assertEquals(FeeOutcome.Status.OK, results.get(0).getStatus());
+        assertEquals(new BigDecimal("4.00"), results.get(0).getFee());
+        assertEquals(FeeOutcome.Status.FORBIDDEN, results.get(1).getStatus());
+        assertEquals(FeeOutcome.Status.NOT_FOUND, results.get(2).getStatus());
+        assertEquals(FeeOutcome.Status.NOT_FOUND, results.get(3).getStatus());
+        verify(weatherDataRepository, times(1)).findLatestByWMOCodeAsOfOpt(eq(26038), anyInt());
+    }
+
+    @Test
+    void batchQuote_SameObservationAtDifferentTimes_CalculatesOnce() {
+        // Arrange, the test profile records a trace of every calculation
+        WeatherData weatherData = new WeatherData("Tartu-Tõravere", 26242, -5.0f, 5.0f, "Clear", 1673784000);
+        when(weatherDataRepository.findLatestByWMOCodeAsOfOpt(eq(26242), anyInt())).thenReturn(Optional.of(weatherData));
+        List<FeeQuoteRequestDTO> requests = List.of(
+            new FeeQuoteRequestDTO("Tartu", "Scooter", LocalDateTime.of(2023, 1, 15, 12, 5)),
+            new FeeQuoteRequestDTO("Tartu", "Scooter", LocalDateTime.of(2023, 1, 15, 12, 35)),
+            new FeeQuoteRequestDTO("Tartu", "Scooter", LocalDateTime.of(2023, 1, 15, 12, 55)));
+        long tracesBefore = traceRecorder.getRecent(1).stream().mapToLong(CalculationTrace::sequence).max().orElse(-1);
+
+        // Act
+        List<FeeQuoteResultDTO> results = batchFeeQuoteService.quoteAll(requests);
+
+        // Assert
+        assertEquals(3, results.size());
+        results.forEach(result -> assertEquals(new BigDecimal("3.50"), result.getFee())); // Base fee 3.0 + ATEF 0.5
+        assertEquals(tracesBefore + 1, traceRecorder.getRecent(1).get(0).sequence());
+    }
 
-}
\ No newline at end of file
+    @Test
+    void batchQuote_MoreItemsThanAllowed_IsRejected() {
+        // Arrange
+        List<FeeQuoteRequestDTO> requests = Collections.nCopies(1001,
+            new FeeQuoteRequestDTO("Tallinn", "Car", null));
+
+        // Act & Assert
+        assertThrows(InvalidRequestException.class, () -> batchFeeQuoteService.quoteAll(requests));
+    }
+
+    @Test
+    void batchQuote_NullItemOrItemWithoutCity_IsRejected() {
+        // Arrange
+        List<FeeQuoteRequestDTO> withNullItem = new ArrayList<>();
+        withNullItem.add(new FeeQuoteRequestDTO("Tallinn", "Car", null));
+        withNullItem.add(null);
+        List<FeeQuoteRequestDTO> withoutCity = List.of(new FeeQuoteRequestDTO(null, "Car", null));
+
+        // Act & Assert
+        InvalidRequestException nullItem = assertThrows(InvalidRequestException.class, () -> batchFeeQuoteService.quoteAll(withNullItem));
+        assertEquals("Batch item 1 is null", nullItem.getMessage());
+        assertThrows(InvalidRequestException.class, () -> batchFeeQuoteService.quoteAll(withoutCity));
+    }
+
+    @Test
+    void calculateDeliveryFee_Forbidden_RecordsTraceWithFeeComponents() {
+        // Arrange, forbidden calculations are kept even if none are sampled
+        LocalDateTime timestamp = LocalDateTime.of(2023, 1, 15, 12, 0);
+        WeatherData weatherData = new WeatherData("Tallinn-Harku", 26038, -5.0f, 25.0f, "Clear", 1673784000);
+        when(weatherDataRepository.findLatestByWMOCodeAsOfOpt(eq(26038), anyInt())).thenReturn(Optional.of(weatherData));
+        ReflectionTestUtils.setField(traceRecorder, "sampleRate", 0.0);
+
+        // Act
+        try {
+            assertThrows(VehicleUsageForbiddenException.class, () ->
+                deliveryFeeCalculationService.calculateDeliveryFee("Tallinn", "Bike", timestamp));
+        } finally {
+            ReflectionTestUtils.setField(traceRecorder, "sampleRate", 1.0);
+        }
+
+        // Assert
+        CalculationTrace trace = traceRecorder.getRecent(1).get(0);
+        assertEquals("Tallinn", trace.city());
+        assertEquals("Bike", trace.vehicleType());
+        assertEquals(timestamp, trace.dateTime());
+        assertEquals(1673784000, trace.observationTimestamp());
+        assertEquals(CalculationTrace.Outcome.FORBIDDEN, trace.outcome());
+        assertEquals(CalculationTrace.CaptureReason.FAILED, trace.captureReason());
+        assertNull(trace.totalFee());
+        assertEquals(2, trace.components().size());
+        assertEquals("BaseFee", trace.components().get(0).name());
+        assertEquals(0, new BigDecimal("3.0").compareTo(trace.components().get(0).fee()));
+        CalculationTrace.FeeComponent forbiddingComponent = trace.components().get(1);
+        assertEquals("WindSpeedExtraFeeCalculator", forbiddingComponent.name());
+        Long bikeId = vehicleTypeRepository.findByName("Bike").getId();
+        assertEquals(tariffSnapshotService.getCurrentTariff().findWindSpeedExtraFee(25.0f, bikeId, timestamp)
+            .orElseThrow().id(), forbiddingComponent.ruleId());
+    }
+
+    @Test
+    void feeTimeline_ObservationsOverOneDay_EmitsOnlyFeeChanges() {
+        // Arrange, 1673733600 is 2023-01-15T00:00 in Tallinn
+        when(weatherDataRepository.findLatestByWMOCodeAsOfOpt(eq(26038), eq(1673733600)))
+            .thenReturn(Optional.of(new WeatherData("Tallinn-Harku", 26038, 5.0f, 5.0f, "Clear", 1673730000)));
+        when(weatherDataRepository.streamByWMOCodeBetween(26038, 1673733600, 1673820000)).thenReturn(Stream.of(
+            new WeatherData("Tallinn-Harku", 26038, 5.0f, 5.0f, "Clear", 1673737200),
+            new WeatherData("Tallinn-Harku", 26038, 5.0f, 15.0f, "Clear", 1673740800),
+            new WeatherData("Tallinn-Harku", 26038, 5.0f, 25.0f, "Clear", 1673744400),
+            new WeatherData("Tallinn-Harku", 26038, 4.0f, 25.0f, "Clear", 1673748000)));
+        FeeTimelineService.TimelineRange range = feeTimelineService.resolve("Tallinn", "Bike",
+            LocalDateTime.of(2023, 1, 15, 0, 0), LocalDateTime.of(2023, 1, 16, 0, 0));
+
+        // Act
+        List<FeeTimelineEntryDTO> entries = new ArrayList<>();
+        feeTimelineService.stream(range, entries::add);
+
+        // Assert
+        assertEquals(3, entries.size());
+        assertEquals(LocalDateTime.of(2023, 1, 15, 0, 0), entries.get(0).getValidFrom());
+        assertEquals(new BigDecimal("3.00"), entries.get(0).getFee());
+        assertEquals(LocalDateTime.of(2023, 1, 15, 2, 0), entries.get(1).getValidFrom());
+        assertEquals(new BigDecimal("3.50"), entries.get(1).getFee()); // Base fee 3.0 + WSEF 0.5
+        assertEquals(LocalDateTime.of(2023, 1, 15, 3, 0), entries.get(2).getValidFrom());
+        assertEquals(FeeOutcome.Status.FORBIDDEN, entries.get(2).getStatus());
+    }
+
+    @Test
+    void calculateDeliveryFee_NamesWithoutCaseOrDiacritics_NotFoundWithoutLenientMatching() {
+        // Arrange, lenient matching is off by default, see LenientNameMatchingTest
+        LocalDateTime timestamp = LocalDateTime.of(2023, 6, 15, 12, 0);
+
+        // Act & Assert
+        assertThrows(NotFoundException.class, () ->
+            deliveryFeeCalculationService.calculateDeliveryFee("parnu", "Bike", timestamp));
+    }
+}
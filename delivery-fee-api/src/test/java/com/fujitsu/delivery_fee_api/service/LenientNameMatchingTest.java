@@ -0,0 +1,47 @@
+package com.fujitsu.delivery_fee_api.service;
+
+import com.fujitsu.delivery_fee_api.model.WeatherData;
+import com.fujitsu.delivery_fee_api.repository.WeatherDataRepository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "reference.lenient-matching=true")
+class LenientNameMatchingTest {
+
+    @Autowired
+    private DeliveryFeeCalculationService deliveryFeeCalculationService;
+
+    @MockBean
+    private WeatherDataRepository weatherDataRepository;
+
+    @Test
+    void calculateDeliveryFee_NamesWithoutCaseOrDiacritics_ResolvesCityAndVehicleType() {
+        // Arrange
+        LocalDateTime timestamp = LocalDateTime.of(2023, 6, 15, 12, 0);
+        WeatherData weatherData = new WeatherData("Pärnu", 41803, 15.0f, 3.0f, "Clear", 1686823200);
+        when(weatherDataRepository.findLatestByWMOCodeAsOfOpt(eq(41803), anyInt())).thenReturn(Optional.of(weatherData));
+
+        // Act
+        BigDecimal deliveryFee = deliveryFeeCalculationService.calculateDeliveryFee("parnu", "BIKE", timestamp);
+
+        // Assert
+        assertEquals(new BigDecimal("2.00"), deliveryFee);
+    }
+}
@@ -0,0 +1,127 @@
+package com.fujitsu.delivery_fee_api.service.coalescing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+import com.fujitsu.delivery_fee_api.exception.VehicleUsageForbiddenException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeeRequestCoalescerTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 1, 15, 12, 0, 10);
+
+    private SimpleMeterRegistry meterRegistry;
+    private FeeRequestCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new FeeRequestCoalescer(meterRegistry);
+        ReflectionTestUtils.setField(coalescer, "enabled", true);
+        ReflectionTestUtils.setField(coalescer, "granularity", ChronoUnit.MINUTES);
+        ReflectionTestUtils.setField(coalescer, "keyComposition", CoalescingKey.REQUEST);
+    }
+
+    @Test
+    void testIdenticalRequestsInFlightShareOneCalculation() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calculations = new AtomicInteger();
+
+        CompletableFuture<BigDecimal> leader = CompletableFuture.supplyAsync(() ->
+                coalescer.calculate(requestKey(1L, 3L, NOON), () -> {
+                    calculations.incrementAndGet();
+                    leaderStarted.countDown();
+                    await(release);
+                    return new BigDecimal("4.00");
+                }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<BigDecimal> follower = CompletableFuture.supplyAsync(() ->
+                coalescer.calculate(requestKey(1L, 3L, NOON.plusSeconds(30)), () -> {
+                    calculations.incrementAndGet();
+                    return BigDecimal.ZERO;
+                }));
+        while (meterRegistry.counter("fee.requests.coalescing", "result", "coalesced").count() == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertEquals(new BigDecimal("4.00"), leader.get(5, TimeUnit.SECONDS));
+        assertEquals(new BigDecimal("4.00"), follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calculations.get());
+    }
+
+    @Test
+    void testWaitersReceiveTheSameException() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<BigDecimal> leader = CompletableFuture.supplyAsync(() ->
+                coalescer.calculate(requestKey(1L, 2L, NOON), () -> {
+                    leaderStarted.countDown();
+                    await(release);
+                    throw new VehicleUsageForbiddenException();
+                }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<BigDecimal> follower = CompletableFuture.supplyAsync(() ->
+                coalescer.calculate(requestKey(1L, 2L, NOON), () -> BigDecimal.ZERO));
+        while (meterRegistry.counter("fee.requests.coalescing", "result", "coalesced").count() == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        Exception leaderFailure = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        Exception followerFailure = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(VehicleUsageForbiddenException.class, leaderFailure.getCause());
+        assertSame(leaderFailure.getCause(), followerFailure.getCause());
+
+        // the failed flight is not kept
+        assertEquals(BigDecimal.ONE, coalescer.calculate(requestKey(1L, 2L, NOON), () -> BigDecimal.ONE));
+    }
+
+    @Test
+    void testRequestsWithDifferentInputsCalculateSeparately() {
+        WeatherDataDTO calm = new WeatherDataDTO();
+        calm.setWmoCode(26038);
+        calm.setWindSpeed(5.0f);
+        calm.setObservationTimestamp(1705312800);
+        WeatherDataDTO windy = new WeatherDataDTO();
+        windy.setWmoCode(26038);
+        windy.setWindSpeed(25.0f);
+        windy.setObservationTimestamp(1705312800);
+
+        coalescer.calculate(new FeeRequestCoalescer.InputsKey(1L, 1L, 2L, calm, 1L, null), () -> BigDecimal.ONE);
+        coalescer.calculate(new FeeRequestCoalescer.InputsKey(1L, 1L, 2L, windy, 1L, null), () -> BigDecimal.ONE);
+
+        assertEquals(2, meterRegistry.counter("fee.requests.coalescing", "result", "calculated").count());
+        assertEquals(NOON.withSecond(0), coalescer.truncate(NOON));
+        assertNull(coalescer.truncate(null));
+    }
+
+    private FeeRequestCoalescer.RequestKey requestKey(Long cityId, Long vehicleTypeId, LocalDateTime dateTime) {
+        return new FeeRequestCoalescer.RequestKey(cityId, vehicleTypeId, coalescer.truncate(dateTime));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.fujitsu.delivery_fee_api.service.fee;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fujitsu.delivery_fee_api.exception.VehicleUsageForbiddenException;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtraFeeEvaluatorTest {
+
+    private final ExtraFeeInterface slowCalculator = (weatherData, vehicleType, dateTime, tariff) -> null;
+    private final ExtraFeeInterface forbiddingCalculator = (weatherData, vehicleType, dateTime, tariff) -> null;
+
+    private ExtraFeeEvaluator evaluator;
+
+    @BeforeEach
+    void setUp() {
+        evaluator = new ExtraFeeEvaluator();
+        ReflectionTestUtils.setField(evaluator, "execution", ExtraFeeExecution.CONCURRENT);
+        ReflectionTestUtils.setField(evaluator, "virtualThreads", true);
+        evaluator.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        evaluator.shutdown();
+    }
+
+    @Test
+    void testConcurrentResultsKeepCalculatorOrder() {
+        List<String> results = evaluator.evaluate(List.of(slowCalculator, forbiddingCalculator),
+                calculator -> calculator == slowCalculator ? "slow" : "forbidding");
+
+        assertEquals(List.of("slow", "forbidding"), results);
+    }
+
+    @Test
+    void testForbiddenOutcomeCancelsRunningCalculators() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        assertThrows(VehicleUsageForbiddenException.class, () -> evaluator.evaluate(
+                List.of(slowCalculator, forbiddingCalculator),
+                calculator -> {
+                    if (calculator == forbiddingCalculator) {
+                        throw new VehicleUsageForbiddenException();
+                    }
+                    try {
+                        Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return 0L;
+                }));
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,38 @@
+package com.fujitsu.delivery_fee_api.service.reference;
+
+import org.junit.jupiter.api.Test;
+
+import com.fujitsu.delivery_fee_api.model.WeatherPhenomenonCategory;
+import com.fujitsu.delivery_fee_api.model.WeatherPhenomenonType;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherPhenomenonClassifierTest {
+
+    private final WeatherPhenomenonClassifier classifier = WeatherPhenomenonClassifier.build(List.of(
+            WeatherPhenomenonType.createNoneType("Clear"),
+            new WeatherPhenomenonType("Light snow shower", WeatherPhenomenonCategory.SNOW_OR_SLEET),
+            new WeatherPhenomenonType("Moderate rain", WeatherPhenomenonCategory.RAIN),
+            new WeatherPhenomenonType("Glaze", WeatherPhenomenonCategory.THUNDER_GLAZE_OR_HAIL)));
+
+    @Test
+    void testConfiguredPhenomenaMatchIgnoringCaseWhitespaceAndIntensity() {
+        assertEquals(WeatherPhenomenonCategory.SNOW_OR_SLEET, classifier.classify("Light snow shower"));
+        assertEquals(WeatherPhenomenonCategory.SNOW_OR_SLEET, classifier.classify("  HEAVY   Snow shower "));
+        assertEquals(WeatherPhenomenonCategory.RAIN, classifier.classify("rain"));
+        assertEquals(WeatherPhenomenonCategory.THUNDER_GLAZE_OR_HAIL, classifier.classify("glaze"));
+        assertEquals(WeatherPhenomenonCategory.NONE, classifier.classify(null));
+        assertTrue(classifier.isKnown("moderate  RAIN"));
+        assertFalse(classifier.isKnown("Heavy rain"));
+    }
+
+    @Test
+    void testUnseenPhenomenaAreClassifiedByKeywords() {
+        assertEquals(WeatherPhenomenonCategory.THUNDER_GLAZE_OR_HAIL, classifier.classify("Thunderstorm with snow"));
+        assertEquals(WeatherPhenomenonCategory.SNOW_OR_SLEET, classifier.classify("Heavy sleet"));
+        assertEquals(WeatherPhenomenonCategory.RAIN, classifier.classify("Freezing drizzle"));
+        assertEquals(WeatherPhenomenonCategory.NONE, classifier.classify("Haze"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.fujitsu.delivery_fee_api.service.subscription;
+
+import com.fujitsu.delivery_fee_api.model.WeatherData;
+import com.fujitsu.delivery_fee_api.repository.WeatherDataRepository;
+import com.fujitsu.delivery_fee_api.service.matrix.FeeMatrixService;
+import com.fujitsu.delivery_fee_api.service.weather.LatestObservationCache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class FeeChangeBroadcasterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FeeMatrixService feeMatrixService;
+
+    @Autowired
+    private LatestObservationCache latestObservationCache;
+
+    @MockBean
+    private WeatherDataRepository weatherDataRepository;
+
+    @BeforeEach
+    void setUp() {
+        latestObservationCache.clear();
+    }
+
+    @Test
+    void subscribeToFeeChanges_WeatherChangesOnce_SendsOneEventWithTheNewFee() throws Exception {
+        // Arrange
+        WeatherData mildWeather = new WeatherData("Tallinn-Harku", 26038, 5.0f, 5.0f, "Clear", 1673784000);
+        when(weatherDataRepository.findLatestByWMOCodeAsOfOpt(eq(26038), anyInt())).thenReturn(Optional.of(mildWeather));
+        feeMatrixService.rebuild();
+        MockHttpServletResponse response = mockMvc.perform(get("/api/delivery/changes")
+                .param("city", "Tallinn")
+                .param("vehicleType", "Bike"))
+            .andExpect(request().asyncStarted())
+            .andReturn()
+            .getResponse();
+        String currentOutcome = awaitFeeEvents(response, 1);
+
+        // Act
+        WeatherData frostyWeather = new WeatherData("Tallinn-Harku", 26038, -5.0f, 5.0f, "Clear", 1673787600);
+        when(weatherDataRepository.findLatestByWMOCodeAsOfOpt(eq(26038), anyInt())).thenReturn(Optional.of(frostyWeather));
+        latestObservationCache.clear();
+        feeMatrixService.rebuild();
+        String afterChange = awaitFeeEvents(response, 2);
+        feeMatrixService.rebuild();
+        Thread.sleep(200);
+        String afterUnchangedRebuild = response.getContentAsString(StandardCharsets.UTF_8);
+
+        // Assert
+        assertEquals(1, countFeeEvents(currentOutcome));
+        assertTrue(currentOutcome.contains("\"fee\":3.00"));
+        String change = afterChange.substring(currentOutcome.length());
+        assertEquals(1, countFeeEvents(change));
+        assertTrue(change.contains("\"fee\":3.50"));
+        assertTrue(change.contains("\"observationTimestamp\":1673787600"));
+        assertEquals(afterChange, afterUnchangedRebuild);
+    }
+
+    private static String awaitFeeEvents(MockHttpServletResponse response, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = response.getContentAsString(StandardCharsets.UTF_8);
+        while (countFeeEvents(content) < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            content = response.getContentAsString(StandardCharsets.UTF_8);
+        }
+        return content;
+    }
+
+    private static int countFeeEvents(String content) {
+        return content.split("event:" + FeeChangeBroadcaster.EVENT_NAME + "\n", -1).length - 1;
+    }
+}
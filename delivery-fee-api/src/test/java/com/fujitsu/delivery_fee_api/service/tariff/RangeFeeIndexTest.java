@@ -0,0 +1,51 @@
+package com.fujitsu.delivery_fee_api.service.tariff;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeFeeIndexTest {
+
+    private static final LocalDateTime JANUARY = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime MARCH = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    private static TariffRule rule(long id, String fee, LocalDateTime effectiveDate) {
+        return new TariffRule(id, new BigDecimal(fee), false, effectiveDate);
+    }
+
+    @Test
+    void testInclusiveBoundsAndOpenEnds() {
+        TariffRule cold = rule(1, "1.00", JANUARY);
+        TariffRule chilly = rule(2, "0.50", JANUARY);
+        RangeFeeIndex index = RangeFeeIndex.build(List.of(
+                new RangeFeeIndex.Band(null, -10.01f, cold),
+                new RangeFeeIndex.Band(-10.0f, 0.0f, chilly)));
+
+        assertEquals(cold, index.find(-40.0f, MARCH));
+        assertEquals(cold, index.find(-10.01f, MARCH));
+        assertEquals(chilly, index.find(-10.0f, MARCH));
+        assertEquals(chilly, index.find(-0.0f, MARCH));
+        assertEquals(chilly, index.find(0.0f, MARCH));
+        assertNull(index.find(0.1f, MARCH));
+        assertNull(index.find(Float.NaN, MARCH));
+        assertEquals(3, index.getBoundaryCount());
+    }
+
+    @Test
+    void testEffectiveDateHistory() {
+        TariffRule oldRule = rule(1, "0.50", JANUARY);
+        TariffRule newRule = rule(2, "0.75", MARCH);
+        RangeFeeIndex index = RangeFeeIndex.build(List.of(
+                new RangeFeeIndex.Band(10.0f, 20.0f, newRule),
+                new RangeFeeIndex.Band(10.0f, 20.0f, oldRule)));
+
+        assertNull(index.find(15.0f, JANUARY.minusSeconds(1)));
+        assertEquals(oldRule, index.find(15.0f, JANUARY));
+        assertEquals(oldRule, index.find(15.0f, MARCH.minusNanos(1)));
+        assertEquals(newRule, index.find(15.0f, MARCH));
+    }
+}
@@ -0,0 +1,185 @@
+package com.fujitsu.delivery_fee_api.service.weather;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fujitsu.delivery_fee_api.model.WeatherData;
+import com.fujitsu.delivery_fee_api.repository.WeatherDataRepository;
+
+@DataJpaTest
+@Import(WeatherDataBatchWriter.class)
+class WeatherDataBatchWriterTest {
+
+    private static final int OBSERVATION_TIMESTAMP = 1705316400;
+
+    @Autowired
+    private WeatherDataBatchWriter weatherDataBatchWriter;
+
+    @Autowired
+    private WeatherDataRepository weatherDataRepository;
+
+    private static List<WeatherData> feed(float tallinnTemperature) {
+        return List.of(
+            new WeatherData("Tallinn-Harku", 26038, tallinnTemperature, 6.1f, "Clear", OBSERVATION_TIMESTAMP),
+            new WeatherData("Tartu-Tõravere", 26242, -1.6f, 0.1f, "Light rain", OBSERVATION_TIMESTAMP),
+            new WeatherData("Pärnu", 41803, -6.3f, 4.8f, "Variable clouds", OBSERVATION_TIMESTAMP));
+    }
+
+    @Test
+    void upsertAll_SameFeedTwice_InsertsOnceAndSkipsUnchangedRows() {
+        // Act
+        WeatherDataUpsertResult first = weatherDataBatchWriter.upsertAll(feed(-10.6f));
+        WeatherDataUpsertResult second = weatherDataBatchWriter.upsertAll(feed(-10.6f));
+
+        // Assert
+        assertEquals(3, first.inserted());
+        assertEquals(3, first.writtenRows().size());
+        assertEquals(0, second.inserted());
+        assertEquals(0, second.updated());
+        assertEquals(3, second.skipped());
+        assertEquals(0, second.writtenRows().size());
+        assertEquals(3, weatherDataRepository.count());
+    }
+
+    @Test
+    void upsertAll_CorrectedObservation_UpdatesExistingRow() {
+        // Arrange
+        weatherDataBatchWriter.upsertAll(feed(-10.6f));
+
+        // Act
+        WeatherDataUpsertResult corrected = weatherDataBatchWriter.upsertAll(feed(-9.8f));
+
+        // Assert
+        assertEquals(1, corrected.updated());
+        assertEquals(2, corrected.skipped());
+        assertEquals(3, weatherDataRepository.count());
+        assertEquals(-9.8f, weatherDataRepository.findLatestByWMOCode(26038).getAirTemperature());
+    }
+
+    @Test
+    void upsertAll_ChangesOnly_StoresChangedObservationsWithValidityIntervals() {
+        // Arrange
+        ReflectionTestUtils.setField(weatherDataBatchWriter, "storageMode", WeatherStorageMode.CHANGES_ONLY);
+        int hour = 3600;
+
+        // Act
+        WeatherDataUpsertResult first = weatherDataBatchWriter.upsertAll(List.of(
+            new WeatherData("Tallinn-Harku", 26038, -10.6f, 6.1f, "Clear", OBSERVATION_TIMESTAMP)));
+        WeatherDataUpsertResult unchanged = weatherDataBatchWriter.upsertAll(List.of(
+            new WeatherData("Tallinn-Harku", 26038, -10.6f, 6.1f, "Clear", OBSERVATION_TIMESTAMP + hour)));
+        WeatherDataUpsertResult changed = weatherDataBatchWriter.upsertAll(List.of(
+            new WeatherData("Tallinn-Harku", 26038, -10.6f, 6.1f, "Light snow shower", OBSERVATION_TIMESTAMP + 2 * hour)));
+
+        // Assert
+        assertEquals(1, first.inserted());
+        assertEquals(1, unchanged.skipped());
+        assertEquals(1, changed.inserted());
+        assertEquals(2, weatherDataRepository.count());
+
+        WeatherData clear = weatherDataRepository.findValidAt(26038, OBSERVATION_TIMESTAMP + hour + 59).orElseThrow();
+        assertEquals("Clear", clear.getWeatherPhenomenon());
+        assertEquals(OBSERVATION_TIMESTAMP, clear.getValidFrom());
+        assertEquals(OBSERVATION_TIMESTAMP + 2 * hour, clear.getValidTo());
+
+        WeatherData snow = weatherDataRepository.findValidAt(26038, OBSERVATION_TIMESTAMP + 5 * hour).orElseThrow();
+        assertEquals("Light snow shower", snow.getWeatherPhenomenon());
+        assertNull(snow.getValidTo());
+    }
+
+    @Test
+    void upsertAll_ChangesOnlyLateObservation_SplitsValidityAfterObservedSpanAndRejectsInsideIt() {
+        // Arrange
+        ReflectionTestUtils.setField(weatherDataBatchWriter, "storageMode", WeatherStorageMode.CHANGES_ONLY);
+        int hour = 3600;
+        weatherDataBatchWriter.upsertAll(List.of(
+            new WeatherData("Tallinn-Harku", 26038, -10.6f, 6.1f, "Clear", OBSERVATION_TIMESTAMP),
+            new WeatherData("Tallinn-Harku", 26038, -10.6f, 6.1f, "Clear", OBSERVATION_TIMESTAMP + hour),
+            new WeatherData("Tallinn-Harku", 26038, -10.6f, 6.1f, "Light snow shower", OBSERVATION_TIMESTAMP + 3 * hour)));
+
+        // Act
+        WeatherDataUpsertResult insideSpan = weatherDataBatchWriter.upsertAll(List.of(
+            new WeatherData("Tallinn-Harku", 26038, -10.6f, 6.1f, "Glaze", OBSERVATION_TIMESTAMP + hour / 2)));
+        WeatherDataUpsertResult afterSpan = weatherDataBatchWriter.upsertAll(List.of(
+            new WeatherData("Tallinn-Harku", 26038, -10.6f, 6.1f, "Glaze", OBSERVATION_TIMESTAMP + 2 * hour)));
+
+        // Assert
+        assertEquals(1, insideSpan.skipped());
+        assertEquals(0, insideSpan.writtenRows().size());
+        assertEquals(1, afterSpan.inserted());
+        assertEquals(3, weatherDataRepository.count());
+
+        WeatherData clear = weatherDataRepository.findValidAt(26038, OBSERVATION_TIMESTAMP + hour).orElseThrow();
+        assertEquals("Clear", clear.getWeatherPhenomenon());
+        assertEquals(OBSERVATION_TIMESTAMP + hour, clear.getLastObservedAt());
+        assertEquals(OBSERVATION_TIMESTAMP + 2 * hour, clear.getValidTo());
+
+        WeatherData glaze = weatherDataRepository.findValidAt(26038, OBSERVATION_TIMESTAMP + 2 * hour).orElseThrow();
+        assertEquals("Glaze", glaze.getWeatherPhenomenon());
+        assertEquals(OBSERVATION_TIMESTAMP + 3 * hour, glaze.getValidTo());
+
+        WeatherData snow = weatherDataRepository.findValidAt(26038, OBSERVATION_TIMESTAMP + 4 * hour).orElseThrow();
+        assertEquals("Light snow shower", snow.getWeatherPhenomenon());
+    }
+
+    @Test
+    void upsertAll_ChangesOnlyCorrectedObservation_CorrectsSingleObservationRowInPlace() {
+        // Arrange
+        ReflectionTestUtils.setField(weatherDataBatchWriter, "storageMode", WeatherStorageMode.CHANGES_ONLY);
+        int hour = 3600;
+        weatherDataBatchWriter.upsertAll(List.of(
+            new WeatherData("Tallinn-Harku", 26038, -10.6f, 6.1f, "Clear", OBSERVATION_TIMESTAMP),
+            new WeatherData("Tallinn-Harku", 26038, -10.6f, 6.1f, "Light snow shower", OBSERVATION_TIMESTAMP + hour),
+            new WeatherData("Tallinn-Harku", 26038, -10.6f, 6.1f, "Light snow shower", OBSERVATION_TIMESTAMP + 2 * hour)));
+
+        // Act
+        WeatherDataUpsertResult singleObservation = weatherDataBatchWriter.upsertAll(List.of(
+            new WeatherData("Tallinn-Harku", 26038, -9.8f, 6.1f, "Clear", OBSERVATION_TIMESTAMP)));
+        WeatherDataUpsertResult mergedObservations = weatherDataBatchWriter.upsertAll(List.of(
+            new WeatherData("Tallinn-Harku", 26038, -9.8f, 6.1f, "Light snow shower", OBSERVATION_TIMESTAMP + hour)));
+
+        // Assert
+        assertEquals(1, singleObservation.updated());
+        assertEquals(1, mergedObservations.skipped());
+        assertEquals(2, weatherDataRepository.count());
+        assertEquals(-9.8f, weatherDataRepository.findValidAt(26038, OBSERVATION_TIMESTAMP).orElseThrow().getAirTemperature());
+        assertEquals(-10.6f, weatherDataRepository.findValidAt(26038, OBSERVATION_TIMESTAMP + 2 * hour).orElseThrow().getAirTemperature());
+    }
+
+    @Test
+    void upsertAll_ChangesOnlyEarlierObservation_ExtendsFirstRowBackOrInsertsBeforeIt() {
+        // Arrange
+        ReflectionTestUtils.setField(weatherDataBatchWriter, "storageMode", WeatherStorageMode.CHANGES_ONLY);
+        int hour = 3600;
+        weatherDataBatchWriter.upsertAll(List.of(
+            new WeatherData("Tallinn-Harku", 26038, -10.6f, 6.1f, "Clear", OBSERVATION_TIMESTAMP)));
+
+        // Act
+        WeatherDataUpsertResult sameValues = weatherDataBatchWriter.upsertAll(List.of(
+            new WeatherData("Tallinn-Harku", 26038, -10.6f, 6.1f, "Clear", OBSERVATION_TIMESTAMP - hour)));
+        WeatherDataUpsertResult otherValues = weatherDataBatchWriter.upsertAll(List.of(
+            new WeatherData("Tallinn-Harku", 26038, -10.6f, 6.1f, "Glaze", OBSERVATION_TIMESTAMP - 2 * hour)));
+
+        // Assert
+        assertEquals(1, sameValues.updated());
+        assertEquals(1, otherValues.inserted());
+        assertEquals(2, weatherDataRepository.count());
+
+        WeatherData clear = weatherDataRepository.findValidAt(26038, OBSERVATION_TIMESTAMP - hour).orElseThrow();
+        assertEquals("Clear", clear.getWeatherPhenomenon());
+        assertEquals(OBSERVATION_TIMESTAMP - hour, clear.getValidFrom());
+        assertEquals(OBSERVATION_TIMESTAMP, clear.getLastObservedAt());
+        assertNull(clear.getValidTo());
+
+        WeatherData glaze = weatherDataRepository.findValidAt(26038, OBSERVATION_TIMESTAMP - 2 * hour).orElseThrow();
+        assertEquals("Glaze", glaze.getWeatherPhenomenon());
+        assertEquals(OBSERVATION_TIMESTAMP - hour, glaze.getValidTo());
+    }
+}
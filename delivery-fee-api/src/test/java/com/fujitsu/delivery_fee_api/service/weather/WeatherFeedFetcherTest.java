@@ -0,0 +1,236 @@
+package com.fujitsu.delivery_fee_api.service.weather;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.fujitsu.delivery_fee_api.service.weather.provider.WeatherFeedHandler;
+import com.fujitsu.delivery_fee_api.service.weather.provider.WeatherFeedResponse;
+import com.fujitsu.delivery_fee_api.service.weather.provider.WeatherProvider;
+import com.fujitsu.delivery_fee_api.service.weather.provider.impl.HttpWeatherProvider;
+import com.fujitsu.delivery_fee_api.util.ObservationFeedReader;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WeatherFeedFetcherTest {
+
+    private static final String URL = "http://weather.test/observations.php";
+    private static final Set<Integer> RELEVANT_WMO_CODES = Set.of(26038, 26242, 41803);
+
+    private MockRestServiceServer server;
+    private MeterRegistry meterRegistry;
+    private WeatherFeedFetcher weatherFeedFetcher;
+    private byte[] feed;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        meterRegistry = new SimpleMeterRegistry();
+        HttpWeatherProvider httpWeatherProvider = new HttpWeatherProvider(restTemplate);
+        ReflectionTestUtils.setField(httpWeatherProvider, "weatherApiUrl", URL);
+        weatherFeedFetcher = new WeatherFeedFetcher(List.of(httpWeatherProvider), new ObservationFeedReader(), meterRegistry);
+        ReflectionTestUtils.setField(weatherFeedFetcher, "conditional", true);
+        ReflectionTestUtils.setField(weatherFeedFetcher, "primaryName", "http");
+        weatherFeedFetcher.init();
+        try (InputStream in = getClass().getResourceAsStream("/feeds/observations.xml")) {
+            feed = in.readAllBytes();
+        }
+    }
+
+    @Test
+    void fetch_AfterImport_IsConditionalAndSkipsUnchangedFeeds() throws IOException {
+        // Arrange
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(feed);
+        }
+        HttpHeaders firstHeaders = new HttpHeaders();
+        firstHeaders.setETag("\"v1\"");
+        firstHeaders.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        server.expect(requestTo(URL))
+            .andExpect(header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+            .andRespond(withSuccess(gzipped.toByteArray(), MediaType.APPLICATION_XML).headers(firstHeaders));
+        server.expect(requestTo(URL))
+            .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+            .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+        server.expect(requestTo(URL))
+            .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+            .andRespond(withSuccess(feed, MediaType.APPLICATION_XML));
+
+        // Act
+        WeatherFeed first = weatherFeedFetcher.fetch(RELEVANT_WMO_CODES);
+        weatherFeedFetcher.markImported(first);
+        WeatherFeed notModified = weatherFeedFetcher.fetch(RELEVANT_WMO_CODES);
+        WeatherFeed sameTimestamp = weatherFeedFetcher.fetch(RELEVANT_WMO_CODES);
+
+        // Assert
+        server.verify();
+        assertNotNull(first);
+        assertEquals(3, first.observations().size());
+        assertEquals(1705316400, first.observationTimestamp());
+        assertNull(notModified);
+        assertNull(sameTimestamp);
+        assertEquals(1.0, meterRegistry.get("weather.import.skipped").tag("reason", "not_modified").counter().count());
+        assertEquals(1.0, meterRegistry.get("weather.import.skipped").tag("reason", "same_timestamp").counter().count());
+        assertEquals(3, meterRegistry.get("weather.feed.fetch").timer().count());
+    }
+
+    @Test
+    void fetch_WithNewRelevantStation_ReadsUnchangedFeedAgain() {
+        // Arrange
+        server.expect(requestTo(URL)).andRespond(withSuccess(feed, MediaType.APPLICATION_XML));
+        server.expect(requestTo(URL)).andRespond(withSuccess(feed, MediaType.APPLICATION_XML));
+
+        // Act
+        weatherFeedFetcher.markImported(weatherFeedFetcher.fetch(Set.of(26038, 26242)));
+        WeatherFeed withParnu = weatherFeedFetcher.fetch(RELEVANT_WMO_CODES);
+
+        // Assert
+        assertNotNull(withParnu);
+        assertEquals(3, withParnu.observations().size());
+    }
+
+    @Test
+    void fetch_WithRecording_RecordsFeedAndStageNumbers() {
+        // Arrange
+        server.expect(requestTo(URL)).andRespond(withSuccess(feed, MediaType.APPLICATION_XML));
+        WeatherImportRecording recording = new WeatherImportRecording();
+
+        // Act
+        weatherFeedFetcher.fetch(RELEVANT_WMO_CODES, recording);
+
+        // Assert
+        assertEquals("http", recording.getProvider());
+        assertEquals(feed.length, recording.getFeedBytes());
+        assertEquals(100, recording.getStationsSeen());
+        assertEquals(3, recording.getStationsRelevant());
+        assertEquals(Set.of(WeatherImportRecording.FETCH, WeatherImportRecording.PARSE, WeatherImportRecording.FILTER),
+            recording.getStageNanos().keySet());
+    }
+
+    @Test
+    void fetch_WithSlowPrimaryProvider_FailsOverToSecondaryProvider() {
+        // Arrange
+        WeatherProvider slow = new FixedWeatherProvider("slow", feed, 5000);
+        WeatherProvider replay = new FixedWeatherProvider("replay", feed, 0);
+        WeatherFeedFetcher failingOver = new WeatherFeedFetcher(List.of(slow, replay), new ObservationFeedReader(), meterRegistry);
+        ReflectionTestUtils.setField(failingOver, "primaryName", "slow");
+        ReflectionTestUtils.setField(failingOver, "secondaryName", "replay");
+        ReflectionTestUtils.setField(failingOver, "failoverTimeoutMillis", 100L);
+        failingOver.init();
+
+        // Act
+        WeatherFeed fetched = failingOver.fetch(RELEVANT_WMO_CODES);
+        failingOver.shutdown();
+
+        // Assert
+        assertNotNull(fetched);
+        assertEquals("replay", fetched.provider());
+        assertEquals(3, fetched.observations().size());
+        assertEquals(1.0, meterRegistry.get("weather.provider.failovers").tag("reason", "slow").counter().count());
+    }
+
+    @Test
+    void fetch_PrimaryProviderDeliversAfterFailover_RecordsOnlySecondaryProvider() throws InterruptedException {
+        // Arrange, the primary ignores the cancellation and reaches the feed handler after the failover
+        CountDownLatch failedOver = new CountDownLatch(1);
+        CountDownLatch primaryDone = new CountDownLatch(1);
+        WeatherProvider late = new WeatherProvider() {
+            @Override
+            public String getName() {
+                return "late";
+            }
+
+            @Override
+            public <T> T fetch(String eTag, String lastModified, WeatherFeedHandler<T> handler) throws IOException {
+                try {
+                    awaitUninterruptibly(failedOver);
+                    return handler.feed(new WeatherFeedResponse(new ByteArrayInputStream(feed), null, null, null));
+                } finally {
+                    primaryDone.countDown();
+                }
+            }
+        };
+        WeatherProvider replay = new FixedWeatherProvider("replay", feed, 0);
+        WeatherFeedFetcher failingOver = new WeatherFeedFetcher(List.of(late, replay), new ObservationFeedReader(), meterRegistry);
+        ReflectionTestUtils.setField(failingOver, "primaryName", "late");
+        ReflectionTestUtils.setField(failingOver, "secondaryName", "replay");
+        ReflectionTestUtils.setField(failingOver, "failoverTimeoutMillis", 100L);
+        failingOver.init();
+        WeatherImportRecording recording = new WeatherImportRecording();
+
+        // Act
+        failingOver.fetch(RELEVANT_WMO_CODES, recording);
+        Long fetchNanos = recording.getStageNanos().get(WeatherImportRecording.FETCH);
+        failedOver.countDown();
+        assertTrue(primaryDone.await(5, TimeUnit.SECONDS));
+        failingOver.shutdown();
+
+        // Assert
+        assertEquals("replay", recording.getProvider());
+        assertEquals(feed.length, recording.getFeedBytes());
+        assertEquals(3, recording.getStationsRelevant());
+        assertEquals(fetchNanos, recording.getStageNanos().get(WeatherImportRecording.FETCH));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record FixedWeatherProvider(String name, byte[] feed, long delayMillis) implements WeatherProvider {
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public <T> T fetch(String eTag, String lastModified, WeatherFeedHandler<T> handler) throws IOException {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            return handler.feed(new WeatherFeedResponse(new ByteArrayInputStream(feed), null, null, null));
+        }
+    }
+}
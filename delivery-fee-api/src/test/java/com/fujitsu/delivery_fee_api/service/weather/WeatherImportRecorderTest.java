@@ -0,0 +1,67 @@
+package com.fujitsu.delivery_fee_api.service.weather;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fujitsu.delivery_fee_api.dto.WeatherImportReportDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WeatherImportRecorderTest {
+
+    private MeterRegistry meterRegistry;
+    private WeatherImportRecorder weatherImportRecorder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        weatherImportRecorder = new WeatherImportRecorder(meterRegistry);
+        ReflectionTestUtils.setField(weatherImportRecorder, "historySize", 2);
+    }
+
+    private static WeatherImportReportDTO imported(int observationTimestamp, int insertedRows) {
+        WeatherImportReportDTO report = new WeatherImportReportDTO();
+        report.setObservationTimestamp(observationTimestamp);
+        report.setInsertedRows(insertedRows);
+        return report;
+    }
+
+    @Test
+    void record_SeveralImports_KeepsMostRecentReportsWithStageNumbers() {
+        // Arrange
+        WeatherImportRecording recording = new WeatherImportRecording();
+        WeatherImportRecording.FeedAttempt attempt = new WeatherImportRecording.FeedAttempt("http");
+        attempt.stage(WeatherImportRecording.FETCH, 2_000_000);
+        attempt.feed(31_000, 100, 3);
+        recording.publish(attempt);
+        recording.stage(WeatherImportRecording.PERSIST, 5_000_000);
+
+        // Act
+        weatherImportRecorder.record(new WeatherImportRecording(), imported(1705312800, 3));
+        weatherImportRecorder.record(recording, imported(1705316400, 3));
+        weatherImportRecorder.recordFailure(new WeatherImportRecording(), new RuntimeException("Failed to fetch weather data"));
+        List<WeatherImportReportDTO> recent = weatherImportRecorder.getRecent(10);
+
+        // Assert
+        assertEquals(2, recent.size());
+        assertEquals("Failed to fetch weather data", recent.get(0).getError());
+        WeatherImportReportDTO report = recent.get(1);
+        assertEquals(1705316400, report.getObservationTimestamp());
+        assertEquals(List.of(WeatherImportRecording.FETCH, WeatherImportRecording.PERSIST),
+            List.copyOf(report.getStageMicros().keySet()));
+        assertEquals(2000L, report.getStageMicros().get(WeatherImportRecording.FETCH));
+        assertEquals(100, report.getStationsSeen());
+        assertEquals(3, report.getStationsRelevant());
+        assertTrue(report.getTotalMicros() >= 0);
+        assertEquals(6.0, meterRegistry.get("weather.import.rows").tag("result", "inserted").counter().count());
+        assertEquals(1, meterRegistry.get("weather.import").tag("outcome", "failed").timer().count());
+        assertEquals(1, meterRegistry.get("weather.import.stage").tag("stage", "persist").timer().count());
+    }
+}
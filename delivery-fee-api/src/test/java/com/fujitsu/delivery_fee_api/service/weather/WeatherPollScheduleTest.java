@@ -0,0 +1,124 @@
+package com.fujitsu.delivery_fee_api.service.weather;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WeatherPollScheduleTest {
+
+    private static final int OBSERVATION_TIMESTAMP = 1705316400;
+    private static final int HOUR = 3600;
+    private static final int PUBLISH_LAG = 20 * 60;
+
+    private MeterRegistry meterRegistry;
+    private WeatherPollSchedule weatherPollSchedule;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        weatherPollSchedule = new WeatherPollSchedule(meterRegistry);
+        ReflectionTestUtils.setField(weatherPollSchedule, "adaptive", true);
+        ReflectionTestUtils.setField(weatherPollSchedule, "minIntervalSeconds", 60L);
+        ReflectionTestUtils.setField(weatherPollSchedule, "maxIntervalSeconds", 900L);
+        ReflectionTestUtils.setField(weatherPollSchedule, "windowSeconds", 300L);
+        ReflectionTestUtils.setField(weatherPollSchedule, "historySize", 24);
+        ReflectionTestUtils.setField(weatherPollSchedule, "importCron", "0 15 * * * *");
+        ReflectionTestUtils.setField(weatherPollSchedule, "importGraceSeconds", 60L);
+        weatherPollSchedule.init();
+    }
+
+    private long delayAt(long epochSeconds) {
+        Instant now = Instant.ofEpochSecond(epochSeconds);
+        return weatherPollSchedule.scheduleNextPoll(now).getEpochSecond() - epochSeconds;
+    }
+
+    @Test
+    void scheduleNextPoll_AfterLearningHourlyUpdates_PollsDenselyAroundTheExpectedUpdateOnly() {
+        // Arrange
+        weatherPollSchedule.recordPoll(OBSERVATION_TIMESTAMP, Instant.ofEpochSecond(OBSERVATION_TIMESTAMP + 2400));
+        weatherPollSchedule.recordPoll(OBSERVATION_TIMESTAMP + HOUR,
+            Instant.ofEpochSecond(OBSERVATION_TIMESTAMP + HOUR + PUBLISH_LAG));
+        long expectedUpdate = OBSERVATION_TIMESTAMP + 2 * HOUR + PUBLISH_LAG;
+
+        // Act
+        long afterUpdate = delayAt(OBSERVATION_TIMESTAMP + HOUR + PUBLISH_LAG);
+        long beforeWindow = delayAt(expectedUpdate - 400);
+        long inWindow = delayAt(expectedUpdate - 300);
+        long firstLate = delayAt(expectedUpdate + 301);
+        long secondLate = delayAt(expectedUpdate + 400);
+
+        // Assert
+        assertEquals(900, afterUpdate);
+        assertEquals(100, beforeWindow);
+        assertEquals(60, inWindow);
+        assertEquals(60, firstLate);
+        assertEquals(120, secondLate);
+        assertEquals(HOUR, meterRegistry.get("weather.feed.update.period").timeGauge().value());
+        assertEquals(PUBLISH_LAG, meterRegistry.get("weather.feed.update.lag").timeGauge().value());
+    }
+
+    @Test
+    void scheduleNextPoll_WithoutUpdates_BacksOffUpToTheMaximumInterval() {
+        // Arrange
+        weatherPollSchedule.recordFailure(Instant.ofEpochSecond(OBSERVATION_TIMESTAMP));
+
+        // Act
+        long[] delays = new long[6];
+        for (int i = 0; i < delays.length; i++) {
+            delays[i] = delayAt(OBSERVATION_TIMESTAMP + i * 1000L);
+            weatherPollSchedule.recordPoll(null, Instant.ofEpochSecond(OBSERVATION_TIMESTAMP + i * 1000L));
+        }
+
+        // Assert
+        assertEquals(60, delays[0]);
+        assertEquals(120, delays[1]);
+        assertEquals(240, delays[2]);
+        assertEquals(480, delays[3]);
+        assertEquals(900, delays[4]);
+        assertEquals(900, delays[5]);
+        assertEquals(1.0, meterRegistry.get("weather.polls").tag("result", "failed").counter().count());
+        assertEquals(6.0, meterRegistry.get("weather.polls").tag("result", "unchanged").counter().count());
+    }
+
+    @Test
+    void nextImportDeadline_WithAdaptivePolling_IsTheNextPollPlusGrace() {
+        // Arrange
+        Instant now = Instant.now();
+
+        // Act
+        Instant beforeFirstPoll = weatherPollSchedule.nextImportDeadline();
+        Instant nextPoll = weatherPollSchedule.scheduleNextPoll(now);
+        Instant deadline = weatherPollSchedule.nextImportDeadline();
+
+        // Assert
+        assertNull(beforeFirstPoll);
+        assertEquals(nextPoll.plusSeconds(60), deadline);
+    }
+
+    @Test
+    void nextImportDeadline_WithHourlyImport_IsAtMostAnHourAndGraceAway() {
+        // Arrange
+        ReflectionTestUtils.setField(weatherPollSchedule, "adaptive", false);
+        Instant now = Instant.now();
+
+        // Act
+        Instant deadline = weatherPollSchedule.nextImportDeadline();
+        ReflectionTestUtils.setField(weatherPollSchedule, "importCron", "-");
+        weatherPollSchedule.init();
+        Instant withoutSchedule = weatherPollSchedule.nextImportDeadline();
+
+        // Assert
+        long secondsUntilDeadline = deadline.getEpochSecond() - now.getEpochSecond();
+        assertTrue(secondsUntilDeadline >= 0 && secondsUntilDeadline <= HOUR + 60, deadline.toString());
+        assertNull(withoutSchedule);
+    }
+}
@@ -0,0 +1,94 @@
+package com.fujitsu.delivery_fee_api.service.weather.provider.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fujitsu.delivery_fee_api.service.weather.provider.WeatherFeedHandler;
+import com.fujitsu.delivery_fee_api.service.weather.provider.WeatherFeedResponse;
+import com.fujitsu.delivery_fee_api.util.ObservationFeedReader;
+
+class ReplayWeatherProviderTest {
+
+    private static final int OBSERVATION_TIMESTAMP = 1705316400;
+    private static final int HOUR = 3600;
+
+    @TempDir
+    Path directory;
+
+    private ReplayWeatherProvider replayWeatherProvider;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        String feed;
+        try (InputStream in = getClass().getResourceAsStream("/feeds/observations.xml")) {
+            feed = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        // recorded out of name order, the last one compressed
+        Files.writeString(directory.resolve("b.xml"), feed);
+        Files.writeString(directory.resolve("a.xml"), feed.replace(
+            "timestamp=\"" + OBSERVATION_TIMESTAMP + "\"", "timestamp=\"" + (OBSERVATION_TIMESTAMP + HOUR) + "\""));
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(directory.resolve("c.xml.gz")))) {
+            out.write(feed.replace("timestamp=\"" + OBSERVATION_TIMESTAMP + "\"",
+                "timestamp=\"" + (OBSERVATION_TIMESTAMP + 2 * HOUR) + "\"").getBytes(StandardCharsets.UTF_8));
+        }
+        Files.writeString(directory.resolve("notes.txt"), "not a feed");
+
+        replayWeatherProvider = new ReplayWeatherProvider(new ObservationFeedReader());
+        ReflectionTestUtils.setField(replayWeatherProvider, "directory", directory.toString());
+        ReflectionTestUtils.setField(replayWeatherProvider, "speed", 3600.0);
+    }
+
+    @Test
+    void current_AtOneHourPerSecond_ServesFeedsInObservationTimestampOrder() throws IOException {
+        // Arrange
+        Instant start = Instant.ofEpochSecond(1_800_000_000L);
+
+        // Act
+        int first = replayWeatherProvider.current(start).observationTimestamp();
+        int afterOneSecond = replayWeatherProvider.current(start.plusMillis(1500)).observationTimestamp();
+        int afterTheEnd = replayWeatherProvider.current(start.plusSeconds(60)).observationTimestamp();
+
+        // Assert
+        assertEquals(OBSERVATION_TIMESTAMP, first);
+        assertEquals(OBSERVATION_TIMESTAMP + HOUR, afterOneSecond);
+        assertEquals(OBSERVATION_TIMESTAMP + 2 * HOUR, afterTheEnd);
+    }
+
+    @Test
+    void fetch_WithETagOfCurrentFeed_IsNotModified() throws IOException {
+        // Arrange
+        WeatherFeedHandler<String> eTagHandler = new WeatherFeedHandler<>() {
+            @Override
+            public String feed(WeatherFeedResponse response) {
+                return response.eTag();
+            }
+
+            @Override
+            public String notModified() {
+                return null;
+            }
+        };
+
+        // Act
+        String eTag = replayWeatherProvider.fetch(null, null, eTagHandler);
+        String again = replayWeatherProvider.fetch(eTag, null, eTagHandler);
+
+        // Assert
+        assertEquals("\"" + OBSERVATION_TIMESTAMP + "\"", eTag);
+        assertNull(again);
+    }
+}
@@ -0,0 +1,56 @@
+package com.fujitsu.delivery_fee_api.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class HttpCacheUtilsTest {
+
+    private static HttpCacheUtils httpCacheUtils() {
+        HttpCacheUtils httpCacheUtils = new HttpCacheUtils();
+        ReflectionTestUtils.setField(httpCacheUtils, "enabled", true);
+        return httpCacheUtils;
+    }
+
+    @Test
+    void untilNextImport_WithDeadline_AllowsCachingUntilTheDeadline() {
+        // Act
+        String cacheControl = httpCacheUtils().untilNextImport(Instant.now().plusSeconds(3600)).getHeaderValue();
+        String pastDeadline = httpCacheUtils().untilNextImport(Instant.now().minusSeconds(60)).getHeaderValue();
+
+        // Assert
+        assertTrue(cacheControl.startsWith("max-age="), cacheControl);
+        long maxAge = Long.parseLong(cacheControl.substring("max-age=".length(), cacheControl.indexOf(',')));
+        assertTrue(maxAge >= 3600 - 5 && maxAge <= 3600, cacheControl);
+        assertTrue(cacheControl.endsWith("public"), cacheControl);
+        assertEquals("max-age=0, public", pastDeadline);
+    }
+
+    @Test
+    void untilNextImport_WithoutDeadline_RequiresRevalidation() {
+        // Act
+        String cacheControl = httpCacheUtils().untilNextImport(null).getHeaderValue();
+
+        // Assert
+        assertEquals("no-cache, public", cacheControl);
+    }
+
+    @Test
+    void eTag_WithSameAndDifferentInputs_IsStableAndDistinct() {
+        // Arrange
+        HttpCacheUtils httpCacheUtils = httpCacheUtils();
+
+        // Act
+        String eTag = httpCacheUtils.eTag("Tallinn", "Bike", 1686823200, 3L);
+
+        // Assert
+        assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""), eTag);
+        assertEquals(eTag, httpCacheUtils.eTag("Tallinn", "Bike", 1686823200, 3L));
+        assertNotEquals(eTag, httpCacheUtils.eTag("Tallinn", "Bike", 1686823200, 4L));
+    }
+}
@@ -0,0 +1,91 @@
+package com.fujitsu.delivery_fee_api.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.fujitsu.delivery_fee_api.dto.WeatherDataDTO;
+
+class ObservationFeedReaderTest {
+
+    private final ObservationFeedReader observationFeedReader = new ObservationFeedReader();
+
+    private List<WeatherDataDTO> readRecordedFeed(Set<Integer> relevantWmoCodes) throws IOException {
+        try (InputStream feed = getClass().getResourceAsStream("/feeds/observations.xml")) {
+            return observationFeedReader.read(feed, relevantWmoCodes);
+        }
+    }
+
+    @Test
+    void read_RecordedFeed_KeepsOnlyRelevantStationsInFeedOrder() throws IOException {
+        // Act
+        List<WeatherDataDTO> observations = readRecordedFeed(Set.of(26038, 26242, 41803));
+
+        // Assert
+        assertEquals(List.of(26038, 41803, 26242), observations.stream().map(WeatherDataDTO::getWmoCode).toList());
+
+        WeatherDataDTO tallinn = observations.get(0);
+        assertEquals("Tallinn-Harku", tallinn.getStationName());
+        assertEquals(-10.6f, tallinn.getAirTemperature());
+        assertEquals(6.1f, tallinn.getWindSpeed());
+        assertEquals("Clear", tallinn.getWeatherPhenomenon());
+        assertEquals(1705316400, tallinn.getObservationTimestamp());
+
+        WeatherDataDTO tartu = observations.get(2);
+        assertEquals("Tartu-Tõravere", tartu.getStationName());
+        assertEquals(-1.6f, tartu.getAirTemperature());
+        assertEquals(0.1f, tartu.getWindSpeed());
+        assertEquals("Light rain", tartu.getWeatherPhenomenon());
+    }
+
+    @Test
+    void read_StationWithEmptyValues_ReadsThemAsNull() {
+        // Arrange
+        String xml = """
+                <observations timestamp="1705316400">
+                    <station>
+                        <name>Pärnu</name>
+                        <wmocode> 41803 </wmocode>
+                        <phenomenon></phenomenon>
+                        <airtemperature/>
+                        <windspeed>4.8</windspeed>
+                    </station>
+                    <station>
+                        <name>Hüdroloogiajaam 13</name>
+                        <wmocode></wmocode>
+                    </station>
+                </observations>
+                """;
+
+        // Act
+        List<WeatherDataDTO> observations = observationFeedReader.read(
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), Set.of(41803));
+
+        // Assert
+        assertEquals(1, observations.size());
+        assertEquals(41803, observations.get(0).getWmoCode());
+        assertEquals("Pärnu", observations.get(0).getStationName());
+        assertNull(observations.get(0).getWeatherPhenomenon());
+        assertNull(observations.get(0).getAirTemperature());
+        assertEquals(4.8f, observations.get(0).getWindSpeed());
+    }
+
+    @Test
+    void read_FeedWithoutTimestamp_Throws() {
+        // Arrange
+        String xml = "<observations><station><wmocode>41803</wmocode></station></observations>";
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> observationFeedReader.read(
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), Set.of(41803)));
+    }
+}